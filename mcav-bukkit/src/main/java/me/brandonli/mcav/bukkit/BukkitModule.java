@@ -18,6 +18,7 @@
 package me.brandonli.mcav.bukkit;
 
 import me.brandonli.mcav.bukkit.media.lookup.BlockPaletteLookup;
+import me.brandonli.mcav.bukkit.utils.MainThreadDispatcher;
 import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.module.MCAVModule;
 import org.bukkit.plugin.Plugin;
@@ -43,6 +44,7 @@ public final class BukkitModule implements MCAVModule {
     PLUGIN = plugin;
     BlockPaletteLookup.init();
     PacketUtils.init();
+    MainThreadDispatcher.init();
   }
 
   /**
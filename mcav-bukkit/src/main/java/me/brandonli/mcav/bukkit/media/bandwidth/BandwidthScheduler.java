@@ -0,0 +1,106 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.bandwidth;
+
+import java.util.Collection;
+import java.util.UUID;
+import net.minecraft.network.protocol.Packet;
+
+/**
+ * Represents a scheduler that paces outgoing frame packets against a bandwidth budget. Results
+ * ask the scheduler how many bytes they may produce for the next frame and hand the encoded
+ * packets back to it, leaving the scheduler to decide when they are actually written.
+ */
+public interface BandwidthScheduler {
+  /**
+   * The default maximum amount of bytes a single frame may contain.
+   */
+  int DEFAULT_MAX_BYTES_PER_FRAME = 2 * 1024 * 1024;
+
+  /**
+   * Gets the amount of bytes the caller may produce for the next frame. Packets that do not fit
+   * within the budget should be deferred by the caller rather than scheduled. A scheduler may be
+   * shared by several results, so each caller measures the time since its own previous frame.
+   *
+   * @param frameIntervalNanos the time since the caller's previous frame, or zero for its first frame
+   * @return the frame budget in bytes
+   */
+  int getFrameBudget(final long frameIntervalNanos);
+
+  /**
+   * Schedules a packet to be sent to the given viewers. Packets are always delivered to each
+   * viewer in the order they were scheduled.
+   *
+   * @param viewers the viewers to send the packet to
+   * @param packet  the packet to send
+   * @param bytes   the approximate payload size of the packet in bytes
+   */
+  void schedule(final Collection<UUID> viewers, final Packet<?> packet, final int bytes);
+
+  /**
+   * Starts the scheduler for one user. A scheduler may be shared by several results, so every call to this
+   * method must be balanced by a call to {@link #release()}, and the scheduler keeps running until the last
+   * user has released it.
+   */
+  void start();
+
+  /**
+   * Releases the scheduler for one user. Once every user that started it has released it, the scheduler stops
+   * and discards any packets that have not been sent yet.
+   */
+  void release();
+
+  /**
+   * Creates a scheduler that sends packets immediately with the default frame budget.
+   *
+   * @return a new immediate scheduler
+   */
+  static BandwidthScheduler immediate() {
+    return immediate(DEFAULT_MAX_BYTES_PER_FRAME);
+  }
+
+  /**
+   * Creates a scheduler that sends packets immediately with a fixed frame budget.
+   *
+   * @param maxBytesPerFrame the maximum amount of bytes a frame may contain
+   * @return a new immediate scheduler
+   */
+  static BandwidthScheduler immediate(final int maxBytesPerFrame) {
+    return new ImmediateBandwidthScheduler(maxBytesPerFrame);
+  }
+
+  /**
+   * Creates a scheduler that paces packets with a global token bucket and one token bucket per
+   * viewer. Each server tick is split into the given amount of slots, and the send rate is
+   * reduced whenever the observed Netty write latency exceeds the target latency.
+   *
+   * @param globalBytesPerSecond the maximum amount of bytes per second across all viewers
+   * @param viewerBytesPerSecond the maximum amount of bytes per second for a single viewer
+   * @param slotsPerTick         the amount of send slots per server tick
+   * @param targetLatencyMillis  the write latency in milliseconds above which the rate is reduced
+   * @return a new token bucket scheduler
+   */
+  static BandwidthScheduler tokenBucket(
+    final long globalBytesPerSecond,
+    final long viewerBytesPerSecond,
+    final int slotsPerTick,
+    final long targetLatencyMillis
+  ) {
+    return new TokenBucketBandwidthScheduler(globalBytesPerSecond, viewerBytesPerSecond, slotsPerTick, targetLatencyMillis);
+  }
+}
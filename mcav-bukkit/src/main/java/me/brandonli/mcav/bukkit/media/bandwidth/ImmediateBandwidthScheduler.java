@@ -0,0 +1,70 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.bandwidth;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.UUID;
+import me.brandonli.mcav.bukkit.utils.PacketUtils;
+import net.minecraft.network.protocol.Packet;
+
+/**
+ * A {@link BandwidthScheduler} that writes packets as soon as they are scheduled and only limits
+ * the size of each frame.
+ */
+public final class ImmediateBandwidthScheduler implements BandwidthScheduler {
+
+  private final int maxBytesPerFrame;
+
+  ImmediateBandwidthScheduler(final int maxBytesPerFrame) {
+    Preconditions.checkArgument(maxBytesPerFrame > 0, "Max bytes per frame must be positive");
+    this.maxBytesPerFrame = maxBytesPerFrame;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getFrameBudget(final long frameIntervalNanos) {
+    return this.maxBytesPerFrame;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void schedule(final Collection<UUID> viewers, final Packet<?> packet, final int bytes) {
+    PacketUtils.sendPackets(viewers, packet);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() {
+    // no-op
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void release() {
+    // no-op
+  }
+}
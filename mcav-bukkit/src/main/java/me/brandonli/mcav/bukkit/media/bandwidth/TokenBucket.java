@@ -0,0 +1,45 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.bandwidth;
+
+/**
+ * A simple token bucket measured in bytes. Not thread-safe, callers must synchronize externally.
+ */
+final class TokenBucket {
+
+  private final long capacity;
+  private double tokens;
+
+  TokenBucket(final long capacity) {
+    this.capacity = capacity;
+    this.tokens = capacity;
+  }
+
+  void refill(final double amount) {
+    this.tokens = Math.min(this.capacity, this.tokens + amount);
+  }
+
+  // a full bucket always admits one packet so oversized packets can't stall the queue forever
+  boolean canConsume(final int bytes) {
+    return this.tokens >= bytes || this.tokens >= this.capacity;
+  }
+
+  void consume(final int bytes) {
+    this.tokens -= bytes;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.bandwidth;
+
+import com.google.common.base.Preconditions;
+import io.netty.channel.Channel;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import me.brandonli.mcav.bukkit.utils.PacketUtils;
+import net.minecraft.network.protocol.Packet;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link BandwidthScheduler} that paces packets using a global token bucket and one token bucket
+ * per viewer. Every server tick is split into several send slots so a large frame is spread out
+ * over time instead of being written in one burst, and the send rate adapts to the observed
+ * Netty event loop latency.
+ */
+public final class TokenBucketBandwidthScheduler implements BandwidthScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TokenBucketBandwidthScheduler.class);
+
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long MAX_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long MIN_FRAME_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  // one full map, so critical patches still get through while the viewers work off their backlog
+  private static final int MIN_FRAME_BUDGET = 128 * 128;
+
+  private static final double MIN_RATE_FACTOR = 0.1;
+  private static final double RATE_DECREASE = 0.85;
+  private static final double RATE_INCREASE = 0.02;
+  private static final double LATENCY_SMOOTHING = 0.2;
+
+  private final long globalBytesPerSecond;
+  private final long viewerBytesPerSecond;
+  private final long slotNanos;
+  private final long targetLatencyNanos;
+  private final Map<UUID, ViewerQueue> queues;
+  private final TokenBucket globalBucket;
+  private final LongAdder latencySum;
+  private final LongAdder latencyCount;
+
+  private volatile double rateFactor;
+  private double smoothedLatencyNanos;
+  private long lastDrainNanos;
+  private int users;
+  private @Nullable ScheduledExecutorService executor;
+
+  TokenBucketBandwidthScheduler(
+    final long globalBytesPerSecond,
+    final long viewerBytesPerSecond,
+    final int slotsPerTick,
+    final long targetLatencyMillis
+  ) {
+    Preconditions.checkArgument(globalBytesPerSecond > 0, "Global bytes per second must be positive");
+    Preconditions.checkArgument(viewerBytesPerSecond > 0, "Viewer bytes per second must be positive");
+    Preconditions.checkArgument(slotsPerTick > 0, "Slots per tick must be positive");
+    Preconditions.checkArgument(targetLatencyMillis > 0, "Target latency must be positive");
+    this.globalBytesPerSecond = globalBytesPerSecond;
+    this.viewerBytesPerSecond = viewerBytesPerSecond;
+    this.slotNanos = Math.max(1, TICK_NANOS / slotsPerTick);
+    this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+    this.queues = new ConcurrentHashMap<>();
+    this.globalBucket = new TokenBucket(bytesPerTick(globalBytesPerSecond));
+    this.latencySum = new LongAdder();
+    this.latencyCount = new LongAdder();
+    this.rateFactor = 1.0;
+  }
+
+  private static long bytesPerTick(final long bytesPerSecond) {
+    return Math.max(1, bytesPerSecond / 20);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getFrameBudget(final long frameIntervalNanos) {
+    final long interval = frameIntervalNanos > 0
+      ? Math.clamp(frameIntervalNanos, MIN_FRAME_INTERVAL_NANOS, MAX_FRAME_INTERVAL_NANOS)
+      : TICK_NANOS;
+
+    // every viewer receives every byte, so the global rate is shared between them
+    final int viewers = Math.max(1, this.queues.size());
+    final double sharedRate = (double) this.globalBytesPerSecond / viewers;
+    final double rate = Math.min(this.viewerBytesPerSecond, sharedRate) * this.rateFactor;
+    final double seconds = interval / 1e9;
+    final long budget = (long) (rate * seconds) - this.getMaxBacklog();
+    return (int) Math.clamp(budget, MIN_FRAME_BUDGET, Integer.MAX_VALUE);
+  }
+
+  private long getMaxBacklog() {
+    long max = 0;
+    for (final ViewerQueue queue : this.queues.values()) {
+      max = Math.max(max, queue.queuedBytes.get());
+    }
+    return max;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void schedule(final Collection<UUID> viewers, final Packet<?> packet, final int bytes) {
+    final PendingPacket pending = new PendingPacket(packet, bytes);
+    final long capacity = bytesPerTick(this.viewerBytesPerSecond);
+    for (final UUID viewer : viewers) {
+      final ViewerQueue queue = this.queues.computeIfAbsent(viewer, k -> new ViewerQueue(capacity));
+      queue.packets.add(pending);
+      queue.queuedBytes.addAndGet(bytes);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void start() {
+    this.users++;
+    if (this.executor != null) {
+      return;
+    }
+    final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread thread = new Thread(task, "mcav-bandwidth");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor = service;
+    this.lastDrainNanos = System.nanoTime();
+    service.scheduleAtFixedRate(this::drain, this.slotNanos, this.slotNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void release() {
+    if (this.users > 0 && --this.users > 0) {
+      return;
+    }
+    final ScheduledExecutorService service = this.executor;
+    if (service != null) {
+      service.shutdownNow();
+      this.executor = null;
+    }
+    this.queues.clear();
+  }
+
+  // an exception escaping a fixed rate task cancels it for good, which would silently stop pacing for everyone
+  private void drain() {
+    try {
+      this.drainSlot();
+    } catch (final Throwable e) {
+      LOGGER.error("Failed to send scheduled packets", e);
+    }
+  }
+
+  private void drainSlot() {
+    final long now = System.nanoTime();
+    final double seconds = (now - this.lastDrainNanos) / 1e9;
+    this.lastDrainNanos = now;
+
+    final double factor = this.rateFactor;
+    this.globalBucket.refill(this.globalBytesPerSecond * factor * seconds);
+    final double viewerRefill = this.viewerBytesPerSecond * factor * seconds;
+    for (final ViewerQueue queue : this.queues.values()) {
+      queue.bucket.refill(viewerRefill);
+    }
+
+    this.sendRoundRobin();
+    this.adaptRate();
+  }
+
+  // one packet per viewer per pass so a single viewer can't starve the others of the global bucket
+  private void sendRoundRobin() {
+    boolean progress = true;
+    while (progress) {
+      progress = false;
+      for (final Map.Entry<UUID, ViewerQueue> entry : this.queues.entrySet()) {
+        final UUID viewer = entry.getKey();
+        final ViewerQueue queue = entry.getValue();
+        final PendingPacket pending = queue.packets.peek();
+        if (pending == null) {
+          continue;
+        }
+
+        final int bytes = pending.bytes;
+        if (!queue.bucket.canConsume(bytes) || !this.globalBucket.canConsume(bytes)) {
+          continue;
+        }
+
+        final Channel channel = PacketUtils.getChannel(viewer);
+        if (channel == null) {
+          this.queues.remove(viewer);
+          continue;
+        }
+
+        queue.packets.poll();
+        queue.queuedBytes.addAndGet(-bytes);
+        queue.bucket.consume(bytes);
+        this.globalBucket.consume(bytes);
+        PacketUtils.sendPackets(viewer, pending.packet);
+        this.probeLatency(channel);
+        progress = true;
+      }
+    }
+  }
+
+  // the probe runs after the write we just queued, so its delay is the event loop backlog
+  private void probeLatency(final Channel channel) {
+    final long start = System.nanoTime();
+    channel
+      .eventLoop()
+      .execute(() -> {
+        final long latency = System.nanoTime() - start;
+        this.latencySum.add(latency);
+        this.latencyCount.increment();
+      });
+  }
+
+  private void adaptRate() {
+    final long count = this.latencyCount.sumThenReset();
+    final long sum = this.latencySum.sumThenReset();
+    if (count == 0) {
+      return;
+    }
+
+    final double average = (double) sum / count;
+    this.smoothedLatencyNanos += (average - this.smoothedLatencyNanos) * LATENCY_SMOOTHING;
+
+    final double factor = this.rateFactor;
+    if (this.smoothedLatencyNanos > this.targetLatencyNanos) {
+      this.rateFactor = Math.max(MIN_RATE_FACTOR, factor * RATE_DECREASE);
+    } else if (this.smoothedLatencyNanos < this.targetLatencyNanos / 2.0) {
+      this.rateFactor = Math.min(1.0, factor + RATE_INCREASE);
+    }
+  }
+
+  private static final class ViewerQueue {
+
+    final Queue<PendingPacket> packets;
+    final AtomicLong queuedBytes;
+    final TokenBucket bucket;
+
+    ViewerQueue(final long capacity) {
+      this.packets = new ConcurrentLinkedQueue<>();
+      this.queuedBytes = new AtomicLong();
+      this.bucket = new TokenBucket(capacity);
+    }
+  }
+
+  private static final class PendingPacket {
+
+    final Packet<?> packet;
+    final int bytes;
+
+    PendingPacket(final Packet<?> packet, final int bytes) {
+      this.packet = packet;
+      this.bytes = bytes;
+    }
+  }
+}
@@ -20,6 +20,7 @@ package me.brandonli.mcav.bukkit.media.config;
 import com.google.common.base.Preconditions;
 import java.util.Collection;
 import java.util.UUID;
+import me.brandonli.mcav.bukkit.media.viewer.ViewerTracker;
 import org.bukkit.Location;
 
 /**
@@ -31,12 +32,14 @@ public class BlockConfiguration {
   private final int blockWidth;
   private final int blockHeight;
   private final Location position;
+  private final ViewerTracker viewerTracker;
 
   private BlockConfiguration(final BlockConfiguration.Builder<?> builder) {
     this.viewers = builder.viewers;
     this.blockWidth = builder.blockWidth;
     this.blockHeight = builder.blockHeight;
     this.position = builder.position;
+    this.viewerTracker = builder.viewerTracker;
   }
 
   /**
@@ -75,6 +78,15 @@ public class BlockConfiguration {
     return this.position;
   }
 
+  /**
+   * Gets the tracker that decides which viewers can currently see the screen.
+   *
+   * @return the viewer tracker
+   */
+  public ViewerTracker getViewerTracker() {
+    return this.viewerTracker;
+  }
+
   /**
    * Block configuration builder abstraction.
    */
@@ -110,6 +122,7 @@ public class BlockConfiguration {
     private int blockWidth;
     private int blockHeight;
     private Location position;
+    private ViewerTracker viewerTracker;
 
     Builder() {
       // no-op
@@ -161,6 +174,19 @@ public class BlockConfiguration {
       return this.self();
     }
 
+    /**
+     * Sets the tracker that decides which viewers can currently see the screen. Frames are only sent
+     * to visible viewers, and viewers coming into view are caught up with a full frame. Defaults to
+     * {@link ViewerTracker#all()}, which never culls.
+     *
+     * @param viewerTracker the viewer tracker
+     * @return the builder instance for chaining additional configuration
+     */
+    public T viewerTracker(final ViewerTracker viewerTracker) {
+      this.viewerTracker = viewerTracker;
+      return this.self();
+    }
+
     /**
      * Builds the block configuration.
      *
@@ -171,6 +197,7 @@ public class BlockConfiguration {
       Preconditions.checkArgument(this.blockHeight > 0, "Map block height must be positive");
       Preconditions.checkNotNull(this.viewers);
       Preconditions.checkNotNull(this.position);
+      this.viewerTracker = this.viewerTracker == null ? ViewerTracker.all() : this.viewerTracker;
       return new BlockConfiguration(this);
     }
   }
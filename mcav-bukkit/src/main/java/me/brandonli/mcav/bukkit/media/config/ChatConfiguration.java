@@ -24,16 +24,15 @@ import java.util.UUID;
 /**
  * Represents a configuration for chat related prototypes.
  */
-public class ChatConfiguration {
+public class ChatConfiguration extends TextConfiguration {
 
   private final Collection<UUID> viewers;
-  private final String character;
   private final int chatWdith;
   private final int chatHeight;
 
   private ChatConfiguration(final Builder<?> builder) {
+    super(builder);
     this.viewers = builder.viewers;
-    this.character = builder.character;
     this.chatWdith = builder.chatWidth;
     this.chatHeight = builder.chatHeight;
   }
@@ -47,15 +46,6 @@ public class ChatConfiguration {
     return this.viewers;
   }
 
-  /**
-   * Gets the character string associated with this chat configuration.
-   *
-   * @return the character string, which may represent a specific
-   */
-  public String getCharacter() {
-    return this.character;
-  }
-
   /**
    * Gets the width of the chat
    *
@@ -103,10 +93,9 @@ public class ChatConfiguration {
    *
    * @param <T> the type of the builder
    */
-  public abstract static class Builder<T extends Builder<T>> {
+  public abstract static class Builder<T extends Builder<T>> extends TextConfiguration.Builder<T> {
 
     private Collection<UUID> viewers;
-    private String character;
     private int chatWidth;
     private int chatHeight;
 
@@ -114,8 +103,6 @@ public class ChatConfiguration {
       // no-op
     }
 
-    abstract T self();
-
     /**
      * Sets the viewers of this chat configuration.
      *
@@ -127,17 +114,6 @@ public class ChatConfiguration {
       return this.self();
     }
 
-    /**
-     * Sets the character string of this chat configuration.
-     *
-     * @param character the character value to be set
-     * @return the instance of the builder for method chaining
-     */
-    public T character(final String character) {
-      this.character = character;
-      return this.self();
-    }
-
     /**
      * Sets the chat width of this chat configuration.
      *
@@ -167,7 +143,6 @@ public class ChatConfiguration {
      */
     public ChatConfiguration build() {
       Preconditions.checkNotNull(this.viewers);
-      Preconditions.checkNotNull(this.character);
       Preconditions.checkArgument(this.chatWidth > 0, "Chat width must be positive");
       Preconditions.checkArgument(this.chatHeight > 0, "Chat height must be positive");
       return new ChatConfiguration(this);
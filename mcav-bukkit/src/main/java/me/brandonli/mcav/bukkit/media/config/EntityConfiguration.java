@@ -25,20 +25,37 @@ import org.bukkit.Location;
 /**
  * Represents a configuration for an entity related prototypes.
  */
-public class EntityConfiguration {
+public class EntityConfiguration extends TextConfiguration {
+
+  /**
+   * The default horizontal advance of a single glyph, in blocks, used to lay out tiles.
+   */
+  public static final double DEFAULT_GLYPH_WIDTH = 0.225;
+
+  /**
+   * The default height of a single line of text, in blocks, used to lay out tiles.
+   */
+  public static final double DEFAULT_GLYPH_HEIGHT = 0.25;
 
   private final Collection<UUID> viewers;
-  private final String character;
   private final int entityWidth;
   private final int entityHeight;
   private final Location position;
+  private final int tileColumns;
+  private final int tileRows;
+  private final double glyphWidth;
+  private final double glyphHeight;
 
   private EntityConfiguration(final Builder<?> builder) {
+    super(builder);
     this.viewers = builder.viewers;
-    this.character = builder.character;
     this.entityWidth = builder.entityWidth;
     this.entityHeight = builder.entityHeight;
     this.position = builder.position;
+    this.tileColumns = builder.tileColumns;
+    this.tileRows = builder.tileRows;
+    this.glyphWidth = builder.glyphWidth;
+    this.glyphHeight = builder.glyphHeight;
   }
 
   /**
@@ -50,15 +67,6 @@ public class EntityConfiguration {
     return this.viewers;
   }
 
-  /**
-   * Gets the character string associated with this entity configuration.
-   *
-   * @return the character string, which may represent a specific
-   */
-  public String getCharacter() {
-    return this.character;
-  }
-
   /**
    * Gets the width of the entity
    *
@@ -86,6 +94,42 @@ public class EntityConfiguration {
     return this.position;
   }
 
+  /**
+   * Gets the number of text display columns the image is split across.
+   *
+   * @return the number of tile columns
+   */
+  public int getTileColumns() {
+    return this.tileColumns;
+  }
+
+  /**
+   * Gets the number of text display rows the image is split across.
+   *
+   * @return the number of tile rows
+   */
+  public int getTileRows() {
+    return this.tileRows;
+  }
+
+  /**
+   * Gets the horizontal advance of a single glyph, in blocks.
+   *
+   * @return the glyph width
+   */
+  public double getGlyphWidth() {
+    return this.glyphWidth;
+  }
+
+  /**
+   * Gets the height of a single line of text, in blocks.
+   *
+   * @return the glyph height
+   */
+  public double getGlyphHeight() {
+    return this.glyphHeight;
+  }
+
   /**
    * Entity configuration builder abstraction.
    */
@@ -115,20 +159,21 @@ public class EntityConfiguration {
    *
    * @param <T> the type of the builder
    */
-  public abstract static class Builder<T extends Builder<T>> {
+  public abstract static class Builder<T extends Builder<T>> extends TextConfiguration.Builder<T> {
 
     private Collection<UUID> viewers;
-    private String character;
     private int entityWidth;
     private int entityHeight;
     private Location position;
+    private int tileColumns = 1;
+    private int tileRows = 1;
+    private double glyphWidth = DEFAULT_GLYPH_WIDTH;
+    private double glyphHeight = DEFAULT_GLYPH_HEIGHT;
 
     Builder() {
       // no-op
     }
 
-    abstract T self();
-
     /**
      * Sets the viewers of this entity configuration.
      *
@@ -140,17 +185,6 @@ public class EntityConfiguration {
       return this.self();
     }
 
-    /**
-     * Sets the character string of this entity configuration.
-     *
-     * @param character the character value to be set
-     * @return the instance of the builder for method chaining
-     */
-    public T character(final String character) {
-      this.character = character;
-      return this.self();
-    }
-
     /**
      * Sets the width of the entity.
      *
@@ -184,6 +218,35 @@ public class EntityConfiguration {
       return this.self();
     }
 
+    /**
+     * Splits the image across a grid of text displays. Each tile is updated independently, so only the tiles that
+     * changed are resent and the client only re-lays-out their text. A single tile, the default, keeps one
+     * display that always faces the viewer.
+     *
+     * @param columns the number of tile columns
+     * @param rows    the number of tile rows
+     * @return the builder instance for method chaining
+     */
+    public T tiles(final int columns, final int rows) {
+      this.tileColumns = columns;
+      this.tileRows = rows;
+      return this.self();
+    }
+
+    /**
+     * Sets the size of a single glyph, in blocks, which is used to place tiles next to each other. This depends on
+     * the character used and should only be changed if tiles overlap or leave gaps.
+     *
+     * @param width  the horizontal advance of a glyph
+     * @param height the height of a line of text
+     * @return the builder instance for method chaining
+     */
+    public T glyphSize(final double width, final double height) {
+      this.glyphWidth = width;
+      this.glyphHeight = height;
+      return this.self();
+    }
+
     /**
      * Builds the entity configuration.
      *
@@ -191,10 +254,12 @@ public class EntityConfiguration {
      */
     public EntityConfiguration build() {
       Preconditions.checkNotNull(this.viewers);
-      Preconditions.checkNotNull(this.character);
       Preconditions.checkNotNull(this.position);
       Preconditions.checkArgument(this.entityWidth > 0, "Entity width must be positive");
       Preconditions.checkArgument(this.entityHeight > 0, "Entity height must be positive");
+      Preconditions.checkArgument(this.tileColumns > 0 && this.tileColumns <= this.entityWidth, "Invalid tile columns");
+      Preconditions.checkArgument(this.tileRows > 0 && this.tileRows <= this.entityHeight, "Invalid tile rows");
+      Preconditions.checkArgument(this.glyphWidth > 0 && this.glyphHeight > 0, "Glyph size must be positive");
       return new EntityConfiguration(this);
     }
   }
@@ -20,8 +20,12 @@ package me.brandonli.mcav.bukkit.media.config;
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import me.brandonli.mcav.bukkit.media.bandwidth.BandwidthScheduler;
+import me.brandonli.mcav.bukkit.media.viewer.LodTier;
+import me.brandonli.mcav.bukkit.media.viewer.ViewerTracker;
 
 /**
  * Represents a configuration for map related prototypes.
@@ -36,6 +40,9 @@ public class MapConfiguration {
   private final int mapWidthResolution;
   private final int mapHeightResolution;
   private final boolean resize;
+  private final BandwidthScheduler bandwidthScheduler;
+  private final ViewerTracker viewerTracker;
+  private final List<LodTier> lodTiers;
 
   private MapConfiguration(final Builder<?> builder) {
     this.mapIds = new ArrayList<>();
@@ -46,6 +53,9 @@ public class MapConfiguration {
     this.mapWidthResolution = builder.mapWidthResolution;
     this.mapHeightResolution = builder.mapHeightResolution;
     this.resize = builder.resize;
+    this.bandwidthScheduler = builder.bandwidthScheduler;
+    this.viewerTracker = builder.viewerTracker;
+    this.lodTiers = builder.lodTiers;
   }
 
   /**
@@ -120,6 +130,33 @@ public class MapConfiguration {
     return this.mapHeightResolution;
   }
 
+  /**
+   * Gets the bandwidth scheduler used to pace outgoing map packets.
+   *
+   * @return the bandwidth scheduler
+   */
+  public BandwidthScheduler getBandwidthScheduler() {
+    return this.bandwidthScheduler;
+  }
+
+  /**
+   * Gets the tracker that decides which viewers can currently see the screen.
+   *
+   * @return the viewer tracker
+   */
+  public ViewerTracker getViewerTracker() {
+    return this.viewerTracker;
+  }
+
+  /**
+   * Gets the level of detail tiers for distant viewers, sorted by ascending distance.
+   *
+   * @return the level of detail tiers, empty if every viewer receives the full stream
+   */
+  public List<LodTier> getLodTiers() {
+    return this.lodTiers;
+  }
+
   /**
    * Map configuration builder abstraction.
    */
@@ -158,6 +195,9 @@ public class MapConfiguration {
     private int mapWidthResolution;
     private int mapHeightResolution;
     private boolean resize;
+    private BandwidthScheduler bandwidthScheduler;
+    private ViewerTracker viewerTracker;
+    private List<LodTier> lodTiers;
 
     Builder() {
       // no-op
@@ -244,6 +284,44 @@ public class MapConfiguration {
       return this.self();
     }
 
+    /**
+     * Sets the bandwidth scheduler used to pace outgoing map packets. Defaults to
+     * {@link BandwidthScheduler#immediate()}.
+     *
+     * @param bandwidthScheduler the bandwidth scheduler
+     * @return the builder instance for chaining additional configuration
+     */
+    public T bandwidthScheduler(final BandwidthScheduler bandwidthScheduler) {
+      this.bandwidthScheduler = bandwidthScheduler;
+      return this.self();
+    }
+
+    /**
+     * Sets the tracker that decides which viewers can currently see the screen. Frames are only sent
+     * to visible viewers, and viewers coming into view are caught up with a full frame. Defaults to
+     * {@link ViewerTracker#all()}, which never culls.
+     *
+     * @param viewerTracker the viewer tracker
+     * @return the builder instance for chaining additional configuration
+     */
+    public T viewerTracker(final ViewerTracker viewerTracker) {
+      this.viewerTracker = viewerTracker;
+      return this.self();
+    }
+
+    /**
+     * Sets the level of detail tiers for distant viewers. Each viewer falls into the farthest tier whose
+     * minimum distance it exceeds, as measured by the {@link #viewerTracker(ViewerTracker) viewer tracker}.
+     * Every tier is encoded once per frame and shared by its viewers. Defaults to no tiers.
+     *
+     * @param lodTiers the level of detail tiers
+     * @return the builder instance for chaining additional configuration
+     */
+    public T lodTiers(final LodTier... lodTiers) {
+      this.lodTiers = List.of(lodTiers);
+      return this.self();
+    }
+
     /**
      * Builds the map configuration.
      *
@@ -256,7 +334,16 @@ public class MapConfiguration {
       Preconditions.checkNotNull(this.viewers);
       this.mapWidthResolution = this.mapWidthResolution == 0 ? 128 * this.mapBlockWidth : this.mapWidthResolution;
       this.mapHeightResolution = this.mapHeightResolution == 0 ? 128 * this.mapBlockHeight : this.mapHeightResolution;
+      this.bandwidthScheduler = this.bandwidthScheduler == null ? BandwidthScheduler.immediate() : this.bandwidthScheduler;
+      this.viewerTracker = this.viewerTracker == null ? ViewerTracker.all() : this.viewerTracker;
+      this.lodTiers = this.lodTiers == null ? List.of() : sortTiers(this.lodTiers);
       return new MapConfiguration(this);
     }
+
+    private static List<LodTier> sortTiers(final List<LodTier> tiers) {
+      final List<LodTier> sorted = new ArrayList<>(tiers);
+      sorted.sort(Comparator.comparingDouble(LodTier::getMinDistance));
+      return List.copyOf(sorted);
+    }
   }
 }
@@ -24,16 +24,15 @@ import java.util.UUID;
 /**
  * Represents a configuration for scoreboard related prototypes.
  */
-public class ScoreboardConfiguration {
+public class ScoreboardConfiguration extends TextConfiguration {
 
   private final Collection<UUID> viewers;
-  private final String character;
   private final int lines;
   private final int width;
 
   private ScoreboardConfiguration(final Builder<?> builder) {
+    super(builder);
     this.viewers = builder.viewers;
-    this.character = builder.character;
     this.lines = builder.lines;
     this.width = builder.width;
   }
@@ -47,15 +46,6 @@ public class ScoreboardConfiguration {
     return this.viewers;
   }
 
-  /**
-   * Gets the character string associated with this scoreboard configuration.
-   *
-   * @return the character string, which may represent a specific
-   */
-  public String getCharacter() {
-    return this.character;
-  }
-
   /**
    * Gets the number of lines in the scoreboard.
    *
@@ -103,10 +93,9 @@ public class ScoreboardConfiguration {
    *
    * @param <T> the type of the builder
    */
-  public abstract static class Builder<T extends Builder<T>> {
+  public abstract static class Builder<T extends Builder<T>> extends TextConfiguration.Builder<T> {
 
     private Collection<UUID> viewers;
-    private String character;
     private int lines;
     private int width;
 
@@ -114,8 +103,6 @@ public class ScoreboardConfiguration {
       // no-op
     }
 
-    abstract T self();
-
     /**
      * Sets the viewers of this scoreboard configuration.
      *
@@ -127,17 +114,6 @@ public class ScoreboardConfiguration {
       return this.self();
     }
 
-    /**
-     * Sets the character string of this scoreboard configuration.
-     *
-     * @param character the character value to be set
-     * @return the instance of the builder for method chaining
-     */
-    public T character(final String character) {
-      this.character = character;
-      return this.self();
-    }
-
     /**
      * Sets the scoreboard lines of this scoreboard configuration.
      *
@@ -167,7 +143,6 @@ public class ScoreboardConfiguration {
      */
     public ScoreboardConfiguration build() {
       Preconditions.checkNotNull(this.viewers);
-      Preconditions.checkNotNull(this.character);
       Preconditions.checkArgument(this.lines > 0, "Lines must be positive");
       Preconditions.checkArgument(this.width > 0, "Width must be positive");
       return new ScoreboardConfiguration(this);
@@ -0,0 +1,98 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.config;
+
+import com.google.common.base.Preconditions;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.palette.DitherPalette;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Base for configurations of prototypes that render frames as colored text, holding the options they all share.
+ */
+public abstract class TextConfiguration {
+
+  private final String character;
+  private final @Nullable DitherAlgorithm dither;
+
+  TextConfiguration(final Builder<?> builder) {
+    Preconditions.checkNotNull(builder.character);
+    this.character = builder.character;
+    this.dither = builder.dither;
+  }
+
+  /**
+   * Gets the character string associated with this configuration.
+   *
+   * @return the character string, which is repeated for each pixel
+   */
+  public String getCharacter() {
+    return this.character;
+  }
+
+  /**
+   * Gets the dithering algorithm applied to each frame before it is turned into text, if any.
+   *
+   * @return the dithering algorithm, or {@code null} if frames are rendered in full color
+   */
+  public @Nullable DitherAlgorithm getDither() {
+    return this.dither;
+  }
+
+  /**
+   * Abstract builder for text configurations.
+   *
+   * @param <T> the type of the builder
+   */
+  public abstract static class Builder<T extends Builder<T>> {
+
+    private String character;
+    private @Nullable DitherAlgorithm dither;
+
+    Builder() {
+      // no-op
+    }
+
+    abstract T self();
+
+    /**
+     * Sets the character string of this configuration.
+     *
+     * @param character the character value to be set
+     * @return the instance of the builder for method chaining
+     */
+    public T character(final String character) {
+      this.character = character;
+      return this.self();
+    }
+
+    /**
+     * Sets an optional dithering algorithm that reduces each frame to the algorithm's palette before it is
+     * rendered. Every color change costs a style in the resulting text, so a small palette such as
+     * {@link DitherPalette#uniform(int)} produces long runs of the same color and much smaller packets, trading
+     * color accuracy for bandwidth. Pass {@code null} to render frames in full color, which is the default.
+     *
+     * @param dither the dithering algorithm, or {@code null} to disable dithering
+     * @return the builder instance for method chaining
+     */
+    public T dither(final @Nullable DitherAlgorithm dither) {
+      this.dither = dither;
+      return this.self();
+    }
+  }
+}
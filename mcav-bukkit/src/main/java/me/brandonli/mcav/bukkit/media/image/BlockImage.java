@@ -19,25 +19,30 @@ package me.brandonli.mcav.bukkit.media.image;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import me.brandonli.mcav.bukkit.media.config.BlockConfiguration;
 import me.brandonli.mcav.bukkit.media.lookup.BlockPaletteLookup;
 import me.brandonli.mcav.bukkit.media.result.LocationData;
+import me.brandonli.mcav.bukkit.media.result.SectionChangeBatch;
+import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
 import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.error.FilterLiteDither;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.Packet;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
-import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 
 /**
  * Represents a block-based image display implementation.
+ *
+ * <p>Blocks are sent as multi-block-change packets built from the shared block states of
+ * {@link BlockPaletteLookup}, so displaying an image does not create a block state per pixel.
  */
 public class BlockImage implements DisplayableImage {
 
@@ -45,6 +50,8 @@ public class BlockImage implements DisplayableImage {
   private final FilterLiteDither dither;
 
   private LocationData[] locationCache;
+  private long[] sectionKeys;
+  private short[] relativePositions;
 
   BlockImage(final BlockConfiguration configuration) {
     this.blockConfiguration = configuration;
@@ -54,25 +61,12 @@ public class BlockImage implements DisplayableImage {
   /**
    * {@inheritDoc}
    */
-  @SuppressWarnings("UnstableApiUsage")
   @Override
   public void displayImage(final ImageBuffer image) {
     final int blockWidth = this.blockConfiguration.getBlockWidth();
     final int blockHeight = this.blockConfiguration.getBlockHeight();
-    final Location origin = this.blockConfiguration.getPosition();
-    this.locationCache = new LocationData[blockWidth * blockHeight];
-    for (int i = 0; i < this.locationCache.length; i++) {
-      final int x = i % blockWidth;
-      final int y = i / blockWidth;
-      final int adjustedX = x - (blockWidth / 2);
-      final int adjustedY = blockHeight - 1 - y;
-      final Location clone = origin.clone();
-      final Location adjusted = clone.add(adjustedX, adjustedY, 0);
-      final Block block = adjusted.getBlock();
-      final BlockState state = block.getState();
-      final BlockState copy = state.copy(adjusted);
-      final LocationData locationData = new LocationData(adjusted, copy);
-      this.locationCache[i] = locationData;
+    if (this.locationCache == null) {
+      this.captureLocations(blockWidth, blockHeight);
     }
 
     final ResizeFilter resizeFilter = new ResizeFilter(blockWidth, blockHeight);
@@ -80,30 +74,41 @@ public class BlockImage implements DisplayableImage {
 
     final int[] resizedData = image.getPixels();
     final int length = resizedData.length;
-    this.dither.dither(resizedData, blockWidth);
+    final byte[] indices = new byte[length];
+    this.dither.ditherIntoBytes(resizedData, blockWidth, indices);
 
-    final Material[] materials = new Material[length];
-    for (int i = 0; i < materials.length; i++) {
-      materials[i] = BlockPaletteLookup.getMaterial(resizedData[i]);
-    }
-
-    final Collection<BlockState> blockStates = new HashSet<>();
-    for (int i = 0; i < materials.length; i++) {
-      final LocationData locationData = this.locationCache[i];
-      final Location location = locationData.getLocation();
-      final BlockData blockData = materials[i].createBlockData();
-      final BlockState blockState = blockData.createBlockState();
-      final BlockState copy = blockState.copy(location);
-      blockStates.add(copy);
+    final SectionChangeBatch changes = new SectionChangeBatch();
+    for (int i = 0; i < length; i++) {
+      changes.add(this.sectionKeys[i], this.relativePositions[i], BlockPaletteLookup.getBlockState(Byte.toUnsignedInt(indices[i])));
     }
 
+    final Packet<?>[] packets = changes.drainPackets();
     final Collection<UUID> viewers = this.blockConfiguration.getViewers();
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
-        continue;
-      }
-      player.sendBlockChanges(blockStates);
+    PacketUtils.sendPackets(viewers, packets);
+  }
+
+  // the original states are only read once, they are what release restores
+  @SuppressWarnings("UnstableApiUsage")
+  private void captureLocations(final int blockWidth, final int blockHeight) {
+    final Location origin = this.blockConfiguration.getPosition();
+    final int length = blockWidth * blockHeight;
+    this.locationCache = new LocationData[length];
+    this.sectionKeys = new long[length];
+    this.relativePositions = new short[length];
+    for (int i = 0; i < length; i++) {
+      final int x = i % blockWidth;
+      final int y = i / blockWidth;
+      final int adjustedX = x - (blockWidth / 2);
+      final int adjustedY = blockHeight - 1 - y;
+      final Location clone = origin.clone();
+      final Location adjusted = clone.add(adjustedX, adjustedY, 0);
+      final Block block = adjusted.getBlock();
+      final BlockState state = block.getState();
+      final BlockState copy = state.copy(adjusted);
+      this.locationCache[i] = new LocationData(adjusted, copy);
+      final BlockPos pos = new BlockPos(adjusted.getBlockX(), adjusted.getBlockY(), adjusted.getBlockZ());
+      this.sectionKeys[i] = SectionPos.asLong(pos);
+      this.relativePositions[i] = SectionPos.sectionRelativePos(pos);
     }
   }
 
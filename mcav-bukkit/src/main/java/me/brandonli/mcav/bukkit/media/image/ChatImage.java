@@ -21,9 +21,11 @@ import java.util.Collection;
 import java.util.UUID;
 import me.brandonli.mcav.bukkit.media.config.ChatConfiguration;
 import me.brandonli.mcav.bukkit.utils.ChatUtils;
+import me.brandonli.mcav.bukkit.utils.ComponentRenderer;
 import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.protocol.game.ClientboundSystemChatPacket;
 
@@ -33,9 +35,11 @@ import net.minecraft.network.protocol.game.ClientboundSystemChatPacket;
 public class ChatImage implements DisplayableImage {
 
   private final ChatConfiguration configuration;
+  private final ComponentRenderer renderer;
 
   ChatImage(final ChatConfiguration configuration) {
     this.configuration = configuration;
+    this.renderer = new ComponentRenderer(configuration.getCharacter());
   }
 
   /**
@@ -46,12 +50,15 @@ public class ChatImage implements DisplayableImage {
     this.release();
     final int chatWidth = this.configuration.getChatWidth();
     final int chatHeight = this.configuration.getChatHeight();
-    final String character = this.configuration.getCharacter();
     final Collection<UUID> viewers = this.configuration.getViewers();
     final ResizeFilter resize = new ResizeFilter(chatWidth, chatHeight);
     resize.applyFilter(data);
     final int[] resizedData = data.getPixels();
-    final Component msg = ChatUtils.createChatComponent(resizedData, character, chatWidth, chatHeight);
+    final DitherAlgorithm dither = this.configuration.getDither();
+    if (dither != null) {
+      dither.dither(resizedData, chatWidth);
+    }
+    final Component msg = this.renderer.render(resizedData, chatWidth, chatHeight);
     final ClientboundSystemChatPacket packet = new ClientboundSystemChatPacket(msg, false);
     PacketUtils.sendPackets(viewers, packet);
   }
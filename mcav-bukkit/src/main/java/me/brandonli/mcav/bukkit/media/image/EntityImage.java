@@ -23,9 +23,10 @@ import java.util.Collection;
 import java.util.UUID;
 import me.brandonli.mcav.bukkit.BukkitModule;
 import me.brandonli.mcav.bukkit.media.config.EntityConfiguration;
-import me.brandonli.mcav.bukkit.utils.ChatUtils;
+import me.brandonli.mcav.bukkit.utils.ComponentRenderer;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
 import net.minecraft.network.chat.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.Color;
@@ -43,11 +44,13 @@ import org.bukkit.plugin.Plugin;
 public class EntityImage implements DisplayableImage {
 
   private final EntityConfiguration entityConfiguration;
+  private final ComponentRenderer renderer;
 
   private TextDisplay entity;
 
   EntityImage(final EntityConfiguration configuration) {
     this.entityConfiguration = configuration;
+    this.renderer = new ComponentRenderer(configuration.getCharacter());
   }
 
   /**
@@ -84,14 +87,17 @@ public class EntityImage implements DisplayableImage {
       player.showEntity(plugin, this.entity);
     }
 
-    final String character = this.entityConfiguration.getCharacter();
     final int entityWidth = this.entityConfiguration.getEntityWidth();
     final int entityHeight = this.entityConfiguration.getEntityHeight();
     final ResizeFilter resize = new ResizeFilter(entityWidth, entityHeight);
     resize.applyFilter(data);
 
     final int[] resizedData = data.getPixels();
-    final Component prefix = ChatUtils.createChatComponent(resizedData, character, entityWidth, entityHeight);
+    final DitherAlgorithm dither = this.entityConfiguration.getDither();
+    if (dither != null) {
+      dither.dither(resizedData, entityWidth);
+    }
+    final Component prefix = this.renderer.render(resizedData, entityWidth, entityHeight);
     final CraftTextDisplay craftEntity = (CraftTextDisplay) this.entity;
     final net.minecraft.world.entity.Display.TextDisplay frame = craftEntity.getHandle();
     frame.setText(prefix);
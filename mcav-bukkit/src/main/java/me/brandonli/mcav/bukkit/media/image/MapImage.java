@@ -19,7 +19,10 @@ package me.brandonli.mcav.bukkit.media.image;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import me.brandonli.mcav.bukkit.media.config.MapConfiguration;
 import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
@@ -28,35 +31,104 @@ import net.minecraft.network.protocol.game.ClientboundMapItemDataPacket;
 import net.minecraft.world.level.saveddata.maps.MapDecoration;
 import net.minecraft.world.level.saveddata.maps.MapId;
 import net.minecraft.world.level.saveddata.maps.MapItemSavedData;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Represents a map-based image display implementation.
+ *
+ * <p>Images are copied on the calling thread and dithered off it, and the encoded packets of the current image are kept so that
+ * they can be sent again to viewers that join later. Every covered map is sent as a full patch, so displaying a
+ * new image overwrites the previous one without clearing the maps first.
  */
 public class MapImage implements DisplayableImage {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(MapImage.class);
+  private static final int MAP_PX = 128;
+  private static final ClientboundMapItemDataPacket[] EMPTY = new ClientboundMapItemDataPacket[0];
+  private static final MapItemSavedData.MapPatch CLEAR_PATCH = new MapItemSavedData.MapPatch(
+    0,
+    0,
+    MAP_PX,
+    MAP_PX,
+    new byte[MAP_PX * MAP_PX]
+  );
+
   private final MapConfiguration mapConfiguration;
   private final DitherAlgorithm algorithm;
+  private final AtomicLong generation;
+
+  private volatile ClientboundMapItemDataPacket[] packets;
 
   MapImage(final MapConfiguration mapConfiguration, final DitherAlgorithm algorithm) {
     this.mapConfiguration = mapConfiguration;
     this.algorithm = algorithm;
+    this.generation = new AtomicLong();
+    this.packets = EMPTY;
   }
 
   /**
    * {@inheritDoc}
+   *
+   * <p>The pixels are copied before this method returns, so the caller may modify or release the image right
+   * away while the copy is dithered asynchronously.
    */
   @Override
   public void displayImage(final ImageBuffer image) {
-    this.release();
-    final byte[] rgb = this.algorithm.ditherIntoBytes(image);
+    final long id = this.generation.incrementAndGet();
+    final int[] pixels = image.getPixels().clone();
+    final int width = image.getWidth();
+    final int height = image.getHeight();
+    CompletableFuture.supplyAsync(() -> this.encode(pixels, width, height))
+      .thenAccept(encoded -> this.show(id, encoded))
+      .exceptionally(this::handleException);
+  }
+
+  private @Nullable Void handleException(final Throwable throwable) {
+    LOGGER.error("Failed to display image on maps", throwable);
+    return null;
+  }
+
+  // a newer image may have been displayed or the image released while this one was dithering
+  private synchronized void show(final long id, final ClientboundMapItemDataPacket[] encoded) {
+    if (id != this.generation.get()) {
+      return;
+    }
+    final ClientboundMapItemDataPacket[] stale = this.createStalePackets(this.packets, encoded);
+    this.packets = encoded;
+    final Collection<UUID> viewers = this.mapConfiguration.getViewers();
+    PacketUtils.sendPackets(viewers, stale);
+    PacketUtils.sendPackets(viewers, encoded);
+  }
+
+  /**
+   * Sends the current image to the given viewers, such as viewers that joined after the image was displayed.
+   * The packets are taken from the cache, so the image is not dithered again.
+   *
+   * @param viewers the viewers to send the current image to
+   */
+  public void sendCurrentImage(final Collection<UUID> viewers) {
+    final ClientboundMapItemDataPacket[] current = this.packets;
+    if (current.length == 0) {
+      return;
+    }
+    PacketUtils.sendPackets(viewers, current);
+  }
+
+  private ClientboundMapItemDataPacket[] encode(final int[] pixels, final int vidWidth, final int vidHeight) {
+    final ImageBuffer image = ImageBuffer.buffer(pixels, vidWidth, vidHeight);
+    final byte[] rgb;
+    try {
+      rgb = this.algorithm.ditherIntoBytes(image);
+    } finally {
+      image.release();
+    }
     final int mapBlockWidth = this.mapConfiguration.getMapBlockWidth();
     final int mapBlockHeight = this.mapConfiguration.getMapBlockHeight();
     final int map = this.mapConfiguration.getMap();
-    final Collection<UUID> viewers = this.mapConfiguration.getViewers();
     final int pixW = mapBlockWidth << 7;
     final int pixH = mapBlockHeight << 7;
-    final int vidWidth = image.getWidth();
-    final int vidHeight = image.getHeight();
     final int xOff = (pixW - vidWidth) >> 1;
     final int yOff = (pixH - vidHeight) >> 1;
     final int negXOff = xOff + vidWidth;
@@ -65,36 +137,54 @@ public class MapImage implements DisplayableImage {
     final int yLoopMin = Math.max(0, yOff >> 7);
     final int xLoopMax = Math.min(mapBlockWidth, (int) Math.ceil(negXOff / 128.0));
     final int yLoopMax = Math.min(mapBlockHeight, (int) Math.ceil(negYOff / 128.0));
-    final Collection<MapDecoration> empty = new ArrayList<>();
+    final Collection<MapDecoration> empty = List.of();
     final ClientboundMapItemDataPacket[] packetArray = new ClientboundMapItemDataPacket[(xLoopMax - xLoopMin) * (yLoopMax - yLoopMin)];
     int arrIndex = 0;
     for (int y = yLoopMin; y < yLoopMax; y++) {
       final int relY = y << 7;
       final int topY = Math.max(0, yOff - relY);
-      final int yDiff = Math.min(128 - topY, negYOff - (relY + topY));
+      final int yDiff = Math.min(MAP_PX - topY, negYOff - (relY + topY));
       for (int x = xLoopMin; x < xLoopMax; x++) {
         final int relX = x << 7;
         final int topX = Math.max(0, xOff - relX);
-        final int xDiff = Math.min(128 - topX, negXOff - (relX + topX));
-        final int xPixMax = xDiff + topX;
-        final int yPixMax = yDiff + topY;
-        final byte[] mapData = new byte[xDiff * yDiff];
-        for (int iy = topY; iy < yPixMax; iy++) {
-          final int yPos = relY + iy;
-          final int indexY = (yPos - yOff) * vidWidth;
-          for (int ix = topX; ix < xPixMax; ix++) {
-            final int val = (iy - topY) * xDiff + ix - topX;
-            mapData[val] = rgb[indexY + relX + ix - xOff];
-          }
+        final int xDiff = Math.min(MAP_PX - topX, negXOff - (relX + topX));
+        // the border around the image stays blank, which also erases whatever the previous image left there
+        final byte[] mapData = new byte[MAP_PX * MAP_PX];
+        for (int iy = 0; iy < yDiff; iy++) {
+          final int srcIndex = (relY + topY + iy - yOff) * vidWidth + relX + topX - xOff;
+          System.arraycopy(rgb, srcIndex, mapData, (topY + iy) * MAP_PX + topX, xDiff);
         }
         final int mapId = map + mapBlockWidth * y + x;
         final MapId id = new MapId(mapId);
-        final MapItemSavedData.MapPatch mapPatch = new MapItemSavedData.MapPatch(topX, topY, xDiff, yDiff, mapData);
+        final MapItemSavedData.MapPatch mapPatch = new MapItemSavedData.MapPatch(0, 0, MAP_PX, MAP_PX, mapData);
         final ClientboundMapItemDataPacket packet = new ClientboundMapItemDataPacket(id, (byte) 0, false, empty, mapPatch);
         packetArray[arrIndex++] = packet;
       }
     }
-    PacketUtils.sendPackets(viewers, packetArray);
+    return packetArray;
+  }
+
+  // maps covered by the previous image but not by the new one are the only ones that still need clearing
+  private ClientboundMapItemDataPacket[] createStalePackets(
+    final ClientboundMapItemDataPacket[] previous,
+    final ClientboundMapItemDataPacket[] current
+  ) {
+    final List<ClientboundMapItemDataPacket> stale = new ArrayList<>();
+    outer:
+    for (final ClientboundMapItemDataPacket old : previous) {
+      for (final ClientboundMapItemDataPacket packet : current) {
+        if (packet.mapId().equals(old.mapId())) {
+          continue outer;
+        }
+      }
+      stale.add(createClearPacket(old.mapId().id()));
+    }
+    return stale.toArray(EMPTY);
+  }
+
+  private static ClientboundMapItemDataPacket createClearPacket(final int mapId) {
+    final MapId id = new MapId(mapId);
+    return new ClientboundMapItemDataPacket(id, (byte) 0, false, List.of(), CLEAR_PATCH);
   }
 
   /**
@@ -102,18 +192,18 @@ public class MapImage implements DisplayableImage {
    */
   @Override
   public void release() {
+    synchronized (this) {
+      this.generation.incrementAndGet();
+      this.packets = EMPTY;
+    }
     final int start = this.mapConfiguration.getMap();
     final int mapWidth = this.mapConfiguration.getMapBlockWidth();
     final int mapHeight = this.mapConfiguration.getMapBlockHeight();
     final int end = start + (mapWidth * mapHeight);
     final Collection<UUID> viewers = this.mapConfiguration.getViewers();
-    final Collection<MapDecoration> empty = new ArrayList<>();
     final ClientboundMapItemDataPacket[] emptyPackets = new ClientboundMapItemDataPacket[end - start];
-    final MapItemSavedData.MapPatch mapPatch = new MapItemSavedData.MapPatch(0, 0, 128, 128, new byte[128 * 128]);
     for (int i = start; i < end; i++) {
-      final MapId id = new MapId(i);
-      final ClientboundMapItemDataPacket packet = new ClientboundMapItemDataPacket(id, (byte) 0, false, empty, mapPatch);
-      emptyPackets[i - start] = packet;
+      emptyPackets[i - start] = createClearPacket(i);
     }
     PacketUtils.sendPackets(viewers, emptyPackets);
   }
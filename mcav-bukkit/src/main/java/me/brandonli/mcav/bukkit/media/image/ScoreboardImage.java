@@ -21,15 +21,16 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.Collection;
 import java.util.UUID;
-import me.brandonli.mcav.bukkit.BukkitModule;
 import me.brandonli.mcav.bukkit.media.config.ScoreboardConfiguration;
 import me.brandonli.mcav.bukkit.utils.ChatUtils;
+import me.brandonli.mcav.bukkit.utils.ComponentRenderer;
+import me.brandonli.mcav.bukkit.utils.MainThreadDispatcher;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitScheduler;
 import org.bukkit.scoreboard.*;
 
 /**
@@ -39,10 +40,12 @@ public class ScoreboardImage implements DisplayableImage {
 
   private final ScoreboardConfiguration configuration;
   private final Team[] teamLines;
+  private final ComponentRenderer renderer;
 
   ScoreboardImage(final ScoreboardConfiguration configuration) {
     this.configuration = configuration;
     this.teamLines = new Team[configuration.getLines()];
+    this.renderer = new ComponentRenderer(configuration.getCharacter());
   }
 
   /**
@@ -50,9 +53,7 @@ public class ScoreboardImage implements DisplayableImage {
    */
   @Override
   public void release() {
-    final BukkitScheduler scheduler = Bukkit.getScheduler();
-    final Plugin plugin = BukkitModule.getPlugin();
-    scheduler.runTask(plugin, this::release0);
+    MainThreadDispatcher.execute(this::release0);
   }
 
   private void release0() {
@@ -107,15 +108,18 @@ public class ScoreboardImage implements DisplayableImage {
       }
       player.setScoreboard(scoreboard);
     }
-    final String character = this.configuration.getCharacter();
     final int width = this.configuration.getWidth();
     final ResizeFilter resize = new ResizeFilter(width, lines);
     resize.applyFilter(data);
     final int[] resizedData = data.getPixels();
+    final DitherAlgorithm dither = this.configuration.getDither();
+    if (dither != null) {
+      dither.dither(resizedData, width);
+    }
     for (int i = 0; i < lines; i++) {
       final Team team = this.teamLines[i];
-      final String suffix = ChatUtils.createRawLine(resizedData, character, width, i);
-      team.setSuffix(suffix);
+      final Component suffix = this.renderer.renderLine(resizedData, width, i);
+      team.suffix(suffix);
     }
   }
 }
@@ -22,19 +22,25 @@ import com.google.gson.Gson;
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import me.brandonli.mcav.json.GsonProvider;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.DitherUtils;
 import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.error.FilterLiteDither;
 import me.brandonli.mcav.media.player.pipeline.filter.video.dither.palette.DitherPalette;
 import me.brandonli.mcav.utils.IOUtils;
 import me.brandonli.mcav.utils.UncheckedIOException;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
 import org.bukkit.Material;
-import org.checkerframework.checker.nullness.qual.KeyFor;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.craftbukkit.block.data.CraftBlockData;
 
 /**
  * A utility class that provides easy ways to convert from colors to blocks and vice versa.
+ *
+ * <p>All lookups are flat arrays indexed by palette index, as produced by
+ * {@link FilterLiteDither#ditherIntoBytes(int[], int, byte[])}. Palette index {@code 0} is reserved for the
+ * transparent color and always resolves to air.
  */
 public final class BlockPaletteLookup {
 
@@ -42,13 +48,15 @@ public final class BlockPaletteLookup {
     throw new UnsupportedOperationException("Utility class cannot be instantiated");
   }
 
-  private static final Map<Integer, Material> MATERIAL_LOOKUP;
   private static final FilterLiteDither DITHERING_IMPL;
+  private static final Material[] MATERIALS;
+  private static final BlockState[] BLOCK_STATES;
 
   static {
     final Map<String, int[]> blockPalette = getBlockPalette();
     DITHERING_IMPL = getDitheringImpl(blockPalette);
-    MATERIAL_LOOKUP = getMaterialPalette(blockPalette);
+    MATERIALS = getMaterials(blockPalette);
+    BLOCK_STATES = getBlockStates(MATERIALS);
   }
 
   private static FilterLiteDither getDitheringImpl(final Map<String, int[]> blockPalette) {
@@ -57,19 +65,26 @@ public final class BlockPaletteLookup {
     return new FilterLiteDither(palette);
   }
 
-  private static Map<Integer, Material> getMaterialPalette(final Map<String, int[]> blockPalette) {
-    final Map<Integer, Material> map = new HashMap<>();
-    final Set<Map.Entry<@KeyFor("blockPalette") String, int[]>> entries = blockPalette.entrySet();
-    for (final Map.Entry<String, int[]> entry : entries) {
-      final String key = entry.getKey();
-      final int[] rgb = entry.getValue();
-      final int color = (rgb[0] << 16) | (rgb[1] << 8) | rgb[2];
+  private static Material[] getMaterials(final Map<String, int[]> blockPalette) {
+    final Material[] materials = new Material[blockPalette.size()];
+    int index = 0;
+    for (final String key : blockPalette.keySet()) {
       final Material material = Material.matchMaterial(key);
-      if (material != null) {
-        map.put(color, material);
-      }
+      materials[index++] = material != null ? material : Material.AIR;
+    }
+    if (materials.length > 0) {
+      materials[0] = Material.AIR;
+    }
+    return materials;
+  }
+
+  private static BlockState[] getBlockStates(final Material[] materials) {
+    final BlockState[] states = new BlockState[materials.length];
+    for (int i = 0; i < materials.length; i++) {
+      final BlockData data = materials[i].createBlockData();
+      states[i] = ((CraftBlockData) data).getState();
     }
-    return map;
+    return states;
   }
 
   /**
@@ -93,10 +108,25 @@ public final class BlockPaletteLookup {
    * Gets the closest {@link Material} for the given RGB color.
    *
    * @param color the RGB color (BGR24 format)
-   * @return the closest {@link Material} for the given RGB color, or {@link Material#AIR} if no match is found
+   * @return the closest {@link Material} for the given RGB color, or {@link Material#AIR} for the transparent color
    */
   public static Material getMaterial(final int color) {
-    return MATERIAL_LOOKUP.getOrDefault(color, Material.AIR);
+    final DitherPalette palette = DITHERING_IMPL.getPalette();
+    final int r = (color >> 16) & 0xFF;
+    final int g = (color >> 8) & 0xFF;
+    final int b = color & 0xFF;
+    final int index = Byte.toUnsignedInt(DitherUtils.getBestColor(palette, r, g, b));
+    return index < MATERIALS.length ? MATERIALS[index] : Material.AIR;
+  }
+
+  /**
+   * Gets the block state for the given palette index.
+   *
+   * @param index the palette index (unsigned)
+   * @return the block state for the palette entry, or air if the index is out of range
+   */
+  public static BlockState getBlockState(final int index) {
+    return index < BLOCK_STATES.length ? BLOCK_STATES[index] : Blocks.AIR.defaultBlockState();
   }
 
   /**
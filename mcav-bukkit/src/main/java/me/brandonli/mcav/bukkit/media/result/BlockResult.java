@@ -17,35 +17,52 @@
  */
 package me.brandonli.mcav.bukkit.media.result;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import me.brandonli.mcav.bukkit.media.config.BlockConfiguration;
 import me.brandonli.mcav.bukkit.media.lookup.BlockPaletteLookup;
+import me.brandonli.mcav.bukkit.media.viewer.EnteredViewers;
+import me.brandonli.mcav.bukkit.media.viewer.ViewerTracker;
+import me.brandonli.mcav.bukkit.utils.MainThreadDispatcher;
+import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.metadata.OriginalVideoMetadata;
 import me.brandonli.mcav.media.player.pipeline.filter.video.FunctionalVideoFilter;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
 import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.error.FilterLiteDither;
-import org.bukkit.Bukkit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
 import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
-import org.bukkit.block.data.BlockData;
-import org.bukkit.entity.Player;
+import org.bukkit.craftbukkit.CraftWorld;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Represents a filter for displaying frames as blocks.
+ *
+ * <p>Only blocks whose palette entry changed since the previous frame are sent. Changed blocks are grouped per chunk
+ * section into a single multi-block-change packet, which is built once per frame and shared across all viewers.
  */
 public class BlockResult implements FunctionalVideoFilter {
 
+  private static final int UNSET = -1;
+
   private final BlockConfiguration blockConfiguration;
   private final FilterLiteDither dither;
+  private final SectionChangeBatch sectionChanges;
+  private final EnteredViewers entered;
 
-  private LocationData[] locationCache;
+  private long[] sectionKeys;
+  private short[] relativePositions;
+  private int[] lastIndices;
+  private byte[] indices;
+  private @Nullable CompletableFuture<BlockState[]> originalStates;
 
   /**
    * Constructs a new instance of the {@code BlockResult} class using the provided
@@ -57,47 +74,69 @@ public class BlockResult implements FunctionalVideoFilter {
   public BlockResult(final BlockConfiguration configuration) {
     this.blockConfiguration = configuration;
     this.dither = BlockPaletteLookup.getDitheringImpl();
+    this.sectionChanges = new SectionChangeBatch();
+    this.entered = new EnteredViewers();
   }
 
   /**
    * {@inheritDoc}
    */
   @Override
-  @SuppressWarnings("UnstableApiUsage")
   public boolean applyFilter(final ImageBuffer data, final OriginalVideoMetadata metadata) {
+    final ViewerTracker tracker = this.blockConfiguration.getViewerTracker();
+    final Collection<UUID> viewers = tracker.getVisibleViewers(this.blockConfiguration.getViewers());
+    final Collection<UUID> entered = this.entered.update(viewers);
+    if (!entered.isEmpty()) {
+      this.sendKeyFrame(entered);
+    }
+
+    if (viewers.isEmpty()) {
+      return true;
+    }
+
     final int blockWidth = this.blockConfiguration.getBlockWidth();
     final int blockHeight = this.blockConfiguration.getBlockHeight();
     final ResizeFilter resize = new ResizeFilter(blockWidth, blockHeight);
     resize.applyFilter(data, metadata);
 
-    final int[] resizedData = data.getPixels();
-    final int length = resizedData.length;
-    this.dither.dither(resizedData, blockWidth);
-
-    final Material[] materials = new Material[length];
-    for (int i = 0; i < materials.length; i++) {
-      materials[i] = BlockPaletteLookup.getMaterial(resizedData[i]);
+    final int[] pixels = data.getPixels();
+    final byte[] indices = this.indices;
+    final int length = Math.min(pixels.length, indices.length);
+    this.dither.ditherIntoBytes(pixels, blockWidth, indices);
+    for (int i = 0; i < length; i++) {
+      final int index = Byte.toUnsignedInt(indices[i]);
+      if (index == this.lastIndices[i]) {
+        continue;
+      }
+      this.lastIndices[i] = index;
+      this.sectionChanges.add(this.sectionKeys[i], this.relativePositions[i], BlockPaletteLookup.getBlockState(index));
     }
 
-    final Collection<BlockState> blockStates = new HashSet<>();
-    for (int i = 0; i < materials.length; i++) {
-      final LocationData locationData = this.locationCache[i];
-      final Location location = locationData.getLocation();
-      final BlockData blockData = materials[i].createBlockData();
-      final BlockState blockState = blockData.createBlockState();
-      final BlockState copy = blockState.copy(location);
-      blockStates.add(copy);
+    if (this.sectionChanges.isEmpty()) {
+      return true;
     }
 
-    final Collection<UUID> viewers = this.blockConfiguration.getViewers();
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
+    final Packet<?>[] packets = this.sectionChanges.drainPackets();
+    PacketUtils.sendPackets(viewers, packets);
+
+    return true;
+  }
+
+  // visible viewers always show lastIndices, so sending all of it brings viewers coming into view in sync
+  private void sendKeyFrame(final Collection<UUID> viewers) {
+    final SectionChangeBatch changes = new SectionChangeBatch();
+    for (int i = 0; i < this.lastIndices.length; i++) {
+      final int index = this.lastIndices[i];
+      if (index == UNSET) {
         continue;
       }
-      player.sendBlockChanges(blockStates);
+      changes.add(this.sectionKeys[i], this.relativePositions[i], BlockPaletteLookup.getBlockState(index));
     }
-    return true;
+    if (changes.isEmpty()) {
+      return;
+    }
+    final Packet<?>[] packets = changes.drainPackets();
+    PacketUtils.sendPackets(viewers, packets);
   }
 
   /**
@@ -108,20 +147,38 @@ public class BlockResult implements FunctionalVideoFilter {
     final int blockWidth = this.blockConfiguration.getBlockWidth();
     final int blockHeight = this.blockConfiguration.getBlockHeight();
     final Location origin = this.blockConfiguration.getPosition();
-    this.locationCache = new LocationData[blockWidth * blockHeight];
-    for (int i = 0; i < this.locationCache.length; i++) {
+    final int length = blockWidth * blockHeight;
+    final BlockPos[] positions = new BlockPos[length];
+    this.sectionKeys = new long[length];
+    this.relativePositions = new short[length];
+    this.lastIndices = new int[length];
+    this.indices = new byte[length];
+    Arrays.fill(this.lastIndices, UNSET);
+    for (int i = 0; i < length; i++) {
       final int x = i % blockWidth;
       final int y = i / blockWidth;
       final int adjustedX = x - (blockWidth / 2);
       final int adjustedY = blockHeight - 1 - y;
       final Location clone = origin.clone();
       final Location adjusted = clone.add(adjustedX, adjustedY, 0);
-      final Block block = adjusted.getBlock();
-      final BlockState state = block.getState();
-      final BlockState copy = state.copy(adjusted);
-      final LocationData locationData = new LocationData(adjusted, copy);
-      this.locationCache[i] = locationData;
+      final BlockPos pos = new BlockPos(adjusted.getBlockX(), adjusted.getBlockY(), adjusted.getBlockZ());
+      positions[i] = pos;
+      this.sectionKeys[i] = SectionPos.asLong(pos);
+      this.relativePositions[i] = SectionPos.sectionRelativePos(pos);
+    }
+
+    // reading the world is the only part that needs the server thread, the original states are only used on release
+    final ServerLevel level = ((CraftWorld) requireNonNull(origin.getWorld())).getHandle();
+    this.originalStates = MainThreadDispatcher.submit(() -> this.captureStates(level, positions));
+    this.blockConfiguration.getViewerTracker().start(this.blockConfiguration.getViewers());
+  }
+
+  private BlockState[] captureStates(final ServerLevel level, final BlockPos[] positions) {
+    final BlockState[] states = new BlockState[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      states[i] = level.getBlockState(positions[i]);
     }
+    return states;
   }
 
   /**
@@ -129,16 +186,23 @@ public class BlockResult implements FunctionalVideoFilter {
    */
   @Override
   public void release() {
-    final Collection<BlockState> blockStates = Arrays.stream(this.locationCache)
-      .map(LocationData::getBlockState)
-      .collect(Collectors.toList());
-    final Collection<UUID> viewers = this.blockConfiguration.getViewers();
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
-        continue;
-      }
-      player.sendBlockChanges(blockStates);
+    this.sectionChanges.clear();
+    this.entered.clear();
+    this.blockConfiguration.getViewerTracker().release();
+    final CompletableFuture<BlockState[]> originals = this.originalStates;
+    if (originals == null) {
+      return;
     }
+    originals.thenAccept(this::restoreStates);
+  }
+
+  private void restoreStates(final BlockState[] states) {
+    final SectionChangeBatch changes = new SectionChangeBatch();
+    for (int i = 0; i < states.length; i++) {
+      changes.add(this.sectionKeys[i], this.relativePositions[i], states[i]);
+    }
+    final Packet<?>[] packets = changes.drainPackets();
+    final Collection<UUID> viewers = this.blockConfiguration.getViewers();
+    PacketUtils.sendPackets(viewers, packets);
   }
 }
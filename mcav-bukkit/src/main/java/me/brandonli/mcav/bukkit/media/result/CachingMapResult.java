@@ -0,0 +1,123 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.result;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import me.brandonli.mcav.bukkit.media.config.MapConfiguration;
+import me.brandonli.mcav.media.cache.DitheredFrameWriter;
+import me.brandonli.mcav.utils.UncheckedIOException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link MapResult} that additionally records every dithered frame into a cache file, which can
+ * later be replayed with {@link MapCachePlayback} without decoding or dithering the media again.
+ * The cache is only committed to its final location once this result is released.
+ */
+public class CachingMapResult extends MapResult {
+
+  private final MapConfiguration mapConfiguration;
+  private final Path cache;
+
+  private @Nullable DitheredFrameWriter writer;
+  private long startNanos;
+
+  /**
+   * Constructs a new instance of {@code CachingMapResult}.
+   *
+   * @param configuration the {@link MapConfiguration} object containing the settings for the map result
+   * @param cache         the cache file to record the dithered frames into
+   */
+  public CachingMapResult(final MapConfiguration configuration, final Path cache) {
+    super(configuration);
+    this.mapConfiguration = configuration;
+    this.cache = cache;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void start() {
+    super.start();
+    final int width = this.mapConfiguration.getMapWidthResolution();
+    final int height = this.mapConfiguration.getMapHeightResolution();
+    try {
+      this.writer = DitheredFrameWriter.create(this.cache, width, height);
+      this.startNanos = 0;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void sendFrame(final byte[] rgb) {
+    this.record(rgb);
+    super.sendFrame(rgb);
+  }
+
+  private synchronized void record(final byte[] rgb) {
+    final DitheredFrameWriter current = this.writer;
+    if (current == null) {
+      return;
+    }
+
+    final long now = System.nanoTime();
+    if (this.startNanos == 0) {
+      this.startNanos = now;
+    }
+
+    try {
+      current.write(rgb, now - this.startNanos);
+    } catch (final IOException e) {
+      // a cache with a missing frame would be wrong from there on, so the recording is abandoned
+      this.writer = null;
+      discard(current, e);
+      throw new UncheckedIOException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void release() {
+    final DitheredFrameWriter current = this.writer;
+    this.writer = null;
+    try (current) {
+      if (current != null && current.getFrameCount() > 0) {
+        current.commit();
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e.getMessage(), e);
+    } finally {
+      super.release();
+    }
+  }
+
+  private static void discard(final DitheredFrameWriter writer, final IOException cause) {
+    try {
+      writer.close();
+    } catch (final IOException e) {
+      cause.addSuppressed(e);
+    }
+  }
+}
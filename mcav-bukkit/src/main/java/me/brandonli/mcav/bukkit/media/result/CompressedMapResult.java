@@ -23,7 +23,11 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
+import me.brandonli.mcav.bukkit.media.bandwidth.BandwidthScheduler;
 import me.brandonli.mcav.bukkit.media.config.MapConfiguration;
+import me.brandonli.mcav.bukkit.media.viewer.EnteredViewers;
+import me.brandonli.mcav.bukkit.media.viewer.LodTier;
+import me.brandonli.mcav.bukkit.media.viewer.ViewerTracker;
 import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
@@ -43,6 +47,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A DitherResultStep implementation that generates patch updates for map items based on quadrant hashing and tile analysis.
+ *
+ * <p>When the configuration has level of detail tiers, every tier keeps its own client state and is encoded once per
+ * frame for all of its viewers. Viewers moving between tiers are caught up with a key frame of their new tier, or
+ * with a full frame when that tier has not sent anything yet.
  */
 public class CompressedMapResult implements DitherResultStep {
 
@@ -55,8 +63,8 @@ public class CompressedMapResult implements DitherResultStep {
   private static final int QUAD_COUNT = QUADS_PER_ROW * QUADS_PER_ROW;
   private static final int TILES_PER_QUAD = QUAD / TILE;
 
-  private static final int DEFAULT_MAX_BYTES_PER_FRAME = 2 * 1024 * 1024;
   private static final int BUNDLE_CHUNK = 512;
+  private static final int BUNDLE_MAX_BYTES = 256 * 1024;
   private static final int MIN_UPDATES_PER_FRAME = 4;
 
   private static final int STALENESS_FACTOR = 500;
@@ -72,15 +80,31 @@ public class CompressedMapResult implements DitherResultStep {
 
   private static final int MAX_POOL_SIZE = 128;
 
+  private static final int TILE_HISTORY_SIZE = TILE_COUNT * 4;
+  private static final long TILE_KEY_MIX = 0x9E3779B97F4A7C15L;
+
+  private static final double TIER_HYSTERESIS = 2.0;
+
   private final MapConfiguration mapConfiguration;
+  private final BandwidthScheduler scheduler;
   private final LongHashFunction xxh3;
-  private final byte[] quadScratch;
+  private final long[] rowHashes;
+  private final byte[] tileScratch;
   private final Map<Integer, MapState> mapStates;
   private final ArrayList<PatchUpdate> deferredUpdates;
   private final ArrayList<byte[]> patchPool;
   private final ForkJoinPool ditherPool;
+  private final int frameInterval;
+  private final int pixelScale;
+  private final List<CompressedMapResult> lodStreams;
+  private final Map<UUID, Integer> viewerTiers;
+  private final EnteredViewers enteredViewers;
 
   private int sceneChangeFramesRemaining;
+  private long frameCount;
+  private long lastFrameNanos;
+  private long tileCacheLookups;
+  private long tileCacheHits;
 
   /**
    * Constructs a CompressedMapResult with the given MapConfiguration and max bytes per frame.
@@ -88,16 +112,42 @@ public class CompressedMapResult implements DitherResultStep {
    * @param configuration the MapConfiguration defining the map layout and viewers
    */
   public CompressedMapResult(final MapConfiguration configuration) {
+    this(configuration, 1, 1, null);
+  }
+
+  private CompressedMapResult(
+    final MapConfiguration configuration,
+    final int frameInterval,
+    final int pixelScale,
+    final @Nullable ForkJoinPool ditherPool
+  ) {
     this.mapConfiguration = configuration;
+    this.scheduler = configuration.getBandwidthScheduler();
     this.xxh3 = LongHashFunction.xx3(0L);
-    this.quadScratch = new byte[QUAD * QUAD * 3];
+    this.rowHashes = new long[QUAD];
+    this.tileScratch = new byte[TILE * TILE];
     this.mapStates = new ConcurrentHashMap<>();
     this.deferredUpdates = new ArrayList<>();
     this.patchPool = new ArrayList<>();
-    this.ditherPool = this.createCustomPool();
+    this.ditherPool = ditherPool == null ? this.createCustomPool() : ditherPool;
+    this.frameInterval = frameInterval;
+    this.pixelScale = pixelScale;
+    this.lodStreams = ditherPool == null ? createLodStreams(configuration, this.ditherPool) : List.of();
+    this.viewerTiers = new HashMap<>();
+    this.enteredViewers = new EnteredViewers();
     this.sceneChangeFramesRemaining = 0;
   }
 
+  // every tier streams into the same maps, but keeps its own client state so deltas stay consistent per tier
+  private static List<CompressedMapResult> createLodStreams(final MapConfiguration configuration, final ForkJoinPool ditherPool) {
+    final List<LodTier> tiers = configuration.getLodTiers();
+    final List<CompressedMapResult> streams = new ArrayList<>(tiers.size());
+    for (final LodTier tier : tiers) {
+      streams.add(new CompressedMapResult(configuration, tier.getFrameInterval(), tier.getPixelScale(), ditherPool));
+    }
+    return streams;
+  }
+
   // give server IO to breathe so it can send packets
   @SuppressWarnings("all") // checker
   private ForkJoinPool createCustomPool(@UnderInitialization CompressedMapResult this) {
@@ -119,22 +169,123 @@ public class CompressedMapResult implements DitherResultStep {
 
   @Override
   public void process(final ImageBuffer samples, final DitherAlgorithm algorithm) {
-    final int vidWidth = this.mapConfiguration.getMapWidthResolution();
-    final int vidHeight = this.mapConfiguration.getMapHeightResolution();
+    final ViewerTracker tracker = this.mapConfiguration.getViewerTracker();
+    final Collection<UUID> viewers = tracker.getVisibleViewers(this.mapConfiguration.getViewers());
+    final Collection<UUID> entered = this.enteredViewers.update(viewers);
+    final TierGroups groups = this.groupByTier(tracker, viewers, entered);
+    final boolean[] fullFrames = new boolean[groups.size()];
+    for (int tier = 0; tier < groups.size(); tier++) {
+      final List<UUID> joined = groups.joined.get(tier);
+      if (joined.isEmpty()) {
+        continue;
+      }
+      // a stream that never sent anything has no key frame, and its first delta would skip index 0 pixels
+      final CompressedMapResult stream = this.stream(tier);
+      if (stream.hasClientState()) {
+        stream.sendKeyFrame(joined);
+      } else {
+        fullFrames[tier] = true;
+      }
+    }
+
+    // nobody can see the wall, so skip the frame entirely, viewers coming into view are caught up with a key frame
+    if (viewers.isEmpty()) {
+      return;
+    }
 
     if (this.mapConfiguration.shouldResize()) {
+      final int vidWidth = this.mapConfiguration.getMapWidthResolution();
+      final int vidHeight = this.mapConfiguration.getMapHeightResolution();
       final ResizeFilter filter = new ResizeFilter(vidWidth, vidHeight);
       filter.applyFilter(samples);
     }
 
-    final int[] rgbPixels = samples.getPixels();
+    final FrameSource source = new FrameSource(samples, algorithm);
+    this.frameCount++;
+
+    // the interval is measured here since the scheduler may be shared with other results.
+    // tiers send to disjoint viewers, so each may spend the per-viewer budget of every frame it skips
+    final long now = System.nanoTime();
+    final long interval = this.lastFrameNanos != 0 ? now - this.lastFrameNanos : 0;
+    this.lastFrameNanos = now;
+    final int frameBudget = this.scheduler.getFrameBudget(interval);
+    for (int tier = 0; tier < groups.size(); tier++) {
+      final List<UUID> tierViewers = groups.viewers.get(tier);
+      final CompressedMapResult stream = this.stream(tier);
+      if (tierViewers.isEmpty()) {
+        continue;
+      }
+      if (fullFrames[tier]) {
+        stream.sendFullFrame(source, tierViewers);
+        continue;
+      }
+      if (this.frameCount % stream.frameInterval != 0) {
+        continue;
+      }
+      final int tierBudget = (int) Math.min((long) frameBudget * stream.frameInterval, Integer.MAX_VALUE);
+      stream.encode(source, tierViewers, tierBudget);
+    }
+  }
+
+  private CompressedMapResult stream(final int tier) {
+    return tier == 0 ? this : this.lodStreams.get(tier - 1);
+  }
+
+  private TierGroups groupByTier(final ViewerTracker tracker, final Collection<UUID> viewers, final Collection<UUID> entered) {
+    final int tierCount = this.lodStreams.size() + 1;
+    final TierGroups groups = new TierGroups(tierCount);
+    if (tierCount == 1) {
+      groups.viewers.get(0).addAll(viewers);
+      groups.joined.get(0).addAll(entered);
+      return groups;
+    }
+
+    final Set<UUID> enteredSet = new HashSet<>(entered);
+    final Set<UUID> visibleSet = new HashSet<>(viewers);
+    for (final UUID viewer : viewers) {
+      final Integer previous = this.viewerTiers.get(viewer);
+      final int tier = this.selectTier(tracker.getDistance(viewer), previous);
+      this.viewerTiers.put(viewer, tier);
+      groups.viewers.get(tier).add(viewer);
+      if (previous == null || previous != tier || enteredSet.contains(viewer)) {
+        groups.joined.get(tier).add(viewer);
+      }
+    }
+    this.viewerTiers.keySet().retainAll(visibleSet);
+    return groups;
+  }
+
+  // viewers hovering around a tier boundary keep their tier, otherwise every crossing would cost a key frame
+  private int selectTier(final double distance, final @Nullable Integer previous) {
+    if (Double.isInfinite(distance)) {
+      return 0;
+    }
+    final List<LodTier> tiers = this.mapConfiguration.getLodTiers();
+    int tier = 0;
+    for (int i = 0; i < tiers.size(); i++) {
+      if (distance >= tiers.get(i).getMinDistance()) {
+        tier = i + 1;
+      }
+    }
+    if (previous == null || previous == tier) {
+      return tier;
+    }
+    final int upper = Math.max(tier, previous);
+    final double boundary = tiers.get(upper - 1).getMinDistance();
+    return Math.abs(distance - boundary) < TIER_HYSTERESIS ? previous : tier;
+  }
+
+  private void encode(final FrameSource source, final Collection<UUID> viewers, final int frameBudget) {
+    final int vidWidth = this.mapConfiguration.getMapWidthResolution();
+    final int vidHeight = this.mapConfiguration.getMapHeightResolution();
+    final int[] rgbPixels = source.samples.getPixels();
     final int expectedLength = vidWidth * vidHeight;
     if (rgbPixels == null || rgbPixels.length != expectedLength) {
-      this.sendFullFrame(samples, algorithm);
+      this.sendFullFrame(source, viewers);
       return;
     }
 
-    final FrameLayout layout = new FrameLayout(this.mapConfiguration, vidWidth, vidHeight);
+    final FrameLayout layout = new FrameLayout(this.mapConfiguration, vidWidth, vidHeight, viewers);
     final QuadrantResult quadResult = this.hashAllQuadrants(rgbPixels, layout);
 
     final boolean hasDeferredWork = !this.deferredUpdates.isEmpty();
@@ -143,7 +294,7 @@ public class CompressedMapResult implements DitherResultStep {
       return;
     }
 
-    final byte[] dithered = this.dither(samples, algorithm);
+    final byte[] dithered = source.dithered(this.pixelScale);
     final DirtyAnalysisResult analysisResult = this.analyzeAllMaps(dithered, layout, quadResult);
     final boolean isSceneChange = this.detectSceneChange(analysisResult);
     final ArrayList<PatchUpdate> allUpdates = this.collectAllUpdates(analysisResult.patches);
@@ -154,8 +305,8 @@ public class CompressedMapResult implements DitherResultStep {
 
     final PriorityBuckets buckets = this.categorizePatchUpdates(allUpdates);
     final boolean inRecovery = isSceneChange || this.sceneChangeFramesRemaining > 0;
-    final int budget = this.computeEffectiveBudget(inRecovery);
-    final SendResult sendResult = this.sendAllTiers(buckets, budget, inRecovery);
+    final int budget = this.computeEffectiveBudget(frameBudget, inRecovery);
+    final SendResult sendResult = this.sendAllTiers(buckets, frameBudget, budget, inRecovery);
 
     this.applyLastSentUpdates(sendResult.sent);
     this.updateSkippedStaleness(sendResult.sentMapIds, layout);
@@ -164,17 +315,137 @@ public class CompressedMapResult implements DitherResultStep {
     this.trimPool();
   }
 
+  /**
+   * Gets the amount of dirty tiles that were looked up in the recently sent tile cache.
+   *
+   * @return the amount of tile cache lookups
+   */
+  public long getTileCacheLookups() {
+    long lookups = this.tileCacheLookups;
+    for (final CompressedMapResult stream : this.lodStreams) {
+      lookups += stream.tileCacheLookups;
+    }
+    return lookups;
+  }
+
+  /**
+   * Gets the amount of dirty tiles that reverted to a state that was recently sent to the client.
+   *
+   * @return the amount of tile cache hits
+   */
+  public long getTileCacheHits() {
+    long hits = this.tileCacheHits;
+    for (final CompressedMapResult stream : this.lodStreams) {
+      hits += stream.tileCacheHits;
+    }
+    return hits;
+  }
+
+  /**
+   * Gets the fraction of dirty tiles that reverted to a recently sent state.
+   *
+   * @return the tile cache hit rate between 0 and 1
+   */
+  public double getTileCacheHitRate() {
+    final long lookups = this.getTileCacheLookups();
+    return lookups == 0 ? 0.0 : (double) this.getTileCacheHits() / lookups;
+  }
+
   @Override
-  public void start() {}
+  public void start() {
+    this.scheduler.start();
+    this.mapConfiguration.getViewerTracker().start(this.mapConfiguration.getViewers());
+  }
 
   @Override
   public void release() {
+    this.reset();
+    for (final CompressedMapResult stream : this.lodStreams) {
+      stream.reset();
+    }
+    this.viewerTiers.clear();
+    this.enteredViewers.clear();
+    this.frameCount = 0;
+    this.ditherPool.shutdown();
+    this.scheduler.release();
+    this.mapConfiguration.getViewerTracker().release();
+    this.sendClearPackets();
+  }
+
+  private void reset() {
     this.mapStates.clear();
     this.deferredUpdates.clear();
     this.patchPool.clear();
     this.sceneChangeFramesRemaining = 0;
-    this.ditherPool.shutdown();
-    this.sendClearPackets();
+  }
+
+  private static final class TierGroups {
+
+    final List<List<UUID>> viewers;
+    final List<List<UUID>> joined;
+
+    TierGroups(final int tierCount) {
+      this.viewers = new ArrayList<>(tierCount);
+      this.joined = new ArrayList<>(tierCount);
+      for (int i = 0; i < tierCount; i++) {
+        this.viewers.add(new ArrayList<>());
+        this.joined.add(new ArrayList<>());
+      }
+    }
+
+    int size() {
+      return this.viewers.size();
+    }
+  }
+
+  // dithers the frame at most once, and derives every coarser tier from that same result
+  private final class FrameSource {
+
+    final ImageBuffer samples;
+    final DitherAlgorithm algorithm;
+    final Map<Integer, byte[]> frames;
+
+    FrameSource(final ImageBuffer samples, final DitherAlgorithm algorithm) {
+      this.samples = samples;
+      this.algorithm = algorithm;
+      this.frames = new HashMap<>();
+    }
+
+    byte[] dithered(final int scale) {
+      byte[] frame = this.frames.get(scale);
+      if (frame != null) {
+        return frame;
+      }
+      if (scale == 1) {
+        frame = CompressedMapResult.this.dither(this.samples, this.algorithm);
+      } else {
+        final int vidWidth = CompressedMapResult.this.mapConfiguration.getMapWidthResolution();
+        final int vidHeight = CompressedMapResult.this.mapConfiguration.getMapHeightResolution();
+        frame = coarsen(this.dithered(1), vidWidth, vidHeight, scale);
+      }
+      this.frames.put(scale, frame);
+      return frame;
+    }
+  }
+
+  // replicates the top left pixel of every block, so patches turn into runs of equal bytes that compress well
+  private static byte[] coarsen(final byte[] dithered, final int width, final int height, final int scale) {
+    if (dithered.length < width * height) {
+      return dithered;
+    }
+    final byte[] coarse = new byte[dithered.length];
+    for (int y = 0; y < height; y += scale) {
+      final int row = y * width;
+      for (int x = 0; x < width; x += scale) {
+        final int end = Math.min(x + scale, width);
+        Arrays.fill(coarse, row + x, row + end, dithered[row + x]);
+      }
+      final int rows = Math.min(scale, height - y);
+      for (int r = 1; r < rows; r++) {
+        System.arraycopy(coarse, row, coarse, row + r * width, width);
+      }
+    }
+    return coarse;
   }
 
   private static final class FrameLayout {
@@ -193,13 +464,13 @@ public class CompressedMapResult implements DitherResultStep {
     final int yLoopMax;
     final int mapCols;
 
-    FrameLayout(final MapConfiguration config, final int vidWidth, final int vidHeight) {
+    FrameLayout(final MapConfiguration config, final int vidWidth, final int vidHeight, final Collection<UUID> viewers) {
       this.vidWidth = vidWidth;
       this.vidHeight = vidHeight;
       this.mapBlockWidth = config.getMapBlockWidth();
       this.mapBlockHeight = config.getMapBlockHeight();
       this.mapStartId = config.getMap();
-      this.viewers = config.getViewers();
+      this.viewers = viewers;
 
       final int pixW = this.mapBlockWidth << 7;
       final int pixH = this.mapBlockHeight << 7;
@@ -232,6 +503,7 @@ public class CompressedMapResult implements DitherResultStep {
 
     final long[] quadrantHashes;
     final byte[] lastSentData;
+    final TileHistory tileHistory;
     int framesSinceLastSend;
     int accumulatedChanges;
     boolean initialized;
@@ -239,15 +511,30 @@ public class CompressedMapResult implements DitherResultStep {
     MapState() {
       this.quadrantHashes = new long[QUAD_COUNT];
       this.lastSentData = new byte[MAP_PX * MAP_PX];
+      this.tileHistory = new TileHistory();
       this.framesSinceLastSend = 0;
       this.accumulatedChanges = 0;
       this.initialized = false;
     }
   }
 
+  // bounded lru of tile states recently shown on the client, keyed by tile content hash mixed with tile index
+  private static final class TileHistory extends LinkedHashMap<Long, Boolean> {
+
+    TileHistory() {
+      super(TILE_HISTORY_SIZE, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Long, Boolean> eldest) {
+      return this.size() > TILE_HISTORY_SIZE;
+    }
+  }
+
   private static final class TileDirtyInfo {
 
     boolean dirty;
+    boolean recurring;
     int changedPixels;
     int minX;
     int minY;
@@ -266,6 +553,7 @@ public class CompressedMapResult implements DitherResultStep {
     final int changedPixels;
     final int staleness;
     final int accumulated;
+    final boolean recurring;
 
     PatchUpdate(
       final int mapIdInt,
@@ -276,7 +564,8 @@ public class CompressedMapResult implements DitherResultStep {
       final byte[] patchData,
       final int changedPixels,
       final int staleness,
-      final int accumulated
+      final int accumulated,
+      final boolean recurring
     ) {
       this.mapIdInt = mapIdInt;
       this.x = x;
@@ -287,6 +576,7 @@ public class CompressedMapResult implements DitherResultStep {
       this.changedPixels = changedPixels;
       this.staleness = staleness;
       this.accumulated = accumulated;
+      this.recurring = recurring;
     }
 
     int dataSize() {
@@ -465,6 +755,8 @@ public class CompressedMapResult implements DitherResultStep {
     return mask;
   }
 
+  // hashes each row straight out of the source int[] and then hashes the row digests, so no
+  // intermediate RGB copy is needed. pixels outside the video are always zero, so they are skipped
   private long hashRgbRegion(
     final int[] pixels,
     final int vidWidth,
@@ -476,25 +768,22 @@ public class CompressedMapResult implements DitherResultStep {
     final int regionW,
     final int regionH
   ) {
-    int p = 0;
+    final int startX = Math.max(0, wallX - xOff);
+    final int endX = Math.min(vidWidth, wallX + regionW - xOff);
+    final int rowLength = endX - startX;
 
     for (int yy = 0; yy < regionH; yy++) {
       final int videoY = wallY + yy - yOff;
       final boolean yIn = videoY >= 0 && videoY < vidHeight;
-
-      for (int xx = 0; xx < regionW; xx++) {
-        final int videoX = wallX + xx - xOff;
-        int argb = 0;
-        if (yIn && videoX >= 0 && videoX < vidWidth) {
-          argb = pixels[videoY * vidWidth + videoX];
-        }
-        this.quadScratch[p++] = (byte) (argb >> 16);
-        this.quadScratch[p++] = (byte) (argb >> 8);
-        this.quadScratch[p++] = (byte) argb;
+      if (!yIn || rowLength <= 0) {
+        this.rowHashes[yy] = 0L;
+        continue;
       }
+      final int rowStart = videoY * vidWidth + startX;
+      this.rowHashes[yy] = this.xxh3.hashInts(pixels, rowStart, rowLength);
     }
 
-    return this.xxh3.hashBytes(this.quadScratch, 0, p);
+    return this.xxh3.hashLongs(this.rowHashes, 0, regionH);
   }
 
   private DirtyAnalysisResult analyzeAllMaps(final byte[] dithered, final FrameLayout layout, final QuadrantResult quadResult) {
@@ -586,6 +875,9 @@ public class CompressedMapResult implements DitherResultStep {
     final int tileBaseX = tileCol * TILE;
     final int tileBaseY = tileRow * TILE;
 
+    final int tileVideoX = mapWallX + tileBaseX - layout.xOff;
+    final boolean xIn = tileVideoX >= 0 && tileVideoX + TILE <= layout.vidWidth;
+
     int changed = 0;
     int minX = TILE;
     int minY = TILE;
@@ -597,15 +889,22 @@ public class CompressedMapResult implements DitherResultStep {
       final int wallY = mapWallY + localY;
       final int videoY = wallY - layout.yOff;
       final boolean yIn = videoY >= 0 && videoY < layout.vidHeight;
+      final int sentRow = localY * MAP_PX + tileBaseX;
+
+      // fast path, compare the whole row in one vectorized mismatch and only walk rows that differ
+      int first = 0;
+      if (yIn && xIn) {
+        final int videoRow = videoY * layout.vidWidth + tileVideoX;
+        first = Arrays.mismatch(dithered, videoRow, videoRow + TILE, state.lastSentData, sentRow, sentRow + TILE);
+        if (first < 0) {
+          continue;
+        }
+      }
 
-      for (int xx = 0; xx < TILE; xx++) {
-        final int localX = tileBaseX + xx;
-        final int wallX = mapWallX + localX;
-        final int videoX = wallX - layout.xOff;
-
+      for (int xx = first; xx < TILE; xx++) {
+        final int videoX = tileVideoX + xx;
         final byte current = this.readDitheredPixel(dithered, layout, videoX, videoY, yIn);
-        final int sentIndex = localY * MAP_PX + localX;
-        final byte sent = state.lastSentData[sentIndex];
+        final byte sent = state.lastSentData[sentRow + xx];
 
         if (current != sent) {
           changed++;
@@ -637,9 +936,66 @@ public class CompressedMapResult implements DitherResultStep {
     info.minY = tileBaseY + minY;
     info.maxX = tileBaseX + maxX;
     info.maxY = tileBaseY + maxY;
+    info.recurring = this.isRecurringTile(dithered, layout, state, mapWallX, mapWallY, tileCol, tileRow);
     return info;
   }
 
+  private boolean isRecurringTile(
+    final byte[] dithered,
+    final FrameLayout layout,
+    final MapState state,
+    final int mapWallX,
+    final int mapWallY,
+    final int tileCol,
+    final int tileRow
+  ) {
+    final int tileBaseX = tileCol * TILE;
+    final int tileBaseY = tileRow * TILE;
+    int p = 0;
+    for (int yy = 0; yy < TILE; yy++) {
+      final int videoY = mapWallY + tileBaseY + yy - layout.yOff;
+      final boolean yIn = videoY >= 0 && videoY < layout.vidHeight;
+      for (int xx = 0; xx < TILE; xx++) {
+        final int videoX = mapWallX + tileBaseX + xx - layout.xOff;
+        this.tileScratch[p++] = this.readDitheredPixel(dithered, layout, videoX, videoY, yIn);
+      }
+    }
+
+    final int tileIdx = tileRow * TILES_PER_ROW + tileCol;
+    final long key = this.tileKey(tileIdx);
+    this.tileCacheLookups++;
+    if (state.tileHistory.get(key) != null) {
+      this.tileCacheHits++;
+      return true;
+    }
+    return false;
+  }
+
+  private long tileKey(final int tileIdx) {
+    final long hash = this.xxh3.hashBytes(this.tileScratch);
+    return hash ^ (tileIdx * TILE_KEY_MIX);
+  }
+
+  private void rememberSentTiles(final MapState state, final int x, final int y, final int w, final int h) {
+    final int minTileX = x / TILE;
+    final int minTileY = y / TILE;
+    final int maxTileX = (x + w - 1) / TILE;
+    final int maxTileY = (y + h - 1) / TILE;
+    for (int ty = minTileY; ty <= maxTileY; ty++) {
+      for (int tx = minTileX; tx <= maxTileX; tx++) {
+        int p = 0;
+        for (int yy = 0; yy < TILE; yy++) {
+          final int srcOff = (ty * TILE + yy) * MAP_PX + tx * TILE;
+          System.arraycopy(state.lastSentData, srcOff, this.tileScratch, p, TILE);
+          p += TILE;
+        }
+        final int tileIdx = ty * TILES_PER_ROW + tx;
+        final long key = this.tileKey(tileIdx);
+        state.tileHistory.put(key, Boolean.TRUE);
+      }
+    }
+  }
+
   private byte readDitheredPixel(final byte[] dithered, final FrameLayout layout, final int videoX, final int videoY, final boolean yIn) {
     if (yIn && videoX >= 0 && videoX < layout.vidWidth) {
       final int index = videoY * layout.vidWidth + videoX;
@@ -667,6 +1023,7 @@ public class CompressedMapResult implements DitherResultStep {
         continue;
       }
 
+      final boolean recurring = isRectRecurring(tileInfos, rect);
       final byte[] patchData = this.extractPatchBytes(dithered, layout, mapWallX, mapWallY, box.x, box.y, box.w, box.h);
 
       final PatchUpdate patch = new PatchUpdate(
@@ -678,7 +1035,8 @@ public class CompressedMapResult implements DitherResultStep {
         patchData,
         box.changedPixels,
         state.framesSinceLastSend,
-        state.accumulatedChanges
+        state.accumulatedChanges,
+        recurring
       );
       patches.add(patch);
     }
@@ -686,6 +1044,19 @@ public class CompressedMapResult implements DitherResultStep {
     return patches;
   }
 
+  private static boolean isRectRecurring(final TileDirtyInfo[] tileInfos, final TileRect rect) {
+    for (int ry = 0; ry < rect.tileRows; ry++) {
+      for (int rx = 0; rx < rect.tileCols; rx++) {
+        final int tileIdx = (rect.tileY + ry) * TILES_PER_ROW + (rect.tileX + rx);
+        final TileDirtyInfo info = tileInfos[tileIdx];
+        if (info != null && info.dirty && !info.recurring) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   private static boolean[] buildDirtyGrid(final TileDirtyInfo[] tileInfos) {
     final boolean[] dirty = new boolean[TILE_COUNT];
     for (int i = 0; i < TILE_COUNT; i++) {
@@ -851,6 +1222,9 @@ public class CompressedMapResult implements DitherResultStep {
     for (final PatchUpdate update : updates) {
       if (update.staleness >= CRITICAL_STALENESS_FRAMES) {
         buckets.critical.add(update);
+      } else if (update.recurring) {
+        // tile is reverting to a state we recently sent, most likely looping content, so let novel content go first
+        buckets.low.add(update);
       } else if (update.changedPixels >= majorTileThreshold || update.accumulated >= highAccumulatedThreshold) {
         buckets.high.add(update);
       } else if (update.changedPixels < lowChangeMax && update.staleness == 0 && update.accumulated < lowAccumulatedMax) {
@@ -867,17 +1241,17 @@ public class CompressedMapResult implements DitherResultStep {
     return buckets;
   }
 
-  private int computeEffectiveBudget(final boolean inRecovery) {
+  private int computeEffectiveBudget(final int frameBudget, final boolean inRecovery) {
     if (inRecovery) {
-      return (int) (DEFAULT_MAX_BYTES_PER_FRAME * SCENE_CHANGE_BUDGET_MULTIPLIER);
+      return (int) (frameBudget * SCENE_CHANGE_BUDGET_MULTIPLIER);
     }
-    return DEFAULT_MAX_BYTES_PER_FRAME;
+    return frameBudget;
   }
 
-  private SendResult sendAllTiers(final PriorityBuckets buckets, final int budget, final boolean inRecovery) {
+  private SendResult sendAllTiers(final PriorityBuckets buckets, final int frameBudget, final int budget, final boolean inRecovery) {
     final SendResult result = new SendResult();
     final Collection<MapDecoration> emptyDecorations = List.of();
-    final int criticalCap = DEFAULT_MAX_BYTES_PER_FRAME * 2;
+    final int criticalCap = frameBudget * 2;
     int totalBytes = 0;
 
     totalBytes = this.sendTier(buckets.critical, result, emptyDecorations, totalBytes, criticalCap);
@@ -946,7 +1320,8 @@ public class CompressedMapResult implements DitherResultStep {
       update.patchData,
       update.changedPixels,
       update.staleness + 1,
-      update.accumulated + update.changedPixels
+      update.accumulated + update.changedPixels,
+      update.recurring
     );
     this.deferredUpdates.add(escalated);
   }
@@ -964,6 +1339,7 @@ public class CompressedMapResult implements DitherResultStep {
         System.arraycopy(sent.patchData, srcOff, state.lastSentData, dstOff, sent.w);
         srcOff += sent.w;
       }
+      this.rememberSentTiles(state, sent.x, sent.y, sent.w, sent.h);
 
       state.framesSinceLastSend = 0;
       state.accumulatedChanges = 0;
@@ -1008,13 +1384,30 @@ public class CompressedMapResult implements DitherResultStep {
       return;
     }
 
+    // bundles are also split by size so the scheduler has reasonably sized units to pace
     final List<Packet<? super ClientGamePacketListener>> typed = (List<Packet<? super ClientGamePacketListener>>) packets;
-    for (int i = 0; i < typed.size(); i += BUNDLE_CHUNK) {
-      final int end = Math.min(i + BUNDLE_CHUNK, typed.size());
-      final List<Packet<? super ClientGamePacketListener>> chunk = typed.subList(i, end);
-      final ClientboundBundlePacket bundle = new ClientboundBundlePacket(chunk);
-      PacketUtils.sendPackets(viewers, bundle);
+    int start = 0;
+    int bytes = 0;
+    for (int i = 0; i < typed.size(); i++) {
+      bytes += patchSize(typed.get(i));
+      final int count = i + 1 - start;
+      final boolean last = i == typed.size() - 1;
+      if (count < BUNDLE_CHUNK && bytes < BUNDLE_MAX_BYTES && !last) {
+        continue;
+      }
+      final List<Packet<? super ClientGamePacketListener>> chunk = typed.subList(start, i + 1);
+      final ClientboundBundlePacket bundle = new ClientboundBundlePacket(new ArrayList<>(chunk));
+      this.scheduler.schedule(viewers, bundle, bytes);
+      start = i + 1;
+      bytes = 0;
+    }
+  }
+
+  private static int patchSize(final Packet<?> packet) {
+    if (packet instanceof final ClientboundMapItemDataPacket data) {
+      return data.colorPatch().map(patch -> patch.mapColors().length).orElse(0);
     }
+    return 0;
   }
 
   private void decrementSceneChangeCounter() {
@@ -1050,15 +1443,14 @@ public class CompressedMapResult implements DitherResultStep {
     return algorithm.ditherIntoBytes(samples);
   }
 
-  private void sendFullFrame(final ImageBuffer samples, final DitherAlgorithm algorithm) {
-    final byte[] dithered = this.dither(samples, algorithm);
+  private void sendFullFrame(final FrameSource source, final Collection<UUID> viewers) {
+    final byte[] dithered = source.dithered(this.pixelScale);
 
     final int vidWidth = this.mapConfiguration.getMapWidthResolution();
     final int vidHeight = this.mapConfiguration.getMapHeightResolution();
     final int mapBlockWidth = this.mapConfiguration.getMapBlockWidth();
     final int mapBlockHeight = this.mapConfiguration.getMapBlockHeight();
     final int mapStartId = this.mapConfiguration.getMap();
-    final Collection<UUID> viewers = this.mapConfiguration.getViewers();
 
     final int pixW = mapBlockWidth << 7;
     final int pixH = mapBlockHeight << 7;
@@ -1087,6 +1479,35 @@ public class CompressedMapResult implements DitherResultStep {
     this.dispatchPackets(packets, viewers);
   }
 
+  private boolean hasClientState() {
+    if (this.mapStates.isEmpty()) {
+      return false;
+    }
+    for (final MapState state : this.mapStates.values()) {
+      if (!state.initialized) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the client state of every visible viewer matches lastSentData, so replaying it brings new viewers in sync
+  private void sendKeyFrame(final Collection<UUID> viewers) {
+    final Collection<MapDecoration> emptyDecorations = List.of();
+    final ArrayList<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>();
+    for (final Map.Entry<Integer, MapState> entry : this.mapStates.entrySet()) {
+      final MapState state = entry.getValue();
+      if (!state.initialized) {
+        continue;
+      }
+      final byte[] mapData = state.lastSentData.clone();
+      final MapItemSavedData.MapPatch patch = new MapItemSavedData.MapPatch(0, 0, MAP_PX, MAP_PX, mapData);
+      final MapId id = new MapId(entry.getKey());
+      packets.add(new ClientboundMapItemDataPacket(id, (byte) 0, false, emptyDecorations, patch));
+    }
+    this.dispatchPackets(packets, viewers);
+  }
+
   private byte[] extractFullMapData(
     final byte[] dithered,
     final int vidWidth,
@@ -1122,6 +1543,7 @@ public class CompressedMapResult implements DitherResultStep {
   private void updateMapStateFullFrame(final int mapIdInt, final byte[] mapData) {
     final MapState state = this.mapStates.computeIfAbsent(mapIdInt, k -> new MapState());
     System.arraycopy(mapData, 0, state.lastSentData, 0, MAP_PX * MAP_PX);
+    this.rememberSentTiles(state, 0, 0, MAP_PX, MAP_PX);
     state.initialized = true;
     state.framesSinceLastSend = 0;
     state.accumulatedChanges = 0;
@@ -17,36 +17,44 @@
  */
 package me.brandonli.mcav.bukkit.media.result;
 
-import static java.util.Objects.requireNonNull;
-
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
-import me.brandonli.mcav.bukkit.BukkitModule;
 import me.brandonli.mcav.bukkit.media.config.EntityConfiguration;
-import me.brandonli.mcav.bukkit.utils.ChatUtils;
+import me.brandonli.mcav.bukkit.utils.ComponentRenderer;
+import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.metadata.OriginalVideoMetadata;
 import me.brandonli.mcav.media.player.pipeline.filter.video.FunctionalVideoFilter;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
 import net.minecraft.network.chat.Component;
-import org.bukkit.Bukkit;
+import net.minecraft.network.protocol.Packet;
 import org.bukkit.Color;
 import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.craftbukkit.entity.CraftTextDisplay;
 import org.bukkit.entity.Display;
-import org.bukkit.entity.Player;
 import org.bukkit.entity.TextDisplay;
-import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
- * Represents a filter for displaying frames as a {@link TextDisplay} entity.
+ * Represents a filter for displaying frames as {@link TextDisplay} entities.
+ *
+ * <p>The image can be split across a grid of displays (see {@link EntityConfiguration#getTileColumns()}). Each frame,
+ * only the tiles whose pixels changed are re-rendered, and their text is sent directly as entity metadata packets
+ * that are built once and shared across all viewers. The displays are virtual: they only exist on the viewers'
+ * clients, so they cost nothing on the server tick and every update can be produced off the main thread. Viewers
+ * that join or enter the display's world later are sent the displays before the next update.
  */
 public class EntityResult implements FunctionalVideoFilter {
 
   private final EntityConfiguration entityConfiguration;
+  private final ComponentRenderer renderer;
+  private final List<TextTile> tiles;
+  private final ViewerSetupTracker setup;
 
-  private TextDisplay entity;
+  private int[] lastFrame;
 
   /**
    * Constructs an instance of {@code EntityResult} with the specified configuration.
@@ -57,6 +65,10 @@ public class EntityResult implements FunctionalVideoFilter {
    */
   public EntityResult(final EntityConfiguration configuration) {
     this.entityConfiguration = configuration;
+    this.renderer = new ComponentRenderer(configuration.getCharacter());
+    this.tiles = new ArrayList<>();
+    this.setup = new ViewerSetupTracker(configuration.getPosition().getWorld());
+    this.lastFrame = new int[0];
   }
 
   /**
@@ -64,17 +76,40 @@ public class EntityResult implements FunctionalVideoFilter {
    */
   @Override
   public boolean applyFilter(final ImageBuffer data, final OriginalVideoMetadata metadata) {
-    final String character = this.entityConfiguration.getCharacter();
+    this.spawnPending();
+
     final int entityWidth = this.entityConfiguration.getEntityWidth();
     final int entityHeight = this.entityConfiguration.getEntityHeight();
     final ResizeFilter resize = new ResizeFilter(entityWidth, entityHeight);
     resize.applyFilter(data, metadata);
 
     final int[] resizedData = data.getPixels();
-    final Component prefix = ChatUtils.createChatComponent(resizedData, character, entityWidth, entityHeight);
-    final CraftTextDisplay craftEntity = (CraftTextDisplay) this.entity;
-    final net.minecraft.world.entity.Display.TextDisplay frame = craftEntity.getHandle();
-    frame.setText(prefix);
+    final DitherAlgorithm dither = this.entityConfiguration.getDither();
+    if (dither != null) {
+      dither.dither(resizedData, entityWidth);
+    }
+
+    final int[] lastFrame = this.lastFrame;
+    final boolean comparable = lastFrame.length == resizedData.length;
+    final List<Packet<?>> packets = new ArrayList<>();
+    for (final TextTile tile : this.tiles) {
+      if (comparable && tile.matches(resizedData, lastFrame, entityWidth)) {
+        continue;
+      }
+      final Component text = this.renderer.render(resizedData, entityWidth, tile.x, tile.y, tile.width, tile.height);
+      final Packet<?> packet = tile.update(text);
+      if (packet != null) {
+        packets.add(packet);
+      }
+    }
+    this.lastFrame = resizedData.clone();
+
+    if (!packets.isEmpty()) {
+      final Collection<UUID> viewers = this.entityConfiguration.getViewers();
+      final Packet<?>[] array = packets.toArray(new Packet<?>[0]);
+      PacketUtils.sendPackets(viewers, array);
+    }
+
     return true;
   }
 
@@ -82,33 +117,63 @@ public class EntityResult implements FunctionalVideoFilter {
    * {@inheritDoc}
    */
   @Override
-  @SuppressWarnings("deprecation")
   public void start() {
+    final int entityWidth = this.entityConfiguration.getEntityWidth();
+    final int entityHeight = this.entityConfiguration.getEntityHeight();
+    final int columns = this.entityConfiguration.getTileColumns();
+    final int rows = this.entityConfiguration.getTileRows();
+    final int tileWidth = (entityWidth + columns - 1) / columns;
+    final int tileHeight = (entityHeight + rows - 1) / rows;
+    for (int y = 0; y < entityHeight; y += tileHeight) {
+      for (int x = 0; x < entityWidth; x += tileWidth) {
+        final int width = Math.min(tileWidth, entityWidth - x);
+        final int height = Math.min(tileHeight, entityHeight - y);
+        final VirtualTextDisplay entity = this.createTile(x, y, width, height, columns * rows == 1);
+        this.tiles.add(new TextTile(entity, x, y, width, height));
+      }
+    }
+    this.spawnPending();
+  }
+
+  // the spawn packets carry the current text, so late viewers see the last frame right away
+  private void spawnPending() {
+    final Collection<UUID> pending = this.setup.pollPending(this.entityConfiguration.getViewers());
+    if (pending.isEmpty()) {
+      return;
+    }
+    final List<Packet<?>> packets = new ArrayList<>();
+    for (final TextTile tile : this.tiles) {
+      packets.addAll(Arrays.asList(tile.entity.createSpawnPackets()));
+    }
+    final Packet<?>[] array = packets.toArray(new Packet<?>[0]);
+    PacketUtils.sendPackets(pending, array);
+  }
+
+  private VirtualTextDisplay createTile(final int x, final int y, final int width, final int height, final boolean single) {
     final Location pos = this.entityConfiguration.getPosition();
     final Location clone = pos.clone();
-    final Collection<UUID> viewers = this.entityConfiguration.getViewers();
-    final World world = requireNonNull(clone.getWorld());
-    final Plugin plugin = BukkitModule.getPlugin();
-    this.entity = world.spawn(clone, TextDisplay.class, display -> {
-      display.setInvulnerable(true);
-      display.setCustomNameVisible(false);
+
+    // lay tiles out in the plane facing a viewer that looks along the configured direction, anchoring each display
+    // at the bottom center of its text
+    final int entityWidth = this.entityConfiguration.getEntityWidth();
+    final int entityHeight = this.entityConfiguration.getEntityHeight();
+    final double horizontal = ((x + width / 2.0) - entityWidth / 2.0) * this.entityConfiguration.getGlyphWidth();
+    final double vertical = (entityHeight - (y + height)) * this.entityConfiguration.getGlyphHeight();
+    final double yaw = Math.toRadians(clone.getYaw());
+    clone.add(-Math.cos(yaw) * horizontal, vertical, -Math.sin(yaw) * horizontal);
+    if (!single) {
+      clone.setYaw(clone.getYaw() + 180.0F);
+      clone.setPitch(0.0F);
+    }
+
+    return new VirtualTextDisplay(clone, display -> {
       display.setSeeThrough(false);
       display.setAlignment(TextDisplay.TextAlignment.CENTER);
-      display.setBillboard(Display.Billboard.VERTICAL);
-      display.setVisibleByDefault(false);
+      display.setBillboard(single ? Display.Billboard.VERTICAL : Display.Billboard.FIXED);
       display.setBackgroundColor(Color.BLACK);
       display.setShadowed(false);
-      display.setText("");
-      display.setCustomName("");
       display.setLineWidth(Integer.MAX_VALUE);
     });
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
-        continue;
-      }
-      player.showEntity(plugin, this.entity);
-    }
   }
 
   /**
@@ -116,9 +181,48 @@ public class EntityResult implements FunctionalVideoFilter {
    */
   @Override
   public void release() {
-    if (this.entity == null) {
-      return;
+    final List<Packet<?>> packets = new ArrayList<>();
+    for (final TextTile tile : this.tiles) {
+      packets.add(tile.entity.createRemovePacket());
+    }
+    final Collection<UUID> viewers = this.entityConfiguration.getViewers();
+    final Packet<?>[] array = packets.toArray(new Packet<?>[0]);
+    PacketUtils.sendPackets(viewers, array);
+    this.tiles.clear();
+    this.setup.clear();
+    this.lastFrame = new int[0];
+  }
+
+  private static final class TextTile {
+
+    private final VirtualTextDisplay entity;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+    TextTile(final VirtualTextDisplay entity, final int x, final int y, final int width, final int height) {
+      this.entity = entity;
+      this.x = x;
+      this.y = y;
+      this.width = width;
+      this.height = height;
+    }
+
+    boolean matches(final int[] frame, final int[] last, final int stride) {
+      for (int row = this.y; row < this.y + this.height; row++) {
+        final int from = row * stride + this.x;
+        final int to = from + this.width;
+        if (!Arrays.equals(frame, from, to, last, from, to)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Nullable
+    Packet<?> update(final Component text) {
+      return this.entity.setText(text);
     }
-    this.entity.remove();
   }
 }
@@ -0,0 +1,158 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.result;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import me.brandonli.mcav.bukkit.media.config.MapConfiguration;
+import me.brandonli.mcav.media.cache.MappedDitheredFrameReader;
+import me.brandonli.mcav.utils.ExecutorUtils;
+import me.brandonli.mcav.utils.UncheckedIOException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays back a dithered frame cache, recorded by {@link CachingMapResult} or transcoded ahead of
+ * time with {@link me.brandonli.mcav.media.cache.DitheredVideoTranscoder}, onto maps. Frames are
+ * read from a memory mapped file and sent at their recorded timestamps, so no decoding, resizing
+ * or dithering takes place.
+ */
+public final class MapCachePlayback {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MapCachePlayback.class);
+
+  private final MapConfiguration mapConfiguration;
+  private final MapResult result;
+  private final Path cache;
+  private final AtomicBoolean running;
+
+  private @Nullable ExecutorService executor;
+
+  /**
+   * Constructs a new instance of {@code MapCachePlayback}.
+   *
+   * @param configuration the {@link MapConfiguration} to play the cache on, which must match the cache resolution
+   * @param cache         the cache file to play
+   */
+  public MapCachePlayback(final MapConfiguration configuration, final Path cache) {
+    this.mapConfiguration = configuration;
+    this.result = new MapResult(configuration);
+    this.cache = cache;
+    this.running = new AtomicBoolean(false);
+  }
+
+  /**
+   * Starts playing the cache.
+   *
+   * @param loop whether to restart from the first frame once the end of the cache is reached
+   * @return true if playback was started, false if it was already running
+   */
+  public synchronized boolean start(final boolean loop) {
+    if (this.running.get()) {
+      return false;
+    }
+
+    final MappedDitheredFrameReader reader = this.openReader();
+    final ExecutorService service = Executors.newSingleThreadExecutor(task -> {
+      final Thread thread = new Thread(task, "mcav-map-cache");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // playback that ended by itself leaves its executor and the started result behind
+    final ExecutorService previous = this.executor;
+    if (previous != null) {
+      ExecutorUtils.shutdownExecutorGracefully(previous);
+    } else {
+      this.result.start();
+    }
+    this.running.set(true);
+    this.executor = service;
+    service.submit(() -> this.play(reader, loop));
+    return true;
+  }
+
+  private MappedDitheredFrameReader openReader() {
+    try {
+      final MappedDitheredFrameReader reader = MappedDitheredFrameReader.open(this.cache);
+      final int width = this.mapConfiguration.getMapWidthResolution();
+      final int height = this.mapConfiguration.getMapHeightResolution();
+      if (reader.getWidth() != width || reader.getHeight() != height) {
+        reader.close();
+        throw new IllegalArgumentException("Cache resolution does not match map configuration");
+      }
+      return reader;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e.getMessage(), e);
+    }
+  }
+
+  private void play(final MappedDitheredFrameReader reader, final boolean loop) {
+    final byte[] frame = new byte[reader.getWidth() * reader.getHeight()];
+    final int count = reader.getFrameCount();
+    try (reader) {
+      long base = System.nanoTime();
+      int index = 0;
+      while (this.running.get() && index < count) {
+        reader.read(index, frame);
+        final long delay = base + reader.getTimestamp(index) - System.nanoTime();
+        if (delay > 0) {
+          LockSupport.parkNanos(delay);
+        }
+        this.result.sendFrame(frame);
+
+        index++;
+        if (loop && index == count) {
+          index = 0;
+          base = System.nanoTime();
+        }
+      }
+    } catch (final IOException | RuntimeException e) {
+      // nothing reads the future of the playback task, so the failure would otherwise go unnoticed
+      LOGGER.error("Failed to play map cache {}", this.cache, e);
+    } finally {
+      this.running.set(false);
+    }
+  }
+
+  /**
+   * Checks whether the cache is currently playing.
+   *
+   * @return true if playing, false otherwise
+   */
+  public boolean isPlaying() {
+    return this.running.get();
+  }
+
+  /**
+   * Stops playback and clears the maps.
+   */
+  public synchronized void release() {
+    this.running.set(false);
+    final ExecutorService service = this.executor;
+    if (service != null) {
+      ExecutorUtils.shutdownExecutorGracefully(service);
+      this.executor = null;
+    }
+    this.result.release();
+  }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.UUID;
 import me.brandonli.mcav.bukkit.media.config.MapConfiguration;
+import me.brandonli.mcav.bukkit.media.viewer.ViewerTracker;
 import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
@@ -66,10 +67,25 @@ public class MapResult implements DitherResultStep {
     }
 
     final byte[] rgb = algorithm.ditherIntoBytes(samples);
+    this.sendFrame(rgb);
+  }
+
+  /**
+   * Sends an already dithered frame to the viewers, skipping any resizing or dithering.
+   *
+   * @param rgb the palette indices of the frame, of length map width resolution * map height resolution
+   */
+  public void sendFrame(final byte[] rgb) {
+    final int vidWidth = this.mapConfiguration.getMapWidthResolution();
+    final int vidHeight = this.mapConfiguration.getMapHeightResolution();
     final int mapBlockWidth = this.mapConfiguration.getMapBlockWidth();
     final int mapBlockHeight = this.mapConfiguration.getMapBlockHeight();
     final int map = this.mapConfiguration.getMap();
-    final Collection<UUID> viewers = this.mapConfiguration.getViewers();
+    final ViewerTracker tracker = this.mapConfiguration.getViewerTracker();
+    final Collection<UUID> viewers = tracker.getVisibleViewers(this.mapConfiguration.getViewers());
+    if (viewers.isEmpty()) {
+      return;
+    }
     final int pixW = mapBlockWidth << 7;
     final int pixH = mapBlockHeight << 7;
     final int xOff = (pixW - vidWidth) >> 1;
@@ -118,7 +134,7 @@ public class MapResult implements DitherResultStep {
    */
   @Override
   public void start() {
-    // no-op
+    this.mapConfiguration.getViewerTracker().start(this.mapConfiguration.getViewers());
   }
 
   /**
@@ -126,6 +142,7 @@ public class MapResult implements DitherResultStep {
    */
   @Override
   public void release() {
+    this.mapConfiguration.getViewerTracker().release();
     final int start = this.mapConfiguration.getMap();
     final int mapWidth = this.mapConfiguration.getMapBlockWidth();
     final int mapHeight = this.mapConfiguration.getMapBlockHeight();
@@ -17,31 +17,38 @@
  */
 package me.brandonli.mcav.bukkit.media.result;
 
-import static java.util.Objects.requireNonNull;
-
-import io.papermc.paper.scoreboard.numbers.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
-import me.brandonli.mcav.bukkit.BukkitModule;
 import me.brandonli.mcav.bukkit.media.config.ScoreboardConfiguration;
-import me.brandonli.mcav.bukkit.utils.ChatUtils;
+import me.brandonli.mcav.bukkit.utils.ComponentRenderer;
+import me.brandonli.mcav.bukkit.utils.PacketUtils;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.metadata.OriginalVideoMetadata;
 import me.brandonli.mcav.media.player.pipeline.filter.video.FunctionalVideoFilter;
 import me.brandonli.mcav.media.player.pipeline.filter.video.ResizeFilter;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scoreboard.*;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
 
 /**
- * Represents a frame displaying frames on a scoreboard.
+ * Represents a frame displaying frames on a scoreboard. Only the teams whose line changed since the previous frame
+ * are updated.
+ *
+ * <p>The sidebar is virtual: it is only sent to the viewers and never registered with the server, so it does not
+ * replace the viewers' scoreboard and every update can be produced off the main thread. Viewers that join later are
+ * sent the sidebar before the next update.
  */
 public class ScoreboardResult implements FunctionalVideoFilter {
 
   private final ScoreboardConfiguration configuration;
-  private final Team[] teamLines;
+  private final ComponentRenderer renderer;
+  private final ViewerSetupTracker setup;
+
+  private VirtualSidebar sidebar;
+  private int[] lastFrame;
 
   /**
    * Constructs a new instance of the {@code ScoreboardResult} class using the provided
@@ -52,7 +59,9 @@ public class ScoreboardResult implements FunctionalVideoFilter {
    */
   public ScoreboardResult(final ScoreboardConfiguration configuration) {
     this.configuration = configuration;
-    this.teamLines = new Team[configuration.getLines()];
+    this.renderer = new ComponentRenderer(configuration.getCharacter());
+    this.setup = new ViewerSetupTracker(null);
+    this.lastFrame = new int[0];
   }
 
   /**
@@ -60,39 +69,19 @@ public class ScoreboardResult implements FunctionalVideoFilter {
    */
   @Override
   public void start() {
-    final BukkitScheduler scheduler = Bukkit.getScheduler();
-    final Plugin plugin = BukkitModule.getPlugin();
-    scheduler.runTask(plugin, this::start0);
+    final int lines = this.configuration.getLines();
+    this.sidebar = new VirtualSidebar(lines);
+    this.showPending(this.sidebar);
   }
 
-  private void start0() {
-    final int lines = this.configuration.getLines();
-    final Collection<UUID> viewers = this.configuration.getViewers();
-    final ScoreboardManager scoreboardManager = requireNonNull(Bukkit.getScoreboardManager());
-    final Scoreboard scoreboard = scoreboardManager.getNewScoreboard();
-    final UUID randomUUID = UUID.randomUUID();
-    final String objectiveName = randomUUID.toString();
-    @SuppressWarnings("deprecation")
-    final Objective objective = scoreboard.registerNewObjective(objectiveName, "dummy", "");
-    objective.setDisplaySlot(DisplaySlot.SIDEBAR);
-    objective.numberFormat(NumberFormat.blank());
-    for (int i = 0; i < lines; i++) {
-      final UUID random = UUID.randomUUID();
-      final String name = random.toString();
-      final Team team = scoreboard.registerNewTeam(name);
-      final String value = ChatUtils.getUniqueString(i);
-      team.addEntry(value);
-      final Score score = objective.getScore(value);
-      score.setScore(lines - i - 1);
-      this.teamLines[i] = team;
-    }
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
-        continue;
-      }
-      player.setScoreboard(scoreboard);
+  // the show packets carry the current lines, so late viewers see the last frame right away
+  private void showPending(final VirtualSidebar sidebar) {
+    final Collection<UUID> pending = this.setup.pollPending(this.configuration.getViewers());
+    if (pending.isEmpty()) {
+      return;
     }
+    final Packet<?>[] packets = sidebar.createShowPackets();
+    PacketUtils.sendPackets(pending, packets);
   }
 
   /**
@@ -100,41 +89,58 @@ public class ScoreboardResult implements FunctionalVideoFilter {
    */
   @Override
   public void release() {
-    for (final Team team : this.teamLines) {
-      if (team == null) {
-        continue;
-      }
-      team.unregister();
+    if (this.sidebar == null) {
+      return;
     }
-    final ScoreboardManager scoreboardManager = requireNonNull(Bukkit.getScoreboardManager());
     final Collection<UUID> viewers = this.configuration.getViewers();
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
-        continue;
-      }
-      final Scoreboard fresh = scoreboardManager.getNewScoreboard();
-      player.setScoreboard(fresh);
-    }
+    final Packet<?>[] packets = this.sidebar.createHidePackets();
+    PacketUtils.sendPackets(viewers, packets);
+    this.sidebar = null;
+    this.setup.clear();
+    this.lastFrame = new int[0];
   }
 
   /**
    * {@inheritDoc}
    */
   @Override
-  @SuppressWarnings("deprecation")
   public boolean applyFilter(final ImageBuffer data, final OriginalVideoMetadata metadata) {
-    final String character = this.configuration.getCharacter();
+    final VirtualSidebar sidebar = this.sidebar;
+    if (sidebar == null) {
+      return true;
+    }
+    this.showPending(sidebar);
+
     final int width = this.configuration.getWidth();
     final int lines = this.configuration.getLines();
     final ResizeFilter resize = new ResizeFilter(width, lines);
     resize.applyFilter(data, metadata);
     final int[] resizedData = data.getPixels();
+    final DitherAlgorithm dither = this.configuration.getDither();
+    if (dither != null) {
+      dither.dither(resizedData, width);
+    }
+
+    final int[] lastFrame = this.lastFrame;
+    final boolean comparable = lastFrame.length == resizedData.length;
+    final List<Packet<?>> packets = new ArrayList<>();
     for (int i = 0; i < lines; i++) {
-      final Team team = this.teamLines[i];
-      final String suffix = ChatUtils.createRawLine(resizedData, character, width, i);
-      team.setSuffix(suffix);
+      final int from = i * width;
+      final int to = from + width;
+      if (comparable && Arrays.equals(resizedData, from, to, lastFrame, from, to)) {
+        continue;
+      }
+      final Component suffix = this.renderer.render(resizedData, width, 0, i, width, 1);
+      packets.add(sidebar.setLine(i, suffix));
     }
+    this.lastFrame = resizedData.clone();
+
+    if (!packets.isEmpty()) {
+      final Collection<UUID> viewers = this.configuration.getViewers();
+      final Packet<?>[] array = packets.toArray(new Packet<?>[0]);
+      PacketUtils.sendPackets(viewers, array);
+    }
+
     return true;
   }
 }
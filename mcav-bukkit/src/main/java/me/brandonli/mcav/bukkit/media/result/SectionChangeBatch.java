@@ -0,0 +1,127 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.result;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.shorts.ShortArraySet;
+import java.util.Arrays;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundSectionBlocksUpdatePacket;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Groups block changes per chunk section, so that every section is sent as a single multi-block-change packet.
+ * Each position must only be added once per batch.
+ */
+public final class SectionChangeBatch {
+
+  private final Long2ObjectMap<SectionChanges> sections;
+
+  /**
+   * Creates an empty batch.
+   */
+  public SectionChangeBatch() {
+    this.sections = new Long2ObjectOpenHashMap<>();
+  }
+
+  /**
+   * Adds a block change to the batch.
+   *
+   * @param sectionKey       the packed section position, as returned by {@link SectionPos#asLong}
+   * @param relativePosition the position within the section, as returned by {@link SectionPos#sectionRelativePos}
+   * @param state            the new block state
+   */
+  public void add(final long sectionKey, final short relativePosition, final BlockState state) {
+    SectionChanges section = this.sections.get(sectionKey);
+    if (section == null) {
+      section = new SectionChanges();
+      this.sections.put(sectionKey, section);
+    }
+    section.add(relativePosition, state);
+  }
+
+  /**
+   * Checks whether the batch has no changes.
+   *
+   * @return true if nothing was added since the batch was last drained
+   */
+  public boolean isEmpty() {
+    return this.sections.isEmpty();
+  }
+
+  /**
+   * Creates one packet per section and empties the batch.
+   *
+   * @return the packets of every section in the batch
+   */
+  public Packet<?>[] drainPackets() {
+    final Packet<?>[] packets = new Packet<?>[this.sections.size()];
+    int count = 0;
+    final ObjectIterator<Long2ObjectMap.Entry<SectionChanges>> iterator = this.sections.long2ObjectEntrySet().iterator();
+    while (iterator.hasNext()) {
+      final Long2ObjectMap.Entry<SectionChanges> entry = iterator.next();
+      final SectionPos section = SectionPos.of(entry.getLongKey());
+      final SectionChanges changes = entry.getValue();
+      packets[count++] = changes.createPacket(section);
+      iterator.remove();
+    }
+    return packets;
+  }
+
+  /**
+   * Discards every change in the batch.
+   */
+  public void clear() {
+    this.sections.clear();
+  }
+
+  private static final class SectionChanges {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private short[] positions;
+    private BlockState[] states;
+    private int size;
+
+    SectionChanges() {
+      this.positions = new short[INITIAL_CAPACITY];
+      this.states = new BlockState[INITIAL_CAPACITY];
+    }
+
+    void add(final short position, final BlockState state) {
+      if (this.size == this.positions.length) {
+        final int capacity = this.size << 1;
+        this.positions = Arrays.copyOf(this.positions, capacity);
+        this.states = Arrays.copyOf(this.states, capacity);
+      }
+      this.positions[this.size] = position;
+      this.states[this.size] = state;
+      this.size++;
+    }
+
+    ClientboundSectionBlocksUpdatePacket createPacket(final SectionPos section) {
+      // every position is added once, so the positions are already unique and can be wrapped as-is
+      final short[] positions = Arrays.copyOf(this.positions, this.size);
+      final BlockState[] states = Arrays.copyOf(this.states, this.size);
+      return new ClientboundSectionBlocksUpdatePacket(section, new ShortArraySet(positions, this.size), states);
+    }
+  }
+}
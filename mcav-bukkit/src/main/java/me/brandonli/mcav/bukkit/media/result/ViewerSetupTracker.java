@@ -0,0 +1,97 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.result;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Tracks which viewers were sent the packets that set up a virtual display, such as spawning its entities or
+ * showing its sidebar. Viewers that join after the display started, rejoin, or enter the display's world again
+ * (clients forget entities when changing worlds) need those packets before any update makes sense to them.
+ */
+final class ViewerSetupTracker {
+
+  private final @Nullable World world;
+  private final Map<UUID, Player> players;
+  private final Map<UUID, World> worlds;
+
+  /**
+   * Creates a tracker for a display that lives in the given world, or in none for displays such as sidebars that
+   * survive world changes.
+   *
+   * @param world the world of the display, or {@code null} if only joins matter
+   */
+  ViewerSetupTracker(final @Nullable World world) {
+    this.world = world;
+    this.players = new ConcurrentHashMap<>();
+    this.worlds = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Gets the viewers that have not been set up since they joined or entered the display's world, and marks them
+   * as set up. The caller must send the setup packets to every returned viewer.
+   *
+   * @param viewers the configured viewers
+   * @return the viewers that need the setup packets
+   */
+  Collection<UUID> pollPending(final Collection<UUID> viewers) {
+    final List<UUID> pending = new ArrayList<>(0);
+    for (final UUID viewer : viewers) {
+      final Player player = Bukkit.getPlayer(viewer);
+      if (player == null) {
+        this.players.remove(viewer);
+        this.worlds.remove(viewer);
+        continue;
+      }
+
+      // a rejoining player gets a new player instance and a client that knows nothing about the display
+      final boolean joined = this.players.put(viewer, player) != player;
+      final World world = this.world;
+      if (world == null) {
+        if (joined) {
+          pending.add(viewer);
+        }
+        continue;
+      }
+
+      final World current = player.getWorld();
+      final World last = this.worlds.put(viewer, current);
+      if (current.equals(world) && (joined || !world.equals(last))) {
+        pending.add(viewer);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Forgets all viewers.
+   */
+  void clear() {
+    this.players.clear();
+    this.worlds.clear();
+  }
+}
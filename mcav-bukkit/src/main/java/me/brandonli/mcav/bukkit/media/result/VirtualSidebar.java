@@ -0,0 +1,99 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import me.brandonli.mcav.bukkit.utils.ChatUtils;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.numbers.BlankFormat;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundSetDisplayObjectivePacket;
+import net.minecraft.network.protocol.game.ClientboundSetObjectivePacket;
+import net.minecraft.network.protocol.game.ClientboundSetPlayerTeamPacket;
+import net.minecraft.network.protocol.game.ClientboundSetScorePacket;
+import net.minecraft.world.scores.DisplaySlot;
+import net.minecraft.world.scores.Objective;
+import net.minecraft.world.scores.PlayerTeam;
+import net.minecraft.world.scores.Scoreboard;
+import net.minecraft.world.scores.criteria.ObjectiveCriteria;
+
+/**
+ * A sidebar that only exists on the clients it is sent to. It is backed by a detached scoreboard that is never
+ * registered with the server, so lines can be updated from any thread, as long as a single thread owns it.
+ *
+ * <p>Each line is a team with an invisible entry, whose suffix holds the line's text.
+ */
+final class VirtualSidebar {
+
+  private final Objective objective;
+  private final PlayerTeam[] teams;
+
+  VirtualSidebar(final int lines) {
+    final Scoreboard scoreboard = new Scoreboard();
+    final String objectiveName = UUID.randomUUID().toString();
+    this.objective = scoreboard.addObjective(
+      objectiveName,
+      ObjectiveCriteria.DUMMY,
+      Component.empty(),
+      ObjectiveCriteria.RenderType.INTEGER,
+      false,
+      BlankFormat.INSTANCE
+    );
+    this.teams = new PlayerTeam[lines];
+    for (int i = 0; i < lines; i++) {
+      final String name = UUID.randomUUID().toString();
+      final PlayerTeam team = scoreboard.addPlayerTeam(name);
+      final String entry = ChatUtils.getUniqueString(i);
+      scoreboard.addPlayerToTeam(entry, team);
+      this.teams[i] = team;
+    }
+  }
+
+  Packet<?>[] createShowPackets() {
+    final int lines = this.teams.length;
+    final String objectiveName = this.objective.getName();
+    final List<Packet<?>> packets = new ArrayList<>(lines * 2 + 2);
+    packets.add(new ClientboundSetObjectivePacket(this.objective, ClientboundSetObjectivePacket.METHOD_ADD));
+    packets.add(new ClientboundSetDisplayObjectivePacket(DisplaySlot.SIDEBAR, this.objective));
+    for (int i = 0; i < lines; i++) {
+      final PlayerTeam team = this.teams[i];
+      final String entry = ChatUtils.getUniqueString(i);
+      packets.add(ClientboundSetPlayerTeamPacket.createAddOrModifyPacket(team, true));
+      packets.add(new ClientboundSetScorePacket(entry, objectiveName, lines - i - 1, Optional.empty(), Optional.empty()));
+    }
+    return packets.toArray(new Packet<?>[0]);
+  }
+
+  Packet<?> setLine(final int line, final Component text) {
+    final PlayerTeam team = this.teams[line];
+    team.setPlayerSuffix(text);
+    return ClientboundSetPlayerTeamPacket.createAddOrModifyPacket(team, false);
+  }
+
+  Packet<?>[] createHidePackets() {
+    final List<Packet<?>> packets = new ArrayList<>(this.teams.length + 1);
+    packets.add(new ClientboundSetObjectivePacket(this.objective, ClientboundSetObjectivePacket.METHOD_REMOVE));
+    for (final PlayerTeam team : this.teams) {
+      packets.add(ClientboundSetPlayerTeamPacket.createRemovePacket(team));
+    }
+    return packets.toArray(new Packet<?>[0]);
+  }
+}
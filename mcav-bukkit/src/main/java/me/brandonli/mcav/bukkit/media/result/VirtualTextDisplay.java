@@ -0,0 +1,98 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.result;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.function.Consumer;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
+import net.minecraft.network.syncher.SynchedEntityData;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Display;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.phys.Vec3;
+import org.bukkit.Location;
+import org.bukkit.craftbukkit.CraftWorld;
+import org.bukkit.entity.TextDisplay;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A text display that only exists on the clients it is sent to. It is never added to the server world, so it does
+ * not tick and can be created and updated from any thread, as long as a single thread owns it.
+ */
+final class VirtualTextDisplay {
+
+  private final Display.TextDisplay handle;
+
+  VirtualTextDisplay(final Location location, final Consumer<TextDisplay> configurator) {
+    final CraftWorld world = (CraftWorld) requireNonNull(location.getWorld());
+    final ServerLevel level = world.getHandle();
+    this.handle = new Display.TextDisplay(EntityType.TEXT_DISPLAY, level);
+    this.handle.setPos(location.getX(), location.getY(), location.getZ());
+    this.handle.setYRot(location.getYaw());
+    this.handle.setXRot(location.getPitch());
+
+    // the bukkit view only writes synched data, which is safe on an entity that was never spawned
+    final TextDisplay view = (TextDisplay) this.handle.getBukkitEntity();
+    configurator.accept(view);
+  }
+
+  Packet<?>[] createSpawnPackets() {
+    final Display.TextDisplay handle = this.handle;
+    final Packet<?> spawn = new ClientboundAddEntityPacket(
+      handle.getId(),
+      handle.getUUID(),
+      handle.getX(),
+      handle.getY(),
+      handle.getZ(),
+      handle.getXRot(),
+      handle.getYRot(),
+      handle.getType(),
+      0,
+      Vec3.ZERO,
+      handle.getYHeadRot()
+    );
+    final List<SynchedEntityData.DataValue<?>> values = handle.getEntityData().getNonDefaultValues();
+    handle.getEntityData().packDirty();
+    if (values == null) {
+      return new Packet<?>[] { spawn };
+    }
+    final Packet<?> data = new ClientboundSetEntityDataPacket(handle.getId(), values);
+    return new Packet<?>[] { spawn, data };
+  }
+
+  @Nullable
+  Packet<?> setText(final Component text) {
+    final Display.TextDisplay handle = this.handle;
+    handle.setText(text);
+    final List<SynchedEntityData.DataValue<?>> values = handle.getEntityData().packDirty();
+    if (values == null) {
+      return null;
+    }
+    return new ClientboundSetEntityDataPacket(handle.getId(), values);
+  }
+
+  Packet<?> createRemovePacket() {
+    return new ClientboundRemoveEntitiesPacket(this.handle.getId());
+  }
+}
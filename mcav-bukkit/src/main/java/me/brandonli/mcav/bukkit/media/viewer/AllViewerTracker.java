@@ -0,0 +1,63 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.viewer;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A {@link ViewerTracker} that treats every viewer as always visible.
+ */
+public final class AllViewerTracker implements ViewerTracker {
+
+  AllViewerTracker() {
+    // no-op
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<UUID> getVisibleViewers(final Collection<UUID> viewers) {
+    return viewers;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDistance(final UUID viewer) {
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start(final Collection<UUID> viewers) {
+    // no-op
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void release() {
+    // no-op
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.viewer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Remembers which viewers were visible on a consumer's previous frame, so it can tell which viewers came into view
+ * since and catch them up. A {@link ViewerTracker} may be shared by several results, so each result owns its own
+ * instance instead of draining state from the tracker.
+ *
+ * <p>Instances are not thread-safe and are meant to be owned by a single result.
+ */
+public final class EnteredViewers {
+
+  private final Set<UUID> previous;
+
+  /**
+   * Creates a new instance that treats every viewer as not yet seen.
+   */
+  public EnteredViewers() {
+    this.previous = new HashSet<>();
+  }
+
+  /**
+   * Records the viewers visible on the current frame.
+   *
+   * @param visible the viewers that are currently visible
+   * @return the viewers that are visible now but were not on the previous call
+   */
+  public Collection<UUID> update(final Collection<UUID> visible) {
+    List<UUID> entered = List.of();
+    for (final UUID viewer : visible) {
+      if (this.previous.contains(viewer)) {
+        continue;
+      }
+      if (entered.isEmpty()) {
+        entered = new ArrayList<>();
+      }
+      entered.add(viewer);
+    }
+    if (entered.isEmpty() && this.previous.size() == visible.size()) {
+      return entered;
+    }
+    this.previous.clear();
+    this.previous.addAll(visible);
+    return entered;
+  }
+
+  /**
+   * Forgets all viewers, so they all count as entering on the next update.
+   */
+  public void clear() {
+    this.previous.clear();
+  }
+}
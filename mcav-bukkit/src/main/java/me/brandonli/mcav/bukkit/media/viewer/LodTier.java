@@ -0,0 +1,80 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.viewer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Represents a level of detail tier for viewers that are at least a certain distance away from a
+ * screen. Viewers in a tier receive frames at a reduced rate and with coarser pixels, which are
+ * cheaper to send and compress better, while viewers closer than every tier receive the full stream.
+ */
+public final class LodTier {
+
+  private final double minDistance;
+  private final int frameInterval;
+  private final int pixelScale;
+
+  LodTier(final double minDistance, final int frameInterval, final int pixelScale) {
+    Preconditions.checkArgument(minDistance > 0, "Minimum distance must be positive");
+    Preconditions.checkArgument(frameInterval > 0, "Frame interval must be positive");
+    Preconditions.checkArgument(pixelScale > 0 && (pixelScale & (pixelScale - 1)) == 0, "Pixel scale must be a power of two");
+    this.minDistance = minDistance;
+    this.frameInterval = frameInterval;
+    this.pixelScale = pixelScale;
+  }
+
+  /**
+   * Creates a new level of detail tier.
+   *
+   * @param minDistance   the distance in blocks from which viewers fall into this tier
+   * @param frameInterval only every n-th frame is sent to viewers of this tier
+   * @param pixelScale    the width and height of the pixel blocks every frame is reduced to, a power of two
+   * @return a new level of detail tier
+   */
+  public static LodTier of(final double minDistance, final int frameInterval, final int pixelScale) {
+    return new LodTier(minDistance, frameInterval, pixelScale);
+  }
+
+  /**
+   * Gets the distance in blocks from which viewers fall into this tier.
+   *
+   * @return the minimum distance
+   */
+  public double getMinDistance() {
+    return this.minDistance;
+  }
+
+  /**
+   * Gets the interval between frames sent to viewers of this tier.
+   *
+   * @return the frame interval
+   */
+  public int getFrameInterval() {
+    return this.frameInterval;
+  }
+
+  /**
+   * Gets the width and height of the pixel blocks every frame is reduced to.
+   *
+   * @return the pixel scale
+   */
+  public int getPixelScale() {
+    return this.pixelScale;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.viewer;
+
+import java.util.Collection;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Represents a tracker that decides which viewers can currently see a screen. Results consult the
+ * tracker every frame to skip viewers that cannot see the screen, and send a full frame to viewers
+ * that just came into view so they catch up with what they missed (see {@link EnteredViewers}).
+ *
+ * <p>A tracker can be shared by several results, it keeps running until every result that started it
+ * released it.
+ */
+public interface ViewerTracker {
+  /**
+   * The default horizontal field of view, in degrees, used to decide if a viewer faces the screen.
+   */
+  double DEFAULT_FIELD_OF_VIEW = 110.0;
+
+  /**
+   * The default interval, in ticks, between visibility updates.
+   */
+  long DEFAULT_UPDATE_INTERVAL_TICKS = 5L;
+
+  /**
+   * Filters the given viewers down to those that can currently see the screen.
+   *
+   * @param viewers the viewers to filter
+   * @return the viewers that can see the screen
+   */
+  Collection<UUID> getVisibleViewers(final Collection<UUID> viewers);
+
+  /**
+   * Gets the last measured distance between the viewer and the screen.
+   *
+   * @param viewer the viewer
+   * @return the distance in blocks, or {@link Double#POSITIVE_INFINITY} if it is unknown
+   */
+  double getDistance(final UUID viewer);
+
+  /**
+   * Starts tracking the given viewers. Each call must be paired with a call to {@link #release()}.
+   *
+   * @param viewers the viewers to track
+   */
+  void start(final Collection<UUID> viewers);
+
+  /**
+   * Releases one use of the tracker, and stops tracking all viewers once every use was released.
+   */
+  void release();
+
+  /**
+   * Creates a tracker that treats every viewer as always visible.
+   *
+   * @return a new tracker that never culls
+   */
+  static ViewerTracker all() {
+    return new AllViewerTracker();
+  }
+
+  /**
+   * Creates a tracker that only treats viewers within the given distance of the screen as visible.
+   *
+   * @param center      the center of the screen
+   * @param maxDistance the maximum distance in blocks at which the screen is visible
+   * @return a new visibility tracker
+   */
+  static ViewerTracker visibility(final Location center, final double maxDistance) {
+    return visibility(center, null, 0.0, maxDistance, DEFAULT_FIELD_OF_VIEW, DEFAULT_UPDATE_INTERVAL_TICKS);
+  }
+
+  /**
+   * Creates a tracker that treats viewers as visible when they are within the given distance of the
+   * screen, in front of it and roughly looking towards it. The screen is approximated by a sphere of
+   * the given radius, so viewers looking at its edge still count as looking at it.
+   *
+   * @param center        the center of the screen
+   * @param facing        the direction the screen faces, or {@code null} if it can be seen from both sides
+   * @param screenRadius  the radius of the screen in blocks
+   * @param maxDistance   the maximum distance in blocks at which the screen is visible
+   * @param fieldOfView   the horizontal field of view of viewers in degrees
+   * @param intervalTicks the interval in ticks between visibility updates
+   * @return a new visibility tracker
+   */
+  static ViewerTracker visibility(
+    final Location center,
+    final @Nullable Vector facing,
+    final double screenRadius,
+    final double maxDistance,
+    final double fieldOfView,
+    final long intervalTicks
+  ) {
+    return new VisibilityViewerTracker(center, facing, screenRadius, maxDistance, fieldOfView, intervalTicks);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.media.viewer;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import me.brandonli.mcav.bukkit.BukkitModule;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Vector;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link ViewerTracker} that approximates visibility from distance, the side of the screen the
+ * viewer is on, and whether the screen is inside a cone around the viewer's look direction. Viewers
+ * are re-evaluated on the server thread at a low, fixed rate, so the per-frame checks are just set
+ * lookups. Results sharing the tracker may pass different viewers, so the tracker evaluates every
+ * viewer any of them started it with or asked about.
+ */
+public final class VisibilityViewerTracker implements ViewerTracker {
+
+  private final World world;
+  private final Vector center;
+  private final @Nullable Vector facing;
+  private final double screenRadius;
+  private final double maxDistance;
+  private final double halfFieldOfView;
+  private final long intervalTicks;
+  private final Set<UUID> tracked;
+  private final Set<UUID> visible;
+  private final Map<UUID, Double> distances;
+
+  private @Nullable BukkitTask task;
+  private int users;
+
+  VisibilityViewerTracker(
+    final Location center,
+    final @Nullable Vector facing,
+    final double screenRadius,
+    final double maxDistance,
+    final double fieldOfView,
+    final long intervalTicks
+  ) {
+    Preconditions.checkArgument(screenRadius >= 0, "Screen radius must be non-negative");
+    Preconditions.checkArgument(maxDistance > 0, "Max distance must be positive");
+    Preconditions.checkArgument(fieldOfView > 0 && fieldOfView <= 360, "Field of view must be between 0 and 360");
+    Preconditions.checkArgument(intervalTicks > 0, "Interval must be positive");
+    this.world = requireNonNull(center.getWorld());
+    this.center = center.toVector();
+    this.facing = facing == null ? null : facing.clone().normalize();
+    this.screenRadius = screenRadius;
+    this.maxDistance = maxDistance;
+    this.halfFieldOfView = Math.toRadians(fieldOfView / 2.0);
+    this.intervalTicks = intervalTicks;
+    this.tracked = ConcurrentHashMap.newKeySet();
+    this.visible = ConcurrentHashMap.newKeySet();
+    this.distances = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<UUID> getVisibleViewers(final Collection<UUID> viewers) {
+    final List<UUID> result = new ArrayList<>(viewers.size());
+    for (final UUID viewer : viewers) {
+      this.tracked.add(viewer);
+      if (this.visible.contains(viewer)) {
+        result.add(viewer);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDistance(final UUID viewer) {
+    return this.distances.getOrDefault(viewer, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void start(final Collection<UUID> viewers) {
+    this.users++;
+    this.tracked.addAll(viewers);
+    if (this.task != null) {
+      return;
+    }
+    final Plugin plugin = BukkitModule.getPlugin();
+    final BukkitScheduler scheduler = Bukkit.getScheduler();
+    this.task = scheduler.runTaskTimer(plugin, this::update, 0L, this.intervalTicks);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void release() {
+    if (this.users == 0 || --this.users > 0) {
+      return;
+    }
+    final BukkitTask task = this.task;
+    if (task != null) {
+      task.cancel();
+      this.task = null;
+    }
+    this.tracked.clear();
+    this.visible.clear();
+    this.distances.clear();
+  }
+
+  private void update() {
+    for (final UUID viewer : this.tracked) {
+      final Player player = Bukkit.getPlayer(viewer);
+      if (player == null || !this.isVisible(player)) {
+        this.visible.remove(viewer);
+        continue;
+      }
+      this.visible.add(viewer);
+    }
+  }
+
+  private boolean isVisible(final Player player) {
+    final UUID uuid = player.getUniqueId();
+    final Location eye = player.getEyeLocation();
+    if (!this.world.equals(eye.getWorld())) {
+      this.distances.remove(uuid);
+      return false;
+    }
+
+    final Vector toScreen = this.center.clone().subtract(eye.toVector());
+    final double distance = toScreen.length();
+    this.distances.put(uuid, distance);
+    if (distance > this.maxDistance + this.screenRadius) {
+      return false;
+    }
+    if (distance <= this.screenRadius) {
+      return true;
+    }
+
+    // viewers behind a one-sided screen cannot see it
+    final Vector facing = this.facing;
+    if (facing != null && facing.dot(toScreen) > 0) {
+      return false;
+    }
+
+    // the screen is visible if the cone around the look direction overlaps the sphere around the screen
+    final Vector look = eye.getDirection();
+    final double cos = look.dot(toScreen) / distance;
+    final double angle = Math.acos(Math.max(-1.0, Math.min(1.0, cos)));
+    final double slack = Math.asin(Math.min(1.0, this.screenRadius / distance));
+    return angle <= this.halfFieldOfView + slack;
+  }
+}
@@ -17,14 +17,16 @@
  */
 package me.brandonli.mcav.bukkit.utils;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundSystemChatPacket;
 import org.apache.commons.lang3.StringUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.craftbukkit.util.CraftChatMessage;
-import org.bukkit.entity.Player;
 
 /**
  * Utility class for sending components to players.
@@ -33,6 +35,10 @@ public final class ChatUtils {
 
   private static final char[] CHARACTER_DICTIONARY = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
   private static final String CLEAR_CHAT_MESSAGE = StringUtils.repeat("\n", 100);
+  private static final Packet<?> CLEAR_CHAT_PACKET = new ClientboundSystemChatPacket(Component.literal(CLEAR_CHAT_MESSAGE), false);
+
+  // renderers are not thread-safe, so each thread keeps one per character along with its style cache
+  private static final ThreadLocal<Map<String, ComponentRenderer>> RENDERERS = ThreadLocal.withInitial(HashMap::new);
 
   private ChatUtils() {
     throw new UnsupportedOperationException("Utility class cannot be instantiated");
@@ -98,30 +104,8 @@ public final class ChatUtils {
    * @return a Component representing the chat message
    */
   public static Component createChatComponent(final int[] data, final String character, final int width, final int height) {
-    final StringBuilder builder = new StringBuilder(width * height * (14 + character.length()) + height);
-    int before = -1;
-    for (int y = 0; y < height; ++y) {
-      if (y > 0) {
-        builder.append('\n');
-      }
-      for (int x = 0; x < width; ++x) {
-        final int rgb = data[width * y + x];
-        if (before != rgb) {
-          builder.append("§x");
-          final int hexColor = rgb & 0xFFFFFF;
-          for (int i = 0; i < 6; i++) {
-            builder.append('§');
-            builder.append(CHARACTER_DICTIONARY[(hexColor >> (20 - 4 * i)) & 0xF]);
-          }
-          builder.append(character);
-          before = rgb;
-        } else {
-          builder.append(character);
-        }
-      }
-    }
-    final String line = builder.toString();
-    return CraftChatMessage.fromStringOrNull(line, true);
+    final ComponentRenderer renderer = RENDERERS.get().computeIfAbsent(character, ComponentRenderer::new);
+    return renderer.render(data, width, height);
   }
 
   /**
@@ -130,14 +114,8 @@ public final class ChatUtils {
    * @param viewers players to clear the chat for
    */
   public static void clearChat(final Collection<UUID> viewers) {
-    for (final UUID viewer : viewers) {
-      final Player player = Bukkit.getPlayer(viewer);
-      if (player == null) {
-        continue;
-      }
-      for (int i = 0; i < 100; i++) {
-        player.sendMessage(CLEAR_CHAT_MESSAGE);
-      }
-    }
+    final Packet<?>[] packets = new Packet<?>[100];
+    Arrays.fill(packets, CLEAR_CHAT_PACKET);
+    PacketUtils.sendPackets(viewers, packets);
   }
 }
@@ -0,0 +1,174 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.utils;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.kyori.adventure.text.TextComponent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.TextColor;
+
+/**
+ * Renders rgb pixel data into text components made of colored glyphs. Components are built directly instead of
+ * going through legacy color codes, adjacent glyphs with the same color are merged into a single sibling, and the
+ * style for each color is cached across frames.
+ *
+ * <p>Instances are not thread-safe and are meant to be owned by a single result.
+ */
+public final class ComponentRenderer {
+
+  private static final int MAX_CACHED_STYLES = 4096;
+  private static final int NO_COLOR = -1;
+
+  private final String character;
+  private final Int2ObjectMap<Style> styles;
+  private final Int2ObjectMap<net.kyori.adventure.text.format.Style> adventureStyles;
+  private final StringBuilder run;
+
+  /**
+   * Creates a new renderer that draws each pixel using the given character.
+   *
+   * @param character the character to repeat for each pixel
+   */
+  public ComponentRenderer(final String character) {
+    this.character = character;
+    this.styles = new Int2ObjectOpenHashMap<>();
+    this.adventureStyles = new Int2ObjectOpenHashMap<>();
+    this.run = new StringBuilder();
+  }
+
+  /**
+   * Renders the given pixel data into a multi-line component, with one line per row.
+   *
+   * @param data   the pixel data as an array of RGB integers
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return the rendered component
+   */
+  public Component render(final int[] data, final int width, final int height) {
+    return this.render(data, width, 0, 0, width, height);
+  }
+
+  /**
+   * Renders a rectangular region of the given pixel data into a multi-line component, with one line per row.
+   *
+   * @param data   the pixel data as an array of RGB integers
+   * @param stride the width of the full image
+   * @param x      the left edge of the region
+   * @param y      the top edge of the region
+   * @param width  the width of the region
+   * @param height the height of the region
+   * @return the rendered component
+   */
+  public Component render(final int[] data, final int stride, final int x, final int y, final int width, final int height) {
+    final MutableComponent root = Component.empty();
+    final StringBuilder run = this.run;
+    run.setLength(0);
+    int color = NO_COLOR;
+    for (int row = 0; row < height; row++) {
+      if (row > 0) {
+        run.append('\n');
+      }
+      final int start = (y + row) * stride + x;
+      for (int column = 0; column < width; column++) {
+        final int rgb = data[start + column] & 0xFFFFFF;
+        if (rgb != color) {
+          this.flush(root, color);
+          color = rgb;
+        }
+        run.append(this.character);
+      }
+    }
+    this.flush(root, color);
+    return root;
+  }
+
+  /**
+   * Renders a single row of the given pixel data into an Adventure component, for use with Bukkit APIs such as
+   * team prefixes and suffixes.
+   *
+   * @param data  the pixel data as an array of RGB integers
+   * @param width the width of the image
+   * @param y     the row to render
+   * @return the rendered component
+   */
+  public net.kyori.adventure.text.Component renderLine(final int[] data, final int width, final int y) {
+    final TextComponent.Builder builder = net.kyori.adventure.text.Component.text();
+    final StringBuilder run = this.run;
+    run.setLength(0);
+    final int row = y * width;
+    int color = NO_COLOR;
+    for (int x = 0; x < width; x++) {
+      final int rgb = data[row + x] & 0xFFFFFF;
+      if (rgb != color) {
+        this.flush(builder, color);
+        color = rgb;
+      }
+      run.append(this.character);
+    }
+    this.flush(builder, color);
+    return builder.build();
+  }
+
+  private void flush(final MutableComponent root, final int color) {
+    final StringBuilder run = this.run;
+    if (run.isEmpty()) {
+      return;
+    }
+    final MutableComponent sibling = Component.literal(run.toString());
+    sibling.setStyle(this.getStyle(color));
+    root.append(sibling);
+    run.setLength(0);
+  }
+
+  private void flush(final TextComponent.Builder builder, final int color) {
+    final StringBuilder run = this.run;
+    if (run.isEmpty()) {
+      return;
+    }
+    final net.kyori.adventure.text.format.Style style = this.getAdventureStyle(color);
+    builder.append(net.kyori.adventure.text.Component.text(run.toString(), style));
+    run.setLength(0);
+  }
+
+  private Style getStyle(final int color) {
+    Style style = this.styles.get(color);
+    if (style == null) {
+      if (this.styles.size() >= MAX_CACHED_STYLES) {
+        this.styles.clear();
+      }
+      style = Style.EMPTY.withColor(TextColor.fromRgb(color));
+      this.styles.put(color, style);
+    }
+    return style;
+  }
+
+  private net.kyori.adventure.text.format.Style getAdventureStyle(final int color) {
+    net.kyori.adventure.text.format.Style style = this.adventureStyles.get(color);
+    if (style == null) {
+      if (this.adventureStyles.size() >= MAX_CACHED_STYLES) {
+        this.adventureStyles.clear();
+      }
+      style = net.kyori.adventure.text.format.Style.style(net.kyori.adventure.text.format.TextColor.color(color));
+      this.adventureStyles.put(color, style);
+    }
+    return style;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.utils;
+
+import com.google.common.base.Preconditions;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import me.brandonli.mcav.bukkit.BukkitModule;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches work that must run on the server thread. Tasks submitted from other threads are queued and drained by a
+ * single repeating task, which stops as soon as the configured per-tick time budget is used up and leaves the rest for
+ * the next tick, so media output can never stretch a tick.
+ *
+ * <p>Only world and Bukkit state access belongs here. Packets should be sent with {@link PacketUtils}, which hands
+ * them straight to the network threads and never needs the server thread.
+ */
+public final class MainThreadDispatcher {
+
+  /**
+   * The default time, in milliseconds, that queued tasks may take per tick.
+   */
+  public static final long DEFAULT_TICK_BUDGET_MILLIS = 2L;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MainThreadDispatcher.class);
+  private static final Queue<Runnable> TASKS = new ConcurrentLinkedQueue<>();
+
+  private static volatile long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TICK_BUDGET_MILLIS);
+
+  private MainThreadDispatcher() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  /**
+   * Utility method only meant to be used by {@link BukkitModule} to start the dispatch task. Do not use this method
+   * directly.
+   */
+  public static void init() {
+    final Plugin plugin = BukkitModule.getPlugin();
+    final BukkitScheduler scheduler = Bukkit.getScheduler();
+    scheduler.runTaskTimer(plugin, MainThreadDispatcher::drain, 1L, 1L);
+  }
+
+  /**
+   * Sets the time queued tasks may take per tick. At least one task is always run per tick, so a single long task
+   * can still exceed the budget.
+   *
+   * @param millis the budget in milliseconds
+   */
+  public static void setTickBudget(final long millis) {
+    Preconditions.checkArgument(millis > 0, "Tick budget must be positive");
+    TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Gets the time queued tasks may take per tick.
+   *
+   * @return the budget in milliseconds
+   */
+  public static long getTickBudget() {
+    return TimeUnit.NANOSECONDS.toMillis(TICK_BUDGET_NANOS);
+  }
+
+  /**
+   * Gets the number of tasks waiting for the server thread.
+   *
+   * @return the number of queued tasks
+   */
+  public static int getPendingTasks() {
+    return TASKS.size();
+  }
+
+  /**
+   * Runs the given task on the server thread. If called from the server thread the task runs immediately, otherwise
+   * it is queued for the next tick with budget left.
+   *
+   * @param task the task to run
+   */
+  public static void execute(final Runnable task) {
+    if (Bukkit.isPrimaryThread()) {
+      task.run();
+      return;
+    }
+    TASKS.add(task);
+  }
+
+  /**
+   * Computes a value on the server thread. If called from the server thread the value is computed immediately,
+   * otherwise the computation is queued for the next tick with budget left.
+   *
+   * @param task the computation to run
+   * @param <T>  the type of the result
+   * @return a future completed with the result of the computation, or exceptionally if it failed
+   */
+  public static <T> CompletableFuture<T> submit(final Supplier<T> task) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    execute(() -> {
+      try {
+        future.complete(task.get());
+      } catch (final Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  private static void drain() {
+    final long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+    Runnable task;
+    while ((task = TASKS.poll()) != null) {
+      try {
+        task.run();
+      } catch (final Throwable e) {
+        LOGGER.error("Failed to run main thread task", e);
+      }
+      if (System.nanoTime() >= deadline) {
+        break;
+      }
+    }
+  }
+}
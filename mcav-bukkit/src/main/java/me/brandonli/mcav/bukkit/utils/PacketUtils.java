@@ -19,11 +19,13 @@ package me.brandonli.mcav.bukkit.utils;
 
 import static java.util.Objects.requireNonNull;
 
+import io.netty.channel.Channel;
 import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import me.brandonli.mcav.bukkit.BukkitModule;
+import net.minecraft.network.Connection;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.network.ServerGamePacketListenerImpl;
@@ -37,6 +39,7 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Utility class for sending NMS packets to players in a Bukkit server.
@@ -78,6 +81,37 @@ public final class PacketUtils {
     }
   }
 
+  /**
+   * Sends the specified packets to a single player.
+   *
+   * @param viewer  the UUID of the player to whom the packets will be sent
+   * @param packets the packets to send
+   */
+  public static void sendPackets(final UUID viewer, final Packet<?>... packets) {
+    final ServerGamePacketListenerImpl conn = PLAYER_CONNECTIONS.get(viewer);
+    if (conn == null) {
+      return;
+    }
+    for (final Packet<?> packet : packets) {
+      conn.send(packet);
+    }
+  }
+
+  /**
+   * Retrieves the Netty channel of the specified player.
+   *
+   * @param viewer the UUID of the player
+   * @return the player's channel, or null if the player is not connected
+   */
+  public static @Nullable Channel getChannel(final UUID viewer) {
+    final ServerGamePacketListenerImpl conn = PLAYER_CONNECTIONS.get(viewer);
+    if (conn == null) {
+      return null;
+    }
+    final Connection connection = conn.connection;
+    return connection.channel;
+  }
+
   private static void addPlayerConnection(final UUID uuid) {
     final Player player = requireNonNull(Bukkit.getPlayer(uuid));
     final CraftPlayer craftPlayer = (CraftPlayer) player;
@@ -0,0 +1,318 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.bukkit.utils.resourcepack;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import me.brandonli.mcav.media.source.Source;
+import me.brandonli.mcav.media.source.file.FileSource;
+import me.brandonli.mcav.utils.ffmpeg.CommandTask;
+import me.brandonli.mcav.utils.ffmpeg.FFmpegCommand;
+import me.brandonli.mcav.utils.ffmpeg.FFmpegTemplates;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A content-addressed cache of transcoded audio.
+ *
+ * <p>Every entry is a directory named after the hash of the source and the transcode settings. Local files are
+ * identified by the hash of their contents, remote sources by their URL. Transcodes are written to a temporary
+ * directory that is moved into place once complete, so a partially written entry is never served. Concurrent
+ * requests for the same entry wait on a single transcode, and the least recently used entries are deleted once the
+ * cache grows beyond its size limit. Access times are kept in the directory modification time, so the order
+ * survives restarts. Temporary directories left behind by a crash are swept on the next eviction pass.
+ */
+final class AudioExtractionCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AudioExtractionCache.class);
+
+  private static final String TEMPORARY_MARKER = ".tmp-";
+  private static final Duration STALE_TEMPORARY_AGE = Duration.ofHours(1);
+  private static final int FILE_HASH_HISTORY_SIZE = 256;
+
+  private final Path directory;
+  private final Map<String, CompletableFuture<List<Path>>> inFlight;
+  private final FileHashHistory fileHashes;
+
+  private volatile long maxSize;
+
+  AudioExtractionCache(final Path directory, final long maxSize) {
+    this.directory = directory;
+    this.inFlight = new ConcurrentHashMap<>();
+    this.fileHashes = new FileHashHistory();
+    this.maxSize = maxSize;
+  }
+
+  void setMaxSize(final long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  List<Path> extract(final Source source, final String codec, final String extension, final int segmentSeconds)
+    throws IOException {
+    final String key = this.createKey(source, codec, segmentSeconds);
+    final Path entry = this.directory.resolve(key);
+    final List<Path> cached = lookup(entry);
+    if (cached != null) {
+      return cached;
+    }
+
+    final CompletableFuture<List<Path>> created = new CompletableFuture<>();
+    final CompletableFuture<List<Path>> existing = this.inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      return await(existing);
+    }
+
+    final List<Path> files;
+    try {
+      files = this.transcode(source.getResource(), key, codec, extension, segmentSeconds);
+      created.complete(files);
+    } catch (final IOException | RuntimeException e) {
+      created.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.inFlight.remove(key, created);
+    }
+
+    // the entry is already usable, a failed eviction only leaves the cache above its limit until the next one
+    try {
+      this.evict(entry);
+    } catch (final IOException | RuntimeException e) {
+      LOGGER.warn("Failed to evict audio cache entries in {}", this.directory, e);
+    }
+    return files;
+  }
+
+  private String createKey(final Source source, final String codec, final int segmentSeconds) throws IOException {
+    final String identity = source instanceof final FileSource file
+      ? "file:" + this.hashFile(file.getPath())
+      : "uri:" + source.getResource();
+    final String key = String.join("\n", identity, codec, String.valueOf(segmentSeconds));
+    final HashCode code = Hashing.sha256().hashString(key, StandardCharsets.UTF_8);
+    return code.toString();
+  }
+
+  // hashing a large video is cheap next to transcoding it, but is still only done again when the file changes
+  private String hashFile(final Path path) throws IOException {
+    final Path absolute = path.toAbsolutePath();
+    final String stamp = String.join(
+      "|",
+      absolute.toString(),
+      String.valueOf(Files.size(absolute)),
+      String.valueOf(Files.getLastModifiedTime(absolute))
+    );
+    synchronized (this.fileHashes) {
+      final String known = this.fileHashes.get(stamp);
+      if (known != null) {
+        return known;
+      }
+    }
+
+    // hashed outside the lock, so concurrent requests for the same file may both hash it once
+    final String hash = MoreFiles.asByteSource(absolute).hash(Hashing.sha256()).toString();
+    synchronized (this.fileHashes) {
+      this.fileHashes.put(stamp, hash);
+    }
+    return hash;
+  }
+
+  private static @Nullable List<Path> lookup(final Path entry) throws IOException {
+    if (!Files.isDirectory(entry)) {
+      return null;
+    }
+    final List<Path> files = listFiles(entry);
+    if (files.isEmpty()) {
+      return null;
+    }
+    Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    return files;
+  }
+
+  private List<Path> transcode(
+    final String input,
+    final String key,
+    final String codec,
+    final String extension,
+    final int segmentSeconds
+  ) throws IOException {
+    Files.createDirectories(this.directory);
+    final Path temporary = this.directory.resolve(key + TEMPORARY_MARKER + UUID.randomUUID());
+    Files.createDirectories(temporary);
+    try {
+      final FFmpegCommand command = segmentSeconds > 0
+        ? FFmpegTemplates.extractAudioSegments(input, codec, segmentSeconds, temporary.resolve("segment_%03d." + extension).toString())
+        : FFmpegTemplates.extractAudio(input, codec, temporary.resolve("audio." + extension).toString());
+      final CommandTask task = command.execute();
+      final Process process = task.getProcess();
+      if (process.exitValue() != 0 || listFiles(temporary).isEmpty()) {
+        throw new IOException("Failed to extract audio from " + input + ": " + task.getErrorOutput());
+      }
+
+      final Path entry = this.directory.resolve(key);
+      try {
+        Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final FileSystemException e) {
+        // another process finished the same transcode first, which surfaces as an existing or non-empty target
+        // depending on the platform, its entry is identical
+        final List<Path> existing = lookup(entry);
+        if (existing == null) {
+          throw e;
+        }
+        LOGGER.debug("Audio cache entry {} was created concurrently", key);
+        return existing;
+      }
+      return listFiles(entry);
+    } finally {
+      if (Files.exists(temporary)) {
+        MoreFiles.deleteRecursively(temporary, RecursiveDeleteOption.ALLOW_INSECURE);
+      }
+    }
+  }
+
+  private static List<Path> listFiles(final Path directory) throws IOException {
+    try (final Stream<Path> stream = Files.list(directory)) {
+      return stream.filter(Files::isRegularFile).sorted().toList();
+    }
+  }
+
+  // only completed entries are candidates, and the entry that was just created is always kept
+  private synchronized void evict(final Path keep) throws IOException {
+    final List<Path> entries = new ArrayList<>();
+    final List<Path> temporaries = new ArrayList<>();
+    try (final Stream<Path> stream = Files.list(this.directory)) {
+      stream
+        .filter(Files::isDirectory)
+        .forEach(path -> (path.getFileName().toString().contains(TEMPORARY_MARKER) ? temporaries : entries).add(path));
+    }
+    this.sweepTemporaries(temporaries);
+
+    final Map<Path, Long> sizes = new HashMap<>();
+    long total = 0;
+    for (final Path entry : entries) {
+      final long size = sizeOf(entry);
+      sizes.put(entry, size);
+      total += size;
+    }
+
+    final long limit = this.maxSize;
+    if (total <= limit) {
+      return;
+    }
+
+    final Map<Path, FileTime> accessed = new HashMap<>();
+    for (final Path entry : entries) {
+      accessed.put(entry, Files.getLastModifiedTime(entry));
+    }
+    entries.sort(Comparator.comparing(accessed::get));
+    for (final Path entry : entries) {
+      if (total <= limit) {
+        break;
+      }
+      if (entry.equals(keep)) {
+        continue;
+      }
+      MoreFiles.deleteRecursively(entry, RecursiveDeleteOption.ALLOW_INSECURE);
+      total -= sizes.get(entry);
+      LOGGER.debug("Evicted audio cache entry {}", entry.getFileName());
+    }
+  }
+
+  // transcodes of this process are still running, and another process may be writing a recent one
+  private void sweepTemporaries(final List<Path> temporaries) throws IOException {
+    final long cutoff = System.currentTimeMillis() - STALE_TEMPORARY_AGE.toMillis();
+    for (final Path temporary : temporaries) {
+      final String name = temporary.getFileName().toString();
+      final String key = name.substring(0, name.indexOf(TEMPORARY_MARKER));
+      try {
+        if (this.inFlight.containsKey(key) || lastWritten(temporary) > cutoff) {
+          continue;
+        }
+        MoreFiles.deleteRecursively(temporary, RecursiveDeleteOption.ALLOW_INSECURE);
+        LOGGER.debug("Deleted stale audio cache directory {}", name);
+      } catch (final NoSuchFileException e) {
+        // moved into place or cleaned up by its owner in the meantime
+      }
+    }
+  }
+
+  private static long lastWritten(final Path directory) throws IOException {
+    long latest = Files.getLastModifiedTime(directory).toMillis();
+    for (final Path file : listFiles(directory)) {
+      latest = Math.max(latest, Files.getLastModifiedTime(file).toMillis());
+    }
+    return latest;
+  }
+
+  private static long sizeOf(final Path entry) throws IOException {
+    long size = 0;
+    for (final Path file : listFiles(entry)) {
+      size += Files.size(file);
+    }
+    return size;
+  }
+
+  private static List<Path> await(final CompletableFuture<List<Path>> future) throws IOException {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof final IOException io) {
+        throw io;
+      }
+      if (cause instanceof final RuntimeException runtime) {
+        throw runtime;
+      }
+      throw e;
+    }
+  }
+
+  // bounded lru of file hashes keyed by path, size and modification time, stale stamps age out on their own
+  private static final class FileHashHistory extends LinkedHashMap<String, String> {
+
+    FileHashHistory() {
+      super(FILE_HASH_HISTORY_SIZE, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+      return this.size() > FILE_HASH_HISTORY_SIZE;
+    }
+  }
+}
@@ -17,40 +17,65 @@
  */
 package me.brandonli.mcav.bukkit.utils.resourcepack;
 
+import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.UUID;
+import java.util.List;
 import me.brandonli.mcav.media.source.Source;
 import me.brandonli.mcav.utils.IOUtils;
-import me.brandonli.mcav.utils.ffmpeg.FFmpegCommand;
-import me.brandonli.mcav.utils.ffmpeg.FFmpegTemplates;
 
 /**
  * Utility class for extracting audio from a source.
  */
 public final class SoundExtractorUtils {
 
+  private static final long DEFAULT_MAX_CACHE_SIZE = 1024 * 1024 * 1024L;
+  private static final AudioExtractionCache CACHE = new AudioExtractionCache(
+    IOUtils.getCachedFolder().resolve("audio"),
+    DEFAULT_MAX_CACHE_SIZE
+  );
+
   private SoundExtractorUtils() {
     throw new UnsupportedOperationException("Utility class cannot be instantiated");
   }
 
   /**
-   * Extracts and transcode audio to OGG Vorbis using FFmpeg. The extracted audio file is saved in a cached
-   * directory with a unique name.
+   * Extracts and transcode audio to OGG Vorbis using FFmpeg. The extracted audio is cached by the contents of the
+   * source file, or the URL of a remote source, so extracting the same media again returns the cached file without
+   * transcoding. Concurrent extractions of the same media share one transcode.
    *
    * @param source the source of the audio to be extracted from
-   * @return the path to the saved OGG audio file
+   * @return the path to the cached OGG audio file
    * @throws IOException if an I/O error occurs during the extraction or file creation process
    */
   public static Path extractOggAudio(final Source source) throws IOException {
-    final String input = source.getResource();
-    final Path outputDir = IOUtils.getCachedFolder();
-    final UUID uuid = UUID.randomUUID();
-    final String name = uuid + ".ogg";
-    final Path file = outputDir.resolve(name);
-    final String output = file.toString();
-    final FFmpegCommand command = FFmpegTemplates.extractAudio(input, "vorbis", output);
-    command.execute();
-    return file;
+    final List<Path> files = CACHE.extract(source, "vorbis", "ogg", 0);
+    return files.getFirst();
+  }
+
+  /**
+   * Extracts and transcode audio to OGG Vorbis using FFmpeg, split into segments of equal length so that long
+   * media can be registered as several shorter sounds in a resource pack. The segments are cached the same way as
+   * {@link #extractOggAudio(Source)}.
+   *
+   * @param source         the source of the audio to be extracted from
+   * @param segmentSeconds the length of each segment in seconds
+   * @return the paths to the cached OGG segments, in playback order
+   * @throws IOException if an I/O error occurs during the extraction or file creation process
+   */
+  public static List<Path> extractOggSegments(final Source source, final int segmentSeconds) throws IOException {
+    Preconditions.checkArgument(segmentSeconds > 0, "Segment length must be positive");
+    return CACHE.extract(source, "vorbis", "ogg", segmentSeconds);
+  }
+
+  /**
+   * Sets the maximum total size of the extracted audio cache. Once exceeded, the least recently used entries are
+   * deleted after the next extraction. Defaults to one gigabyte.
+   *
+   * @param bytes the maximum size in bytes
+   */
+  public static void setMaxCacheSize(final long bytes) {
+    Preconditions.checkArgument(bytes > 0, "Cache size must be positive");
+    CACHE.setMaxSize(bytes);
   }
 }
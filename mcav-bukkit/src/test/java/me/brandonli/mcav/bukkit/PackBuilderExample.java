@@ -28,7 +28,7 @@ public final class PackBuilderExample {
 
   public static void main(final String[] args) throws IOException {
     final UriSource audio = UriSource.uri(URI.create("http://commondatastorage.googleapis.com/gtv-videos-bucket/sample/BigBuckBunny.mp4"));
-    final Path ogg = SoundExtractorUtils.extractOggAudio(audio); // temporary path
+    final Path ogg = SoundExtractorUtils.extractOggAudio(audio); // cached path
     final SimpleResourcePack pack = SimpleResourcePack.pack();
     pack.sound("mcav:example", ogg);
     final Path dest = Path.of("pack.zip");
@@ -85,6 +85,18 @@ public interface FormatStrategy {
    */
   FormatStrategy FIRST_VIDEO = dump -> dump.formats.stream().filter(format -> !format.video_ext.equals("none")).findAny();
 
+  /**
+   * Selects the best quality Opus audio format from the given {@link URLParseDump}, falling back to the best
+   * quality audio format. Opus audio can be passed through to Opus sinks such as Discord without transcoding.
+   */
+  FormatStrategy BEST_QUALITY_OPUS_AUDIO = dump ->
+    dump.formats
+      .stream()
+      .filter(format -> !format.audio_ext.equals("none"))
+      .filter(format -> format.acodec != null && format.acodec.startsWith("opus"))
+      .max(Comparator.comparingDouble(format -> format.quality))
+      .or(() -> BEST_QUALITY_AUDIO.select(dump));
+
   /**
    * Selects the first available audio format with the "webm" extension from the given {@link URLParseDump}.
    */
@@ -0,0 +1,48 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.media.cache;
+
+/**
+ * Constants describing the on-disk layout of a dithered frame cache. A file starts with a header
+ * of the magic number, format version, frame width and frame height, followed by frames made of
+ * a type byte, a timestamp in nanoseconds, the compressed length and the deflated payload.
+ * Keyframes store the palette indices directly while delta frames store them XOR'd with the
+ * previous frame, which leaves mostly zeros that deflate extremely well.
+ */
+final class DitheredFrameFormat {
+
+  static final int MAGIC = 0x4D434156; // MCAV
+  static final short VERSION = 1;
+
+  static final byte KEY_FRAME = 0;
+  static final byte DELTA_FRAME = 1;
+
+  static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES;
+  static final int FRAME_HEADER_SIZE = Byte.BYTES + Long.BYTES + Integer.BYTES;
+
+  static final int KEY_FRAME_INTERVAL = 300;
+
+  // a generous upper bound of zlib's deflateBound, even incompressible frames stay below it
+  static int maxCompressedSize(final int frameSize) {
+    return frameSize + (frameSize >> 3) + (frameSize >> 6) + 64;
+  }
+
+  private DitheredFrameFormat() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.media.cache;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+
+/**
+ * Writes dithered palette-index frames into a compact cache file. Frames are written into a
+ * temporary file which only replaces the target once {@link #commit()} is called, so a cache is
+ * never observed half written. Closing a writer that was not committed deletes the temporary file.
+ */
+public final class DitheredFrameWriter implements Closeable {
+
+  private final Path target;
+  private final Path temporary;
+  private final DataOutputStream output;
+  private final int frameSize;
+  private final byte[] previous;
+  private final byte[] delta;
+  private final Deflater deflater;
+
+  private byte[] compressed;
+  private int frameCount;
+  private boolean committed;
+
+  private DitheredFrameWriter(final Path target, final int width, final int height) throws IOException {
+    Preconditions.checkArgument(width > 0, "Width must be positive");
+    Preconditions.checkArgument(height > 0, "Height must be positive");
+    final Path parent = target.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    final String name = String.format("%s.tmp", target.getFileName());
+    this.target = target;
+    this.temporary = target.resolveSibling(name);
+    final OutputStream stream = Files.newOutputStream(this.temporary);
+    this.output = new DataOutputStream(new BufferedOutputStream(stream));
+    this.frameSize = width * height;
+    this.previous = new byte[this.frameSize];
+    this.delta = new byte[this.frameSize];
+    this.deflater = new Deflater(Deflater.BEST_SPEED);
+    this.compressed = new byte[this.frameSize];
+    this.output.writeInt(DitheredFrameFormat.MAGIC);
+    this.output.writeShort(DitheredFrameFormat.VERSION);
+    this.output.writeInt(width);
+    this.output.writeInt(height);
+  }
+
+  /**
+   * Creates a new writer for the given cache file.
+   *
+   * @param target the cache file to write
+   * @param width  the frame width in pixels
+   * @param height the frame height in pixels
+   * @return a new writer
+   * @throws IOException if the temporary file cannot be created
+   */
+  public static DitheredFrameWriter create(final Path target, final int width, final int height) throws IOException {
+    return new DitheredFrameWriter(target, width, height);
+  }
+
+  /**
+   * Appends a frame to the cache.
+   *
+   * @param frame          the dithered palette indices of the frame, of length width * height
+   * @param timestampNanos the presentation time of the frame relative to the first frame
+   * @throws IOException if the frame cannot be written
+   */
+  public void write(final byte[] frame, final long timestampNanos) throws IOException {
+    Preconditions.checkArgument(frame.length == this.frameSize, "Frame size does not match cache dimensions");
+    final boolean key = this.frameCount % DitheredFrameFormat.KEY_FRAME_INTERVAL == 0;
+    final byte[] payload;
+    if (key) {
+      payload = frame;
+    } else {
+      for (int i = 0; i < this.frameSize; i++) {
+        this.delta[i] = (byte) (frame[i] ^ this.previous[i]);
+      }
+      payload = this.delta;
+    }
+
+    final int length = this.deflate(payload);
+    this.output.writeByte(key ? DitheredFrameFormat.KEY_FRAME : DitheredFrameFormat.DELTA_FRAME);
+    this.output.writeLong(timestampNanos);
+    this.output.writeInt(length);
+    this.output.write(this.compressed, 0, length);
+
+    System.arraycopy(frame, 0, this.previous, 0, this.frameSize);
+    this.frameCount++;
+  }
+
+  private int deflate(final byte[] payload) {
+    this.deflater.reset();
+    this.deflater.setInput(payload, 0, this.frameSize);
+    this.deflater.finish();
+    int length = 0;
+    while (!this.deflater.finished()) {
+      if (length == this.compressed.length) {
+        final byte[] grown = new byte[this.compressed.length << 1];
+        System.arraycopy(this.compressed, 0, grown, 0, length);
+        this.compressed = grown;
+      }
+      length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+    }
+    return length;
+  }
+
+  /**
+   * Gets the amount of frames written so far.
+   *
+   * @return the frame count
+   */
+  public int getFrameCount() {
+    return this.frameCount;
+  }
+
+  /**
+   * Finishes the cache and moves it to its target location.
+   *
+   * @throws IOException if the cache cannot be flushed or moved
+   */
+  public void commit() throws IOException {
+    Preconditions.checkState(!this.committed, "Cache was already committed");
+    this.deflater.end();
+    this.output.close();
+    Files.move(this.temporary, this.target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    this.committed = true;
+  }
+
+  /**
+   * Closes the writer. Unless the cache was committed, the frames written so far are discarded and the
+   * target is left untouched.
+   *
+   * @throws IOException if the temporary file cannot be deleted
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.committed) {
+      return;
+    }
+    this.deflater.end();
+    try {
+      this.output.close();
+    } finally {
+      Files.deleteIfExists(this.temporary);
+    }
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.media.cache;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import me.brandonli.mcav.media.image.ImageBuffer;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
+import me.brandonli.mcav.utils.ffmpeg.FFmpegCommand;
+import me.brandonli.mcav.utils.ffmpeg.FFmpegTemplates;
+import me.brandonli.mcav.utils.runtime.CommandTask;
+
+/**
+ * Transcodes any media FFmpeg can read into a pre-resized, pre-dithered and delta compressed
+ * frame cache, plus an Opus audio track next to it. The resulting cache can be played back with
+ * {@link MappedDitheredFrameReader} without decoding or dithering anything at runtime.
+ */
+public final class DitheredVideoTranscoder {
+
+  private static final String AUDIO_EXTENSION = ".ogg";
+  private static final int MAX_ERROR_OUTPUT = 4096;
+
+  private final String input;
+  private final Path output;
+  private final int width;
+  private final int height;
+  private final int frameRate;
+  private final DitherAlgorithm algorithm;
+  private final boolean audio;
+
+  private DitheredVideoTranscoder(final Builder builder) {
+    this.input = builder.input;
+    this.output = builder.output;
+    this.width = builder.width;
+    this.height = builder.height;
+    this.frameRate = builder.frameRate;
+    this.algorithm = builder.algorithm;
+    this.audio = builder.audio;
+  }
+
+  /**
+   * Gets the path of the frame cache this transcoder writes.
+   *
+   * @return the frame cache path
+   */
+  public Path getVideoPath() {
+    return this.output;
+  }
+
+  /**
+   * Gets the path of the Opus audio track this transcoder writes, next to the frame cache.
+   *
+   * @return the audio track path
+   */
+  public Path getAudioPath() {
+    final String name = String.format("%s%s", this.output.getFileName(), AUDIO_EXTENSION);
+    return this.output.resolveSibling(name);
+  }
+
+  /**
+   * Runs the transcode, blocking until both the video and audio have been written.
+   *
+   * @return the amount of frames written
+   * @throws IOException if FFmpeg fails or the output cannot be written
+   */
+  public int transcode() throws IOException {
+    final int frames = this.transcodeVideo();
+    if (this.audio) {
+      this.transcodeAudio();
+    }
+    return frames;
+  }
+
+  private int transcodeVideo() throws IOException {
+    final FFmpegCommand command = FFmpegTemplates.decodeRawVideo(this.input, this.width, this.height, this.frameRate);
+    final String[] args = command.toCommandArray();
+    final ProcessBuilder builder = new ProcessBuilder(args);
+    final Process process = builder.start();
+    final StringBuilder errors = new StringBuilder();
+    final Thread errorReader = Thread.ofVirtual().start(() -> readErrors(process, errors));
+    final long frameNanos = TimeUnit.SECONDS.toNanos(1) / this.frameRate;
+    final byte[] raw = new byte[this.width * this.height * 3];
+    int index = 0;
+    try (
+      final InputStream stream = process.getInputStream();
+      final DataInputStream data = new DataInputStream(new BufferedInputStream(stream, raw.length));
+      final DitheredFrameWriter writer = DitheredFrameWriter.create(this.output, this.width, this.height)
+    ) {
+      while (this.readFrame(data, raw)) {
+        final ImageBuffer buffer = ImageBuffer.bytes(raw, this.width, this.height);
+        try {
+          final byte[] dithered = this.algorithm.ditherIntoBytes(buffer);
+          writer.write(dithered, index * frameNanos);
+        } finally {
+          buffer.release();
+        }
+        index++;
+      }
+
+      // the writer discards the cache on close unless it is committed here
+      final int exit = awaitExit(process, errorReader);
+      if (exit != 0) {
+        throw new IOException(String.format("FFmpeg exited with code %s while decoding video: %s", exit, errors));
+      }
+      if (index == 0) {
+        throw new IOException(String.format("FFmpeg did not decode any video frames: %s", errors));
+      }
+      writer.commit();
+    } finally {
+      process.destroy();
+    }
+    return index;
+  }
+
+  private static int awaitExit(final Process process, final Thread errorReader) throws IOException {
+    try {
+      final int exit = process.waitFor();
+      errorReader.join();
+      return exit;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for FFmpeg", e);
+    }
+  }
+
+  private static void readErrors(final Process process, final StringBuilder errors) {
+    try (final BufferedReader reader = process.errorReader()) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        errors.append(line).append(System.lineSeparator());
+        if (errors.length() > MAX_ERROR_OUTPUT) {
+          errors.delete(0, errors.length() - MAX_ERROR_OUTPUT);
+        }
+      }
+    } catch (final IOException ignored) {
+      // the stream is closed once the process is destroyed
+    }
+  }
+
+  private boolean readFrame(final DataInputStream data, final byte[] raw) throws IOException {
+    try {
+      data.readFully(raw);
+      return true;
+    } catch (final EOFException e) {
+      return false;
+    }
+  }
+
+  private void transcodeAudio() throws IOException {
+    final Path audioPath = this.getAudioPath();
+    final Path absolute = audioPath.toAbsolutePath();
+    final String path = absolute.toString();
+    final FFmpegCommand command = FFmpegTemplates.extractAudio(this.input, "libopus", path);
+    final CommandTask task = command.execute();
+    final Process process = task.getProcess();
+    final int exit = process.exitValue();
+    if (exit != 0) {
+      throw new IOException(String.format("FFmpeg exited with code %s while extracting audio", exit));
+    }
+  }
+
+  /**
+   * Creates a new transcoder builder.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder for {@link DitheredVideoTranscoder}.
+   */
+  public static final class Builder {
+
+    private String input;
+    private Path output;
+    private int width;
+    private int height;
+    private int frameRate;
+    private DitherAlgorithm algorithm;
+    private boolean audio;
+
+    private Builder() {
+      this.frameRate = 20;
+      this.audio = true;
+    }
+
+    /**
+     * Sets the input media, as a path or URL FFmpeg can read.
+     *
+     * @param input the input media
+     * @return the builder instance for chaining
+     */
+    public Builder input(final String input) {
+      this.input = input;
+      return this;
+    }
+
+    /**
+     * Sets the frame cache to write.
+     *
+     * @param output the frame cache path
+     * @return the builder instance for chaining
+     */
+    public Builder output(final Path output) {
+      this.output = output;
+      return this;
+    }
+
+    /**
+     * Sets the output resolution, which should match the resolution of the screen the cache is
+     * played on.
+     *
+     * @param width  the width in pixels
+     * @param height the height in pixels
+     * @return the builder instance for chaining
+     */
+    public Builder resolution(final int width, final int height) {
+      this.width = width;
+      this.height = height;
+      return this;
+    }
+
+    /**
+     * Sets the output frame rate. Defaults to 20, one frame per server tick.
+     *
+     * @param frameRate the frame rate
+     * @return the builder instance for chaining
+     */
+    public Builder frameRate(final int frameRate) {
+      this.frameRate = frameRate;
+      return this;
+    }
+
+    /**
+     * Sets the dither algorithm used to convert frames into palette indices.
+     *
+     * @param algorithm the dither algorithm
+     * @return the builder instance for chaining
+     */
+    public Builder algorithm(final DitherAlgorithm algorithm) {
+      this.algorithm = algorithm;
+      return this;
+    }
+
+    /**
+     * Sets whether an Opus audio track should be written next to the frame cache. Defaults to true.
+     *
+     * @param audio true to write the audio track
+     * @return the builder instance for chaining
+     */
+    public Builder audio(final boolean audio) {
+      this.audio = audio;
+      return this;
+    }
+
+    /**
+     * Builds the transcoder.
+     *
+     * @return a new transcoder
+     */
+    public DitheredVideoTranscoder build() {
+      Preconditions.checkNotNull(this.input);
+      Preconditions.checkNotNull(this.output);
+      Preconditions.checkNotNull(this.algorithm);
+      Preconditions.checkArgument(this.width > 0, "Width must be positive");
+      Preconditions.checkArgument(this.height > 0, "Height must be positive");
+      Preconditions.checkArgument(this.frameRate > 0, "Frame rate must be positive");
+      return new DitheredVideoTranscoder(this);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.media.cache;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A random access reader for dithered frame caches that memory maps the whole file. Compressed
+ * frames are inflated straight out of the mapping, so reading a frame does not copy the file
+ * contents onto the heap, and any frame can be sought to by decoding from its closest keyframe.
+ */
+public final class MappedDitheredFrameReader implements Closeable {
+
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+  private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+  private final Arena arena;
+  private final MemorySegment segment;
+  private final int width;
+  private final int height;
+  private final int frameSize;
+  private final long[] offsets;
+  private final long[] timestamps;
+  private final int[] keyFrames;
+  private final Inflater inflater;
+  private final byte[] delta;
+
+  private int lastIndex;
+
+  private MappedDitheredFrameReader(final Path path) throws IOException {
+    this.arena = Arena.ofShared();
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      this.segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), this.arena);
+    } catch (final IOException e) {
+      this.arena.close();
+      throw e;
+    }
+
+    final long size = this.segment.byteSize();
+    final boolean valid =
+      size >= DitheredFrameFormat.HEADER_SIZE &&
+      this.segment.get(INT, 0) == DitheredFrameFormat.MAGIC &&
+      this.segment.get(SHORT, Integer.BYTES) == DitheredFrameFormat.VERSION;
+    if (!valid) {
+      this.arena.close();
+      throw new IOException(String.format("%s is not a supported dithered frame cache", path));
+    }
+
+    this.width = this.segment.get(INT, Integer.BYTES + Short.BYTES);
+    this.height = this.segment.get(INT, Integer.BYTES * 2 + Short.BYTES);
+    if (this.width <= 0 || this.height <= 0 || (long) this.width * this.height > Integer.MAX_VALUE) {
+      this.arena.close();
+      throw new IOException(String.format("%s has invalid frame dimensions", path));
+    }
+    this.frameSize = this.width * this.height;
+
+    final int count;
+    try {
+      count = this.countFrames(path, size);
+    } catch (final IOException e) {
+      this.arena.close();
+      throw e;
+    }
+    this.offsets = new long[count];
+    this.timestamps = new long[count];
+    this.keyFrames = new int[count];
+    this.indexFrames();
+
+    this.inflater = new Inflater();
+    this.delta = new byte[this.frameSize];
+    this.lastIndex = -1;
+  }
+
+  /**
+   * Opens and indexes the given cache file.
+   *
+   * @param path the cache file to read
+   * @return a new reader
+   * @throws IOException if the file cannot be mapped or is not a dithered frame cache
+   */
+  public static MappedDitheredFrameReader open(final Path path) throws IOException {
+    return new MappedDitheredFrameReader(path);
+  }
+
+  private int countFrames(final Path path, final long size) throws IOException {
+    final int bound = DitheredFrameFormat.maxCompressedSize(this.frameSize);
+    int count = 0;
+    long offset = DitheredFrameFormat.HEADER_SIZE;
+    while (offset < size) {
+      if (offset + DitheredFrameFormat.FRAME_HEADER_SIZE > size) {
+        throw new IOException(String.format("Truncated frame header at offset %d in %s", offset, path));
+      }
+      final byte type = this.segment.get(ValueLayout.JAVA_BYTE, offset);
+      if (type != DitheredFrameFormat.KEY_FRAME && type != DitheredFrameFormat.DELTA_FRAME) {
+        throw new IOException(String.format("Unknown frame type %d at offset %d in %s", type, offset, path));
+      }
+      final int length = this.segment.get(INT, offset + Byte.BYTES + Long.BYTES);
+      if (length < 0 || length > bound) {
+        throw new IOException(String.format("Invalid frame length %d at offset %d in %s", length, offset, path));
+      }
+      offset += DitheredFrameFormat.FRAME_HEADER_SIZE + length;
+      if (offset > size) {
+        throw new IOException(String.format("Truncated frame at offset %d in %s", offset - length, path));
+      }
+      count++;
+    }
+    return count;
+  }
+
+  private void indexFrames() {
+    long offset = DitheredFrameFormat.HEADER_SIZE;
+    int key = 0;
+    for (int i = 0; i < this.offsets.length; i++) {
+      final byte type = this.segment.get(ValueLayout.JAVA_BYTE, offset);
+      if (type == DitheredFrameFormat.KEY_FRAME) {
+        key = i;
+      }
+      this.offsets[i] = offset;
+      this.timestamps[i] = this.segment.get(LONG, offset + Byte.BYTES);
+      this.keyFrames[i] = key;
+      final int length = this.segment.get(INT, offset + Byte.BYTES + Long.BYTES);
+      offset += DitheredFrameFormat.FRAME_HEADER_SIZE + length;
+    }
+  }
+
+  /**
+   * Gets the frame width in pixels.
+   *
+   * @return the frame width
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the frame height in pixels.
+   *
+   * @return the frame height
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the amount of frames in the cache.
+   *
+   * @return the frame count
+   */
+  public int getFrameCount() {
+    return this.offsets.length;
+  }
+
+  /**
+   * Gets the timestamp of the given frame.
+   *
+   * @param index the frame index
+   * @return the timestamp in nanoseconds relative to the first frame
+   */
+  public long getTimestamp(final int index) {
+    return this.timestamps[index];
+  }
+
+  /**
+   * Reads the given frame into the buffer. Reading frames in ascending order only decodes each
+   * frame once, any other access decodes from the closest preceding keyframe. The buffer must
+   * not be modified between sequential reads.
+   *
+   * @param index the frame index
+   * @param frame the buffer of length width * height to read into
+   * @throws IOException if the frame is corrupt
+   */
+  public void read(final int index, final byte[] frame) throws IOException {
+    Preconditions.checkArgument(frame.length == this.frameSize, "Frame size does not match cache dimensions");
+    Preconditions.checkElementIndex(index, this.offsets.length);
+    final boolean sequential = index == this.lastIndex + 1 && this.lastIndex >= 0;
+    final int start = sequential ? index : this.keyFrames[index];
+    for (int i = start; i <= index; i++) {
+      this.decode(i, frame);
+    }
+    this.lastIndex = index;
+  }
+
+  private void decode(final int index, final byte[] frame) throws IOException {
+    final long offset = this.offsets[index];
+    final byte type = this.segment.get(ValueLayout.JAVA_BYTE, offset);
+    final int length = this.segment.get(INT, offset + Byte.BYTES + Long.BYTES);
+    final MemorySegment payload = this.segment.asSlice(offset + DitheredFrameFormat.FRAME_HEADER_SIZE, length);
+    final ByteBuffer input = payload.asByteBuffer();
+    if (type == DitheredFrameFormat.KEY_FRAME) {
+      this.inflate(input, frame);
+      return;
+    }
+
+    this.inflate(input, this.delta);
+    for (int i = 0; i < this.frameSize; i++) {
+      frame[i] ^= this.delta[i];
+    }
+  }
+
+  private void inflate(final ByteBuffer input, final byte[] into) throws IOException {
+    this.inflater.reset();
+    this.inflater.setInput(input);
+    try {
+      int read = 0;
+      while (read < this.frameSize) {
+        final int inflated = this.inflater.inflate(into, read, this.frameSize - read);
+        // without progress the data is truncated or corrupt, inflating again would never return anything
+        if (inflated == 0 && (this.inflater.finished() || this.inflater.needsInput() || this.inflater.needsDictionary())) {
+          break;
+        }
+        read += inflated;
+      }
+      if (read != this.frameSize) {
+        throw new IOException(String.format("Corrupt frame, inflated %d of %d bytes", read, this.frameSize));
+      }
+    } catch (final DataFormatException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    this.inflater.end();
+    this.arena.close();
+  }
+}
@@ -18,12 +18,15 @@
 package me.brandonli.mcav.media.player.multimedia.cv;
 
 import static java.util.Objects.requireNonNull;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_unref;
+import static org.bytedeco.ffmpeg.global.avutil.AVMEDIA_TYPE_AUDIO;
 import static org.bytedeco.ffmpeg.global.avutil.AV_PIX_FMT_BGR24;
 import static org.bytedeco.ffmpeg.global.avutil.AV_SAMPLE_FMT_S16;
 import static org.bytedeco.ffmpeg.global.swscale.SWS_POINT;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -47,14 +50,25 @@ import me.brandonli.mcav.media.source.Source;
 import me.brandonli.mcav.media.source.ffmpeg.FFmpegDirectSource;
 import me.brandonli.mcav.utils.ExecutorUtils;
 import me.brandonli.mcav.utils.LockUtils;
+import me.brandonli.mcav.utils.audio.OpusRepacketizer;
 import me.brandonli.mcav.utils.immutable.Dimension;
 import me.brandonli.mcav.utils.natives.ByteUtils;
+import org.bytedeco.ffmpeg.avcodec.AVCodecParameters;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avformat.AVFormatContext;
+import org.bytedeco.ffmpeg.avformat.AVStream;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.Frame;
 import org.bytedeco.javacv.FrameGrabber;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Abstract implementation of a video player that uses JavaCV for multimedia processing.
+ *
+ * <p>When the audio comes from a separate Opus source and every filter of the audio pipeline accepts Opus, the
+ * demuxed packets are re-packetized to 20 ms and forwarded as they are, without decoding them. Sources with frames
+ * longer than 20 ms cannot be re-packetized, so they fall back to decoding once the first such packet is seen.
  */
 public abstract class AbstractVideoPlayerCV implements VideoPlayerCV {
 
@@ -64,6 +78,9 @@ public abstract class AbstractVideoPlayerCV implements VideoPlayerCV {
   private static final long RESYNC_THRESHOLD_NS = 100_000_000L;
   private static final long SPIN_THRESHOLD_NS = 1_000_000L;
   private static final int MAX_CONSECUTIVE_DROPS = 10;
+  private static final long OPUS_FRAME_US = 20_000L;
+  private static final long OPUS_LEAD_NS = 100_000_000L;
+  private static final long AUDIO_SOURCE_TIMEOUT_MS = 5_000L;
 
   private final DimensionAttachableCallback dimensionCallback;
   private final VideoAttachableCallback videoCallback;
@@ -255,8 +272,11 @@ public abstract class AbstractVideoPlayerCV implements VideoPlayerCV {
     final ExecutorService audioSourceThread = Executors.newSingleThreadExecutor();
     audioSourceThread.submit(() -> {
       try {
+        if (this.canPassthroughOpus(audioGrabber) && this.passthroughOpus((FFmpegFrameGrabber) audioGrabber, audioMeta)) {
+          return;
+        }
         Frame audioFrame;
-        while ((audioFrame = audioGrabber.grab()) != null && this.running.get()) {
+        while (this.isAudioSourceRunning() && (audioFrame = audioGrabber.grab()) != null) {
           if (audioFrame.samples != null) {
             final Buffer samplesCopy = copyBuffer(audioFrame.samples[0]);
             final long pts = audioFrame.timestamp;
@@ -271,22 +291,116 @@ public abstract class AbstractVideoPlayerCV implements VideoPlayerCV {
       }
     });
 
-    Frame videoFrame;
-    while ((videoFrame = videoGrabber.grab()) != null && this.running.get()) {
-      if (videoFrame.image != null && this.videoCallback.isAttached()) {
-        this.awaitVideoQueueCapacity(videoExec);
-        if (!this.running.get()) {
-          break;
+    try {
+      Frame videoFrame;
+      while ((videoFrame = videoGrabber.grab()) != null && this.running.get()) {
+        if (videoFrame.image != null && this.videoCallback.isAttached()) {
+          this.awaitVideoQueueCapacity(videoExec);
+          if (!this.running.get()) {
+            break;
+          }
+          final ByteBuffer imageCopy = copyByteBuffer((ByteBuffer) videoFrame.image[0]);
+          final int w = videoFrame.imageWidth;
+          final int h = videoFrame.imageHeight;
+          final long pts = videoFrame.timestamp;
+          videoExec.submit(() -> this.processVideoFrame(imageCopy, w, h, pts, videoMeta));
+        }
+      }
+    } finally {
+      // the audio grabber is closed once this returns, so its thread has to be done with it
+      audioSourceThread.shutdownNow();
+      awaitAudioSource(audioSourceThread);
+    }
+  }
+
+  private static void awaitAudioSource(final ExecutorService audioSourceThread) {
+    try {
+      audioSourceThread.awaitTermination(AUDIO_SOURCE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      final Thread current = Thread.currentThread();
+      current.interrupt();
+    }
+  }
+
+  private boolean isAudioSourceRunning() {
+    final Thread current = Thread.currentThread();
+    return this.running.get() && !current.isInterrupted();
+  }
+
+  // every sink of the pipeline has to take opus, otherwise the ones that need samples would go silent
+  private boolean canPassthroughOpus(final FrameGrabber grabber) {
+    if (!(grabber instanceof FFmpegFrameGrabber) || !"opus".equals(grabber.getAudioCodecName())) {
+      return false;
+    }
+    if (!this.audioCallback.isAttached()) {
+      return false;
+    }
+    AudioPipelineStep step = this.audioCallback.retrieve();
+    while (step != null) {
+      if (!step.acceptsOpus()) {
+        return false;
+      }
+      step = step.next();
+    }
+    return true;
+  }
+
+  // demuxed packets skip decoding entirely, and are paced here since nothing downstream waits on a decoder, returns
+  // false once a packet has frames longer than 20 ms, which leaves the rest of the source to the decoding path
+  private boolean passthroughOpus(final FFmpegFrameGrabber grabber, final OriginalAudioMetadata meta) throws FrameGrabber.Exception {
+    final AVFormatContext context = grabber.getFormatContext();
+    final AtomicLong emittedUs = new AtomicLong();
+    final long startNs = System.nanoTime();
+    final OpusRepacketizer repacketizer = new OpusRepacketizer(packet -> {
+      // frames flushed early by a configuration change are shorter than 20 ms, so the clock follows their real duration
+      final long durationUs = OpusRepacketizer.duration(packet);
+      final long ptsUs = emittedUs.getAndAdd(durationUs > 0 ? durationUs : OPUS_FRAME_US);
+      this.awaitDeadline(startNs + ptsUs * 1_000L - OPUS_LEAD_NS);
+      this.processOpusPacket(packet, ptsUs, meta);
+    });
+
+    AVPacket packet;
+    while (this.isAudioSourceRunning() && (packet = grabber.grabPacket()) != null) {
+      try {
+        final int size = packet.size();
+        final AVStream stream = context.streams(packet.stream_index());
+        final AVCodecParameters parameters = stream.codecpar();
+        if (size <= 0 || parameters.codec_type() != AVMEDIA_TYPE_AUDIO) {
+          continue;
+        }
+        final BytePointer data = packet.data();
+        final ByteBuffer view = data.capacity(size).asByteBuffer();
+        if (!repacketizer.push(view)) {
+          return false;
         }
-        final ByteBuffer imageCopy = copyByteBuffer((ByteBuffer) videoFrame.image[0]);
-        final int w = videoFrame.imageWidth;
-        final int h = videoFrame.imageHeight;
-        final long pts = videoFrame.timestamp;
-        videoExec.submit(() -> this.processVideoFrame(imageCopy, w, h, pts, videoMeta));
+      } finally {
+        av_packet_unref(packet);
       }
     }
+    return true;
+  }
+
+  private void awaitDeadline(final long deadlineNs) {
+    long remaining;
+    while ((remaining = deadlineNs - System.nanoTime()) > 0 && this.isAudioSourceRunning()) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
 
-    audioSourceThread.shutdownNow();
+  private void processOpusPacket(final ByteBuffer packet, final long ptsUs, final OriginalAudioMetadata meta) {
+    try {
+      this.audioPlaybackPtsUs.set(ptsUs);
+      AudioPipelineStep step = this.audioCallback.retrieve();
+      while (step != null) {
+        step.processOpus(packet, meta);
+        step = step.next();
+      }
+    } catch (final Throwable e) {
+      final String raw = e.getMessage();
+      final Class<?> clazz = e.getClass();
+      final String msg = raw != null ? raw : clazz.getName();
+      this.exceptionHandler.accept(msg, e);
+    }
   }
 
   private void playbackCombinedSource(
@@ -588,10 +702,10 @@ public abstract class AbstractVideoPlayerCV implements VideoPlayerCV {
 
   private static Buffer copyBuffer(final Buffer buffer) {
     if (buffer instanceof final ShortBuffer shortBuffer) {
+      // one bulk copy straight into little-endian bytes, which the audio thread then passes on without copying
       shortBuffer.rewind();
-      final ShortBuffer copy = ShortBuffer.allocate(shortBuffer.remaining());
-      copy.put(shortBuffer);
-      copy.flip();
+      final ByteBuffer copy = ByteBuffer.allocate(shortBuffer.remaining() << 1).order(ByteOrder.LITTLE_ENDIAN);
+      copy.asShortBuffer().put(shortBuffer);
       return copy;
     } else if (buffer instanceof final ByteBuffer byteBuffer) {
       return copyByteBuffer(byteBuffer);
@@ -463,9 +463,12 @@ public final class VLCPlayer implements VideoPlayerMultiplexer {
       if (resampler == null) {
         return;
       }
+      // the native samples go straight into the resampler, only its output is copied for the executor
       final int bufferSize = sampleCount * BLOCK_SIZE;
-      final byte[] bytes = samples.getByteArray(0, bufferSize);
-      final byte[] resampled = resampler.resample(bytes);
+      final ByteBuffer input = samples.getByteBuffer(0, bufferSize);
+      final ByteBuffer output = resampler.resample(input);
+      final byte[] resampled = new byte[output.remaining()];
+      output.get(resampled);
       try {
         executor.submit(() -> {
           try {
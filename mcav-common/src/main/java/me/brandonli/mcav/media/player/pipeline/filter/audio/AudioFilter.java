@@ -23,6 +23,11 @@ import me.brandonli.mcav.media.player.pipeline.filter.Filter;
 
 /**
  * Represents a functional interface for applying audio-specific filters within an audio processing pipeline.
+ *
+ * <p>Samples are 48 kHz signed 16-bit stereo, and the buffer declares little-endian order. The same buffer is
+ * passed to every filter of a pipeline, so filters should read it without moving its position, for example through
+ * {@link me.brandonli.mcav.utils.natives.ByteUtils#asShortView(ByteBuffer)}, and only convert it when they need
+ * another byte order.
  */
 @FunctionalInterface
 public interface AudioFilter extends Filter<ByteBuffer, OriginalAudioMetadata> {}
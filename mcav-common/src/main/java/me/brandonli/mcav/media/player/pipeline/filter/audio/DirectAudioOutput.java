@@ -24,18 +24,22 @@ import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
 
 /**
  * Streams audio samples directly to the system's default audio output device.
+ *
+ * <p>Heap buffers are written to the line straight from their backing array, and other buffers go through one
+ * reused array, so no samples are copied or allocated per frame for the common case.
  */
 public class DirectAudioOutput implements FunctionalAudioFilter {
 
   private static final AudioFormat AUDIO_FORMAT = new AudioFormat(48000, 16, 2, true, false);
 
   private SourceDataLine line;
+  private byte[] scratch;
 
   /**
    * Constructs a new {@link DirectAudioOutput} instance.
    */
   public DirectAudioOutput() {
-    // no-op
+    this.scratch = new byte[0];
   }
 
   /**
@@ -46,9 +50,18 @@ public class DirectAudioOutput implements FunctionalAudioFilter {
     if (this.line == null) {
       throw new PlayerException("Audio line is not open!");
     }
-    final byte[] data = new byte[samples.remaining()];
-    samples.get(data);
-    this.line.write(data, 0, data.length);
+    final int length = samples.remaining();
+    if (samples.hasArray()) {
+      final byte[] array = samples.array();
+      final int offset = samples.arrayOffset() + samples.position();
+      this.line.write(array, offset, length);
+      return true;
+    }
+    if (this.scratch.length < length) {
+      this.scratch = new byte[length];
+    }
+    samples.get(samples.position(), this.scratch, 0, length);
+    this.line.write(this.scratch, 0, length);
     return true;
   }
 
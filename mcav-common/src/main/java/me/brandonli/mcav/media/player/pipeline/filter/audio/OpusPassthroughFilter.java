@@ -0,0 +1,47 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.media.player.pipeline.filter.audio;
+
+import java.nio.ByteBuffer;
+import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
+
+/**
+ * An audio filter that can also take Opus packets as they were demuxed from the source. When every filter of an
+ * audio pipeline accepts Opus and the source audio is Opus, players skip decoding and forward the packets
+ * instead, so sinks that would encode to Opus again don't have to.
+ */
+public interface OpusPassthroughFilter extends AudioFilter {
+  /**
+   * Checks whether this filter currently takes Opus packets instead of samples.
+   *
+   * @return true if Opus packets can be passed to this filter
+   */
+  default boolean acceptsOpus() {
+    return true;
+  }
+
+  /**
+   * Applies an Opus packet holding exactly 20 ms of 48 kHz audio. The packet is only valid for the duration of
+   * the call and must not be moved.
+   *
+   * @param packet   the Opus packet, from its position to its limit
+   * @param metadata the metadata of the source audio
+   * @return true if the packet was accepted
+   */
+  boolean applyOpusPacket(final ByteBuffer packet, final OriginalAudioMetadata metadata);
+}
@@ -17,7 +17,6 @@
  */
 package me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.error;
 
-import java.nio.ByteBuffer;
 import java.util.Map;
 import me.brandonli.mcav.media.image.ImageBuffer;
 import me.brandonli.mcav.media.player.pipeline.filter.video.dither.DitherUtils;
@@ -208,14 +207,27 @@ public final class FilterLiteDither extends ErrorDiffusionDither {
     //      final int[] buffer = image.getAllPixels();
     //      return this.ditherNatively(buffer, width, colors, mapColors);
     //    }
-    final DitherPalette palette = this.getPalette();
     final int[] buffer = image.getPixels();
     final int width = image.getWidth();
-    final int height = image.getHeight();
+    final byte[] data = new byte[buffer.length];
+    this.ditherIntoBytes(buffer, width, data);
+    return data;
+  }
+
+  /**
+   * Dithers the given RGB pixel buffer directly into palette indices, writing them into the provided output array.
+   * Unlike {@link #ditherIntoBytes(ImageBuffer)}, the caller owns the output array, so it can be reused across frames.
+   *
+   * @param buffer the RGB pixel buffer, which is left unmodified
+   * @param width  the width of the image
+   * @param out    the output array receiving one palette index per pixel, at least as long as {@code buffer}
+   */
+  public void ditherIntoBytes(final int[] buffer, final int width, final byte[] out) {
+    final DitherPalette palette = this.getPalette();
+    final int height = buffer.length / width;
     final int widthMinus = width - 1;
     final int heightMinus = height - 1;
     final int[][] ditherBuffer = new int[2][width << 2];
-    final ByteBuffer data = ByteBuffer.allocate(buffer.length);
     for (int y = 0; y < height; y++) {
       final boolean hasNextY = y < heightMinus;
       final int yIndex = y * width;
@@ -254,7 +266,7 @@ public final class FilterLiteDither extends ErrorDiffusionDither {
             buf2[bufferIndex - 2] = delta_g >> 2;
             buf2[bufferIndex - 1] = delta_b >> 2;
           }
-          data.put(index, DitherUtils.getBestColor(palette, r, g, b));
+          out[index] = DitherUtils.getBestColor(palette, r, g, b);
         }
       } else {
         int bufferIndex = width + (width << 1) - 1;
@@ -291,10 +303,9 @@ public final class FilterLiteDither extends ErrorDiffusionDither {
             buf2[bufferIndex + 2] = delta_g >> 2;
             buf2[bufferIndex + 1] = delta_r >> 2;
           }
-          data.put(index, DitherUtils.getBestColor(palette, r, g, b));
+          out[index] = DitherUtils.getBestColor(palette, r, g, b);
         }
       }
     }
-    return data.array();
   }
 }
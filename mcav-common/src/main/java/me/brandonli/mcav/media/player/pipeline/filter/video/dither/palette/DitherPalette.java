@@ -17,6 +17,7 @@
  */
 package me.brandonli.mcav.media.player.pipeline.filter.video.dither.palette;
 
+import com.google.common.base.Preconditions;
 import java.util.List;
 
 /**
@@ -62,6 +63,29 @@ public interface DitherPalette {
     return new ColorPalette(colors);
   }
 
+  /**
+   * Creates a palette that evenly samples the RGB cube with the given number of levels per channel. Small palettes
+   * make neighbouring pixels share colors far more often, which is useful for outputs whose size grows with the
+   * number of color changes, such as text based displays.
+   *
+   * @param levels the number of levels per channel, between 2 and 6 (8 to 216 colors)
+   * @return a {@code Palette} containing {@code levels^3} evenly spaced colors
+   */
+  static DitherPalette uniform(final int levels) {
+    Preconditions.checkArgument(levels >= 2 && levels <= 6, "Levels must be between 2 and 6");
+    final int step = 255 / (levels - 1);
+    final int[] colors = new int[levels * levels * levels];
+    int index = 0;
+    for (int r = 0; r < levels; r++) {
+      for (int g = 0; g < levels; g++) {
+        for (int b = 0; b < levels; b++) {
+          colors[index++] = ((r * step) << 16) | ((g * step) << 8) | (b * step);
+        }
+      }
+    }
+    return new ColorPalette(colors);
+  }
+
   /**
    * Retrieves the palette consisting of an array of colors.
    *
@@ -20,6 +20,7 @@ package me.brandonli.mcav.media.player.pipeline.step;
 import java.nio.ByteBuffer;
 import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
 import me.brandonli.mcav.media.player.pipeline.filter.audio.AudioFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.audio.OpusPassthroughFilter;
 
 /**
  * Represents a processing step in an audio pipeline.
@@ -48,6 +49,21 @@ public interface AudioPipelineStep extends PipelineStep<ByteBuffer, OriginalAudi
     return new AudioPipelineStepImpl(null, filter);
   }
 
+  /**
+   * Checks whether the filter of this step takes Opus packets, see {@link OpusPassthroughFilter}.
+   *
+   * @return true if Opus packets can be passed to this step
+   */
+  boolean acceptsOpus();
+
+  /**
+   * Processes an Opus packet holding exactly 20 ms of audio. Only called when {@link #acceptsOpus()} is true.
+   *
+   * @param packet   the Opus packet
+   * @param metadata the metadata of the source audio
+   */
+  void processOpus(final ByteBuffer packet, final OriginalAudioMetadata metadata);
+
   /**
    * A no-operation (no-op) implementation of {@link AudioPipelineStep}.
    */
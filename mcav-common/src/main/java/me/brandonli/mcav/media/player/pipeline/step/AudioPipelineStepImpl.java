@@ -20,6 +20,7 @@ package me.brandonli.mcav.media.player.pipeline.step;
 import java.nio.ByteBuffer;
 import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
 import me.brandonli.mcav.media.player.pipeline.filter.audio.AudioFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.audio.OpusPassthroughFilter;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -51,4 +52,22 @@ public final class AudioPipelineStepImpl implements AudioPipelineStep {
   public void process(final ByteBuffer buffer, final OriginalAudioMetadata metadata) {
     this.filter.applyFilter(buffer, metadata);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean acceptsOpus() {
+    return this.filter instanceof final OpusPassthroughFilter opus && opus.acceptsOpus();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void processOpus(final ByteBuffer packet, final OriginalAudioMetadata metadata) {
+    if (this.filter instanceof final OpusPassthroughFilter opus) {
+      opus.applyOpusPacket(packet, metadata);
+    }
+  }
 }
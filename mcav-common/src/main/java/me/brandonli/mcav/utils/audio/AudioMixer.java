@@ -0,0 +1,161 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.utils.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
+import me.brandonli.mcav.media.player.pipeline.step.AudioPipelineStep;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Mixes several audio sources, such as two players, into a single pipeline, such as one Discord channel.
+ *
+ * <p>Each source gets its own {@link MixerInput}, which is attached to its player like any other audio filter.
+ * The mixer runs on its own 20 ms clock, sums the next frame of every input with its gain, clips the result,
+ * and passes it down the output pipeline in one reused buffer. Inputs only play whole frames: each one waits
+ * for a short prebuffer before it starts, and an input without a full frame is treated as an underrun. It then
+ * contributes silence until it has buffered again, rather than a partial frame that would click.
+ *
+ * <pre><code>
+ *   final AudioMixer mixer = new AudioMixer(AudioPipelineStep.of(discordPlayer));
+ *   final MixerInput music = mixer.createInput();
+ *   final MixerInput voice = mixer.createInput();
+ *   voice.setGain(1.5f);
+ *   mixer.start();
+ *   ...
+ * </code></pre>
+ */
+public final class AudioMixer implements AutoCloseable {
+
+  /**
+   * The sample rate of mixed audio, matching the rest of the audio pipeline.
+   */
+  public static final int SAMPLE_RATE = 48000;
+
+  /**
+   * The channel count of mixed audio, matching the rest of the audio pipeline.
+   */
+  public static final int CHANNELS = 2;
+
+  private static final int FRAME_MILLIS = 20;
+  private static final int FRAME_SAMPLES = SAMPLE_RATE / 1000 * FRAME_MILLIS * CHANNELS;
+  private static final int INPUT_CAPACITY_SAMPLES = SAMPLE_RATE * CHANNELS;
+  private static final int INPUT_MAX_BUFFERED_SAMPLES = FRAME_SAMPLES * 10;
+  private static final int INPUT_PREBUFFER_SAMPLES = FRAME_SAMPLES * 3;
+
+  private final AudioPipelineStep output;
+  private final OriginalAudioMetadata metadata;
+  private final List<MixerInput> inputs;
+  private final int[] accumulator;
+  private final ByteBuffer frame;
+
+  private @Nullable ScheduledExecutorService executor;
+
+  /**
+   * Constructs an AudioMixer that passes mixed audio to the given pipeline.
+   *
+   * @param output the pipeline to pass mixed frames to
+   */
+  public AudioMixer(final AudioPipelineStep output) {
+    this.output = output;
+    this.metadata = OriginalAudioMetadata.of("pcm_s16le", SAMPLE_RATE * CHANNELS * 16, SAMPLE_RATE, CHANNELS, avutil.AV_SAMPLE_FMT_S16);
+    this.inputs = new CopyOnWriteArrayList<>();
+    this.accumulator = new int[FRAME_SAMPLES];
+    this.frame = ByteBuffer.allocateDirect(FRAME_SAMPLES * 2).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Creates a new input for this mixer.
+   *
+   * @return the new input, which should be attached to a player as an audio filter
+   */
+  public MixerInput createInput() {
+    final MixerInput input = new MixerInput(INPUT_CAPACITY_SAMPLES, INPUT_MAX_BUFFERED_SAMPLES, INPUT_PREBUFFER_SAMPLES);
+    this.inputs.add(input);
+    return input;
+  }
+
+  /**
+   * Removes an input from this mixer.
+   *
+   * @param input the input to remove
+   */
+  public void removeInput(final MixerInput input) {
+    this.inputs.remove(input);
+  }
+
+  /**
+   * Starts mixing on a dedicated thread.
+   */
+  public synchronized void start() {
+    if (this.executor != null) {
+      return;
+    }
+    final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread thread = new Thread(task, "mcav-audio-mixer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor = service;
+    service.scheduleAtFixedRate(this::mix, 0L, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private void mix() {
+    final int[] accumulator = this.accumulator;
+    Arrays.fill(accumulator, 0);
+    boolean mixed = false;
+    for (final MixerInput input : this.inputs) {
+      mixed |= input.mixInto(accumulator);
+    }
+    if (!mixed) {
+      return;
+    }
+
+    final ByteBuffer frame = this.frame;
+    for (int i = 0; i < accumulator.length; i++) {
+      SampleConverter.writeS16(frame, i << 1, SampleConverter.clampS16(accumulator[i]));
+    }
+
+    AudioPipelineStep current = this.output;
+    while (current != null) {
+      frame.clear();
+      current.process(frame, this.metadata);
+      current = current.next();
+    }
+  }
+
+  /**
+   * Stops mixing. Inputs keep buffering until they are detached from their players.
+   */
+  @Override
+  public synchronized void close() {
+    final ScheduledExecutorService service = this.executor;
+    if (service != null) {
+      service.shutdownNow();
+      this.executor = null;
+    }
+  }
+}
@@ -17,6 +17,8 @@
  */
 package me.brandonli.mcav.utils.audio;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
 import org.bytedeco.ffmpeg.avutil.AVChannelLayout;
 import org.bytedeco.ffmpeg.global.avutil;
@@ -24,9 +26,13 @@ import org.bytedeco.ffmpeg.global.swresample;
 import org.bytedeco.ffmpeg.swresample.SwrContext;
 import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.PointerPointer;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A utility class for resampling audio data using FFmpeg's libswresample.
+ *
+ * <p>The resampler keeps its native input and output buffers between calls and only grows them when a larger
+ * chunk arrives, so steady-state resampling does not allocate. An instance is not thread-safe.
  */
 public final class AudioResampler implements AutoCloseable {
 
@@ -40,6 +46,13 @@ public final class AudioResampler implements AutoCloseable {
   private final int outputChannels;
   private final int inputBytesPerSample;
   private final int outputBytesPerSample;
+  private final PointerPointer<BytePointer> inputPlanes;
+  private final PointerPointer<BytePointer> outputPlanes;
+
+  private @Nullable BytePointer inputBuffer;
+  private @Nullable ByteBuffer inputView;
+  private @Nullable BytePointer outputBuffer;
+  private @Nullable ByteBuffer outputView;
 
   /**
    * Constructs an AudioResampler with the specified input metadata and desired output format.
@@ -91,6 +104,8 @@ public final class AudioResampler implements AutoCloseable {
     this.outputBytesPerSample = avutil.av_get_bytes_per_sample(outputSampleFormat);
     this.inChLayout = new AVChannelLayout();
     this.outChLayout = new AVChannelLayout();
+    this.inputPlanes = new PointerPointer<>(1);
+    this.outputPlanes = new PointerPointer<>(1);
     avutil.av_channel_layout_default(this.inChLayout, inputChannels);
     avutil.av_channel_layout_default(this.outChLayout, outputChannels);
 
@@ -121,9 +136,22 @@ public final class AudioResampler implements AutoCloseable {
    * @param input the input audio data as a byte array, where the length should be a multiple of (inputBytesPerSample * inputChannels)
    * @return a byte array containing the resampled audio data, where the length will be a multiple of (outputBytesPerSample * outputChannels)
    */
-  @SuppressWarnings("all") // checker
   public byte[] resample(final byte[] input) {
-    final int inputSamples = input.length / (this.inputBytesPerSample * this.inputChannels);
+    final ByteBuffer resampled = this.resample(ByteBuffer.wrap(input));
+    final byte[] output = new byte[resampled.remaining()];
+    resampled.get(output);
+    return output;
+  }
+
+  /**
+   * Resamples the remaining bytes of the given buffer without moving its position. Direct buffers are passed
+   * to libswresample as-is, while heap buffers are staged in a reused native buffer.
+   * @param input the input audio data, where the remaining bytes should be a multiple of (inputBytesPerSample * inputChannels)
+   * @return a native-order view of the resampled audio data, which is only valid until the next call
+   */
+  public ByteBuffer resample(final ByteBuffer input) {
+    final int inputBytes = input.remaining();
+    final int inputSamples = inputBytes / (this.inputBytesPerSample * this.inputChannels);
     final long outputSamples = avutil.av_rescale_rnd(
       swresample.swr_get_delay(this.context, this.inputSampleRate) + inputSamples,
       this.outputSampleRate,
@@ -131,32 +159,53 @@ public final class AudioResampler implements AutoCloseable {
       avutil.AV_ROUND_UP
     );
     final int outputBufferSize = (int) outputSamples * this.outputBytesPerSample * this.outputChannels;
+    final ByteBuffer output = this.ensureOutput(outputBufferSize);
 
-    try (
-      final BytePointer inputPtr = new BytePointer(input);
-      final BytePointer outputPtr = new BytePointer(outputBufferSize);
-      final PointerPointer<BytePointer> outArgs = new PointerPointer<>(outputPtr);
-      final PointerPointer<BytePointer> inArgs = new PointerPointer<>(inputPtr)
-    ) {
-      BytePointer[] outPtrs = new BytePointer[] { outputPtr };
-      BytePointer[] inPtrs = new BytePointer[] { inputPtr };
-      int convertedSamples = swresample.swr_convert(
-        this.context,
-        new PointerPointer(outPtrs),
-        (int) outputSamples,
-        new PointerPointer(inPtrs),
-        inputSamples
-      );
-      if (convertedSamples < 0) {
-        throw new AssertionError("swr_convert failed: " + convertedSamples);
-      }
+    final BytePointer inputPointer = input.isDirect() ? new BytePointer(input.slice()) : this.stageInput(input, inputBytes);
+    this.inputPlanes.put(0, inputPointer);
+    this.outputPlanes.put(0, this.outputBuffer);
+    final int convertedSamples = swresample.swr_convert(
+      this.context,
+      this.outputPlanes,
+      (int) outputSamples,
+      this.inputPlanes,
+      inputSamples
+    );
+    if (convertedSamples < 0) {
+      throw new AssertionError("swr_convert failed: " + convertedSamples);
+    }
 
-      final int actualOutputSize = convertedSamples * this.outputBytesPerSample * this.outputChannels;
-      final byte[] output = new byte[actualOutputSize];
-      outputPtr.get(output);
+    final int actualOutputSize = convertedSamples * this.outputBytesPerSample * this.outputChannels;
+    output.clear();
+    output.limit(actualOutputSize);
+    return output;
+  }
+
+  @SuppressWarnings("all") // checker
+  private BytePointer stageInput(final ByteBuffer input, final int size) {
+    if (this.inputBuffer == null || this.inputBuffer.capacity() < size) {
+      if (this.inputBuffer != null) {
+        this.inputBuffer.close();
+      }
+      this.inputBuffer = new BytePointer(size);
+      this.inputView = this.inputBuffer.capacity(size).asByteBuffer();
+    }
+    final ByteBuffer view = this.inputView;
+    view.clear();
+    view.put(input.duplicate());
+    return this.inputBuffer;
+  }
 
-      return output;
+  @SuppressWarnings("all") // checker
+  private ByteBuffer ensureOutput(final int size) {
+    if (this.outputBuffer == null || this.outputBuffer.capacity() < size) {
+      if (this.outputBuffer != null) {
+        this.outputBuffer.close();
+      }
+      this.outputBuffer = new BytePointer(size);
+      this.outputView = this.outputBuffer.capacity(size).asByteBuffer().order(ByteOrder.nativeOrder());
     }
+    return this.outputView;
   }
 
   /**
@@ -164,6 +213,14 @@ public final class AudioResampler implements AutoCloseable {
    */
   @Override
   public void close() {
+    if (this.inputBuffer != null) {
+      this.inputBuffer.close();
+    }
+    if (this.outputBuffer != null) {
+      this.outputBuffer.close();
+    }
+    this.inputPlanes.close();
+    this.outputPlanes.close();
     swresample.swr_free(this.context);
     avutil.av_channel_layout_uninit(this.inChLayout);
     avutil.av_channel_layout_uninit(this.outChLayout);
@@ -0,0 +1,131 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.utils.audio;
+
+import com.google.common.base.Preconditions;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
+import me.brandonli.mcav.media.player.pipeline.filter.audio.AudioFilter;
+import me.brandonli.mcav.utils.natives.ByteUtils;
+
+/**
+ * An input of an {@link AudioMixer}. Attach it as an audio filter to the pipeline of a player, and the samples
+ * it receives are buffered until the mixer pulls its next frame. Samples are expected in the pipeline format,
+ * 48 kHz signed 16-bit little-endian stereo.
+ *
+ * <p>The buffer is a single-producer single-consumer ring, so the player thread and the mixer never lock. When
+ * the player runs ahead of the mixer clock, the oldest whole frames are skipped to keep latency bounded. When
+ * it falls behind, the input underruns and waits for its prebuffer to fill again before it is mixed.
+ */
+public final class MixerInput implements AudioFilter {
+
+  private final short[] ring;
+  private final int mask;
+  private final int maxBufferedSamples;
+  private final int prebufferSamples;
+  private final AtomicLong writeIndex;
+  private final AtomicLong readIndex;
+
+  private volatile float gain;
+  private boolean buffering;
+
+  MixerInput(final int capacitySamples, final int maxBufferedSamples, final int prebufferSamples) {
+    final int capacity = Integer.highestOneBit(capacitySamples - 1) << 1;
+    this.ring = new short[capacity];
+    this.mask = capacity - 1;
+    this.maxBufferedSamples = Math.min(maxBufferedSamples, capacity);
+    this.prebufferSamples = Math.min(prebufferSamples, this.maxBufferedSamples);
+    this.writeIndex = new AtomicLong();
+    this.readIndex = new AtomicLong();
+    this.gain = 1.0f;
+    this.buffering = true;
+  }
+
+  /**
+   * Sets the gain applied to this input when it is mixed.
+   *
+   * @param gain the linear gain, where 1 leaves the samples unchanged
+   */
+  public void setGain(final float gain) {
+    Preconditions.checkArgument(gain >= 0, "Gain must not be negative");
+    this.gain = gain;
+  }
+
+  /**
+   * Gets the gain applied to this input when it is mixed.
+   *
+   * @return the linear gain
+   */
+  public float getGain() {
+    return this.gain;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean applyFilter(final ByteBuffer samples, final OriginalAudioMetadata metadata) {
+    final long write = this.writeIndex.get();
+    final long free = this.ring.length - (write - this.readIndex.get());
+    final ShortBuffer view = ByteUtils.asShortView(samples);
+    // keep whole sample frames so a full ring never shifts the channels
+    final int available = (int) Math.min(view.capacity(), free);
+    final int count = available - available % AudioMixer.CHANNELS;
+    final int start = (int) (write & this.mask);
+    final int head = Math.min(count, this.ring.length - start);
+    view.get(0, this.ring, start, head);
+    view.get(head, this.ring, 0, count - head);
+    this.writeIndex.lazySet(write + count);
+    return true;
+  }
+
+  /**
+   * Adds the next full frame of this input to the accumulator. Only called by the mixer, which is the only
+   * thread touching the buffering state.
+   *
+   * @param accumulator the interleaved accumulator, exactly one frame long
+   * @return false if this input is prebuffering or underran, and contributed nothing
+   */
+  boolean mixInto(final int[] accumulator) {
+    final int frame = accumulator.length;
+    long read = this.readIndex.get();
+    final long available = this.writeIndex.get() - read;
+    if (this.buffering) {
+      if (available < this.prebufferSamples) {
+        return false;
+      }
+      this.buffering = false;
+    }
+    if (available < frame) {
+      this.buffering = true;
+      return false;
+    }
+    if (available > this.maxBufferedSamples) {
+      final long excess = available - this.maxBufferedSamples;
+      read += (excess + frame - 1) / frame * frame;
+    }
+    final float gain = this.gain;
+    for (int i = 0; i < frame; i++) {
+      accumulator[i] += (int) (this.ring[(int) ((read + i) & this.mask)] * gain);
+    }
+    this.readIndex.lazySet(read + frame);
+    return true;
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.utils.audio;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Re-packetizes demuxed Opus packets into packets of exactly 20 ms, which is what voice sinks such as Discord
+ * and Simple Voice Chat send, without decoding the audio.
+ *
+ * <p>Packets are split into their frames following the framing of RFC 6716, section 3. Frames of 20 ms become
+ * packets of their own, and shorter frames with the same configuration are combined into one packet until they
+ * add up to 20 ms. Frames longer than 20 ms cannot be split without decoding, so their packets are rejected and
+ * the caller has to decode them instead. Malformed packets are skipped.
+ *
+ * <p>Emitted packets are written into one reused buffer that is only valid during the callback.
+ */
+public final class OpusRepacketizer {
+
+  // durations are counted in units of 2.5 ms, the shortest Opus frame
+  private static final int UNIT_US = 2500;
+  private static final int TARGET_UNITS = 8;
+  private static final int MAX_FRAMES_PER_PACKET = 48;
+  private static final int MAX_FRAME_SIZE = 1275;
+  private static final int MAX_PACKET_SIZE = 2 + 2 * (TARGET_UNITS - 1) + TARGET_UNITS * MAX_FRAME_SIZE;
+  private static final int NO_CONFIGURATION = -1;
+
+  private final Consumer<ByteBuffer> output;
+  private final int[] frameOffsets;
+  private final int[] frameLengths;
+  private final byte[] pendingData;
+  private final int[] pendingLengths;
+  private final byte[] packet;
+  private final ByteBuffer packetView;
+
+  private int cursor;
+  private int pendingConfiguration;
+  private int pendingFrames;
+  private int pendingSize;
+  private int pendingUnits;
+  private long malformedPackets;
+
+  /**
+   * Constructs an OpusRepacketizer.
+   *
+   * @param output the consumer of every 20 ms packet
+   */
+  public OpusRepacketizer(final Consumer<ByteBuffer> output) {
+    this.output = output;
+    this.frameOffsets = new int[MAX_FRAMES_PER_PACKET];
+    this.frameLengths = new int[MAX_FRAMES_PER_PACKET];
+    this.pendingData = new byte[TARGET_UNITS * MAX_FRAME_SIZE];
+    this.pendingLengths = new int[TARGET_UNITS];
+    this.packet = new byte[MAX_PACKET_SIZE];
+    this.packetView = ByteBuffer.wrap(this.packet);
+    this.pendingConfiguration = NO_CONFIGURATION;
+  }
+
+  /**
+   * Adds a demuxed Opus packet, emitting every completed 20 ms packet.
+   *
+   * @param source the packet, from its position to its limit, which is read without moving the position
+   * @return false if the packet has frames longer than 20 ms and was not emitted, true otherwise
+   */
+  public boolean push(final ByteBuffer source) {
+    final int base = source.position();
+    final int count = this.parse(source, base, source.remaining());
+    if (count < 0) {
+      this.malformedPackets++;
+      return true;
+    }
+
+    for (int i = 0; i < count; i++) {
+      if (this.frameLengths[i] > MAX_FRAME_SIZE) {
+        this.malformedPackets++;
+        return true;
+      }
+    }
+
+    final int toc = source.get(base) & 0xFF;
+    final int configuration = toc & 0xFC;
+    final int units = frameUnits(toc);
+    if (units > TARGET_UNITS) {
+      this.flush();
+      return false;
+    }
+
+    for (int i = 0; i < count; i++) {
+      if (this.pendingFrames > 0 && this.pendingConfiguration != configuration) {
+        this.flush();
+      }
+      this.pendingConfiguration = configuration;
+      source.get(this.frameOffsets[i], this.pendingData, this.pendingSize, this.frameLengths[i]);
+      this.pendingLengths[this.pendingFrames++] = this.frameLengths[i];
+      this.pendingSize += this.frameLengths[i];
+      this.pendingUnits += units;
+      if (this.pendingUnits >= TARGET_UNITS) {
+        this.flush();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the duration of an Opus packet from its table of contents, without parsing its frames.
+   *
+   * @param packet the packet, from its position to its limit, which is read without moving the position
+   * @return the duration in microseconds, or -1 if the packet is too short to tell
+   */
+  public static long duration(final ByteBuffer packet) {
+    final int base = packet.position();
+    final int length = packet.remaining();
+    if (length < 1) {
+      return -1;
+    }
+    final int toc = packet.get(base) & 0xFF;
+    final int count;
+    switch (toc & 3) {
+      case 0 -> count = 1;
+      case 1, 2 -> count = 2;
+      default -> {
+        if (length < 2) {
+          return -1;
+        }
+        count = packet.get(base + 1) & 0x3F;
+      }
+    }
+    return (long) count * frameUnits(toc) * UNIT_US;
+  }
+
+  /**
+   * Drops any frames waiting to be combined, for example after seeking.
+   */
+  public void reset() {
+    this.pendingConfiguration = NO_CONFIGURATION;
+    this.pendingFrames = 0;
+    this.pendingSize = 0;
+    this.pendingUnits = 0;
+  }
+
+  /**
+   * Gets the amount of packets that were skipped because they could not be parsed.
+   *
+   * @return the amount of malformed packets
+   */
+  public long getMalformedPackets() {
+    return this.malformedPackets;
+  }
+
+  private void flush() {
+    final int frames = this.pendingFrames;
+    if (frames == 0) {
+      return;
+    }
+    final byte[] packet = this.packet;
+    int position;
+    if (frames == 1) {
+      packet[0] = (byte) this.pendingConfiguration;
+      position = 1;
+    } else {
+      // code 3 with variable frame sizes, the size of every frame but the last is written up front
+      packet[0] = (byte) (this.pendingConfiguration | 3);
+      packet[1] = (byte) (0x80 | frames);
+      position = 2;
+      for (int i = 0; i < frames - 1; i++) {
+        position = writeLength(packet, position, this.pendingLengths[i]);
+      }
+    }
+    System.arraycopy(this.pendingData, 0, packet, position, this.pendingSize);
+    final ByteBuffer view = this.packetView;
+    view.clear();
+    view.limit(position + this.pendingSize);
+    this.reset();
+    this.output.accept(view);
+  }
+
+  // fills the frame offsets and lengths, returning the amount of frames or -1 for a malformed packet
+  private int parse(final ByteBuffer source, final int base, final int length) {
+    if (length < 1) {
+      return -1;
+    }
+    final int toc = source.get(base) & 0xFF;
+    int end = base + length;
+    this.cursor = base + 1;
+    switch (toc & 3) {
+      case 0 -> {
+        return this.frames(1, end - this.cursor, end);
+      }
+      case 1 -> {
+        final int size = end - this.cursor;
+        if ((size & 1) != 0) {
+          return -1;
+        }
+        return this.frames(2, size >> 1, end);
+      }
+      case 2 -> {
+        final int first = this.readLength(source, end);
+        if (first < 0 || this.cursor + first > end) {
+          return -1;
+        }
+        this.frameOffsets[0] = this.cursor;
+        this.frameLengths[0] = first;
+        this.frameOffsets[1] = this.cursor + first;
+        this.frameLengths[1] = end - this.cursor - first;
+        return 2;
+      }
+      default -> {
+        if (this.cursor >= end) {
+          return -1;
+        }
+        final int header = source.get(this.cursor++) & 0xFF;
+        final boolean variable = (header & 0x80) != 0;
+        final int count = header & 0x3F;
+        if (count == 0 || count > MAX_FRAMES_PER_PACKET) {
+          return -1;
+        }
+        if ((header & 0x40) != 0) {
+          int padding = 0;
+          int value;
+          do {
+            if (this.cursor >= end) {
+              return -1;
+            }
+            value = source.get(this.cursor++) & 0xFF;
+            padding += value == 255 ? 254 : value;
+          } while (value == 255);
+          end -= padding;
+        }
+        if (!variable) {
+          final int size = end - this.cursor;
+          if (size < 0 || size % count != 0) {
+            return -1;
+          }
+          return this.frames(count, size / count, end);
+        }
+        int total = 0;
+        for (int i = 0; i < count - 1; i++) {
+          final int size = this.readLength(source, end);
+          if (size < 0) {
+            return -1;
+          }
+          this.frameLengths[i] = size;
+          total += size;
+        }
+        final int last = end - this.cursor - total;
+        if (last < 0) {
+          return -1;
+        }
+        this.frameLengths[count - 1] = last;
+        int offset = this.cursor;
+        for (int i = 0; i < count; i++) {
+          this.frameOffsets[i] = offset;
+          offset += this.frameLengths[i];
+        }
+        return count;
+      }
+    }
+  }
+
+  private int frames(final int count, final int size, final int end) {
+    if (size < 0 || size > MAX_FRAME_SIZE || this.cursor + count * size > end) {
+      return -1;
+    }
+    for (int i = 0; i < count; i++) {
+      this.frameOffsets[i] = this.cursor + i * size;
+      this.frameLengths[i] = size;
+    }
+    return count;
+  }
+
+  private int readLength(final ByteBuffer source, final int end) {
+    if (this.cursor >= end) {
+      return -1;
+    }
+    final int first = source.get(this.cursor++) & 0xFF;
+    if (first < 252) {
+      return first;
+    }
+    if (this.cursor >= end) {
+      return -1;
+    }
+    final int second = source.get(this.cursor++) & 0xFF;
+    return second * 4 + first;
+  }
+
+  private static int writeLength(final byte[] packet, final int position, final int length) {
+    if (length < 252) {
+      packet[position] = (byte) length;
+      return position + 1;
+    }
+    final int first = 252 + (length & 3);
+    packet[position] = (byte) first;
+    packet[position + 1] = (byte) ((length - first) >> 2);
+    return position + 2;
+  }
+
+  private static int frameUnits(final int toc) {
+    final int configuration = toc >> 3;
+    if (configuration < 12) {
+      return switch (configuration & 3) {
+        case 0 -> 4;
+        case 1 -> 8;
+        case 2 -> 16;
+        default -> 24;
+      };
+    }
+    if (configuration < 16) {
+      return (configuration & 1) == 0 ? 4 : 8;
+    }
+    return 1 << (configuration & 3);
+  }
+}
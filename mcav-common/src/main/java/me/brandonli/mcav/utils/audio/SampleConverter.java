@@ -0,0 +1,134 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.utils.audio;
+
+import com.google.common.base.Preconditions;
+import java.nio.ByteBuffer;
+
+/**
+ * Utility class for converting interleaved PCM samples between sample formats and channel layouts. Every method
+ * reads and writes with absolute indices, so buffer positions are left untouched and nothing is allocated.
+ * Signed 16-bit samples are always little-endian, which is the format used throughout the audio pipeline.
+ */
+public final class SampleConverter {
+
+  private static final float S16_SCALE = 32768.0f;
+
+  private SampleConverter() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  /**
+   * Converts signed 16-bit little-endian samples to floats between -1 and 1.
+   *
+   * @param src the source samples, starting at the buffer position
+   * @param dst the destination array
+   * @return the amount of samples converted, limited by the destination length
+   */
+  public static int s16ToFloat(final ByteBuffer src, final float[] dst) {
+    final int base = src.position();
+    final int count = Math.min(src.remaining() >> 1, dst.length);
+    for (int i = 0; i < count; i++) {
+      dst[i] = readS16(src, base + (i << 1)) / S16_SCALE;
+    }
+    return count;
+  }
+
+  /**
+   * Converts floats between -1 and 1 to signed 16-bit little-endian samples, clipping values out of range.
+   *
+   * @param src    the source samples
+   * @param length the amount of samples to convert
+   * @param dst    the destination buffer, written from its position
+   * @return the amount of samples converted, limited by the destination space
+   */
+  public static int floatToS16(final float[] src, final int length, final ByteBuffer dst) {
+    final int base = dst.position();
+    final int count = Math.min(length, dst.remaining() >> 1);
+    for (int i = 0; i < count; i++) {
+      final int value = Math.round(src[i] * S16_SCALE);
+      writeS16(dst, base + (i << 1), clampS16(value));
+    }
+    return count;
+  }
+
+  /**
+   * Converts interleaved signed 16-bit samples between mono and stereo. Mono is duplicated into both channels,
+   * and stereo is averaged into mono. Other layouts need a real channel map to fold surround channels correctly,
+   * so they should be converted with swresample instead.
+   *
+   * @param src         the interleaved source samples
+   * @param inChannels  the source channel count
+   * @param dst         the interleaved destination samples
+   * @param outChannels the destination channel count
+   * @param frames      the amount of frames, which are samples per channel, to convert
+   * @throws IllegalArgumentException if either channel count is not mono or stereo
+   */
+  public static void remix(final short[] src, final int inChannels, final short[] dst, final int outChannels, final int frames) {
+    Preconditions.checkArgument(inChannels == 1 || inChannels == 2, "Only mono and stereo input is supported");
+    Preconditions.checkArgument(outChannels == 1 || outChannels == 2, "Only mono and stereo output is supported");
+    if (inChannels == outChannels) {
+      System.arraycopy(src, 0, dst, 0, frames * inChannels);
+      return;
+    }
+    if (outChannels == 2) {
+      for (int f = 0; f < frames; f++) {
+        final short sample = src[f];
+        dst[f << 1] = sample;
+        dst[(f << 1) + 1] = sample;
+      }
+      return;
+    }
+    for (int f = 0; f < frames; f++) {
+      dst[f] = (short) ((src[f << 1] + src[(f << 1) + 1]) >> 1);
+    }
+  }
+
+  /**
+   * Reads a signed 16-bit little-endian sample.
+   *
+   * @param buffer the buffer to read from
+   * @param index  the absolute byte index of the sample
+   * @return the sample
+   */
+  public static short readS16(final ByteBuffer buffer, final int index) {
+    return (short) ((buffer.get(index) & 0xFF) | (buffer.get(index + 1) << 8));
+  }
+
+  /**
+   * Writes a signed 16-bit little-endian sample.
+   *
+   * @param buffer the buffer to write to
+   * @param index  the absolute byte index of the sample
+   * @param value  the sample
+   */
+  public static void writeS16(final ByteBuffer buffer, final int index, final short value) {
+    buffer.put(index, (byte) value);
+    buffer.put(index + 1, (byte) (value >> 8));
+  }
+
+  /**
+   * Clamps a mixed sample into the signed 16-bit range.
+   *
+   * @param value the mixed sample
+   * @return the clipped sample
+   */
+  public static short clampS16(final int value) {
+    return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+  }
+}
@@ -45,6 +45,35 @@ public final class FFmpegTemplates {
       .build();
   }
 
+  /**
+   * Extracts the audio from a video file using the specified audio codec and splits it into segments of equal
+   * length, each of which is a standalone file.
+   *
+   * @param input          the path to the input video file from which audio should be extracted
+   * @param codec          the audio codec to be used for the extracted audio (e.g., "libvorbis")
+   * @param segmentSeconds the length of each segment in seconds
+   * @param outputPattern  the output path with a numbered placeholder (e.g., "segment_%03d.ogg")
+   * @return an {@code FFmpegCommand} object representing the segmented audio extraction command
+   */
+  public static FFmpegCommand extractAudioSegments(
+    final String input,
+    final String codec,
+    final int segmentSeconds,
+    final String outputPattern
+  ) {
+    return FFmpegCommand.builder()
+      .addInput(input)
+      .addArgument("-vn")
+      .addArguments("-strict", "-2")
+      .addAudioCodec(codec)
+      .addArguments("-f", "segment")
+      .addArguments("-segment_time", String.valueOf(segmentSeconds))
+      .addArguments("-reset_timestamps", "1")
+      .addOverwrite()
+      .addOutput(outputPattern)
+      .build();
+  }
+
   /**
    * Creates and returns an FFmpegCommand to compress a video file using specified
    * video and audio bitrates. The output video will use the H.264 codec
@@ -118,4 +147,33 @@ public final class FFmpegTemplates {
   public static FFmpegCommand remuxVideo(final String input, final String output) {
     return FFmpegCommand.builder().addInput(input).addVideoCodec("copy").addAudioCodec("copy").addOverwrite().addOutput(output).build();
   }
+
+  /**
+   * Creates an FFmpeg command that decodes the video of the input into raw BGR24 frames written to
+   * standard output. Frames are scaled to fit within the given dimensions while keeping the aspect
+   * ratio, padded with black to the exact size, and resampled to the given frame rate.
+   *
+   * @param input     the path or URL of the input media
+   * @param width     the width of the output frames in pixels
+   * @param height    the height of the output frames in pixels
+   * @param frameRate the frame rate of the output frames
+   * @return an FFmpegCommand that streams raw frames to standard output
+   */
+  public static FFmpegCommand decodeRawVideo(final String input, final int width, final int height, final int frameRate) {
+    final String filter = String.format(
+      "scale=%1$d:%2$d:force_original_aspect_ratio=decrease,pad=%1$d:%2$d:(ow-iw)/2:(oh-ih)/2,fps=%3$d",
+      width,
+      height,
+      frameRate
+    );
+    return FFmpegCommand.builder()
+      .addArguments("-v", "error")
+      .addInput(input)
+      .addArgument("-an")
+      .addArguments("-vf", filter)
+      .addArguments("-pix_fmt", "bgr24")
+      .addArguments("-f", "rawvideo")
+      .addOutput("pipe:1")
+      .build();
+  }
 }
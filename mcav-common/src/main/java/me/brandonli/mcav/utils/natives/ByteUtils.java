@@ -56,7 +56,8 @@ public final class ByteUtils {
 
   /**
    * Converts audio samples from any Buffer type to a ByteBuffer in little-endian format
-   * in a single pass operation.
+   * in a single pass operation. Byte buffers are returned as a little-endian view without copying,
+   * and everything else is converted with one bulk copy into a reusable buffer.
    *
    * @param buffer the Buffer containing audio samples (FloatBuffer, ShortBuffer, or ByteBuffer)
    * @return a ByteBuffer containing the converted audio samples in little-endian format
@@ -66,49 +67,57 @@ public final class ByteUtils {
     final ByteBuffer result;
     switch (buffer) {
       case final FloatBuffer floatBuffer -> {
-        final int capacity = floatBuffer.capacity();
-        result = getReusableBuffer(capacity * 4);
-        for (int i = 0; i < capacity; i++) {
-          result.putFloat(floatBuffer.get(i));
-        }
+        final FloatBuffer source = floatBuffer.duplicate().rewind();
+        result = getReusableBuffer(source.remaining() * 4);
+        result.asFloatBuffer().put(source);
+        result.limit(source.remaining() * 4);
       }
       case final ShortBuffer shortBuffer -> {
-        if (LITTLE_ENDIAN) {
-          final int byteSize = shortBuffer.capacity() * 2;
-          result = getReusableBuffer(byteSize);
-          for (int i = 0; i < shortBuffer.capacity(); i++) {
-            result.putShort(shortBuffer.get(i));
-          }
-        } else {
-          final int capacity = shortBuffer.capacity();
-          result = getReusableBuffer(capacity * 2);
-          for (int i = 0; i < capacity; i++) {
-            result.putShort(shortBuffer.get(i));
-          }
-        }
+        final ShortBuffer source = shortBuffer.duplicate().rewind();
+        result = getReusableBuffer(source.remaining() * 2);
+        result.asShortBuffer().put(source);
+        result.limit(source.remaining() * 2);
       }
       case final ByteBuffer byteBuffer -> {
-        if (byteBuffer.order() == ByteOrder.LITTLE_ENDIAN) {
-          return byteBuffer;
-        }
-        final ByteBuffer duplicate = byteBuffer.duplicate();
-        duplicate.rewind();
-        result = getReusableBuffer(duplicate.remaining());
-        while (duplicate.remaining() >= 2) {
-          final short value = duplicate.getShort();
-          final short swapped = (short) (((value & 0xFF) << 8) | ((value >> 8) & 0xFF));
-          result.putShort(swapped);
-        }
-        if (duplicate.remaining() > 0) {
-          result.put(duplicate.get());
-        }
+        // grabbed byte buffers hold little-endian samples but declare the default big-endian order,
+        // so only the declared order of a view changes and nothing is copied
+        return byteBuffer.duplicate().rewind().order(ByteOrder.LITTLE_ENDIAN);
       }
       case null, default -> throw new PlayerException("Unsupported buffer type!");
     }
-    result.flip();
     return result;
   }
 
+  /**
+   * Creates a read-only view of 16-bit samples in the byte order declared by the buffer, covering the bytes
+   * between its position and limit. Neither the samples nor the position of the buffer are touched.
+   *
+   * @param samples the buffer of samples
+   * @return a read-only view of the samples
+   */
+  public static ShortBuffer asShortView(final ByteBuffer samples) {
+    final ByteOrder order = samples.order();
+    final ByteBuffer slice = samples.slice().order(order);
+    final ShortBuffer view = slice.asShortBuffer();
+    return view.asReadOnlyBuffer();
+  }
+
+  /**
+   * Copies 16-bit samples from the position of the source to the position of the destination, converting
+   * from the byte order declared by the source to the one declared by the destination. The conversion is a
+   * single bulk copy, and neither position is moved.
+   *
+   * @param source      the samples to copy
+   * @param destination the buffer to copy the samples into, which must have enough space remaining
+   * @return the amount of bytes copied, always even
+   */
+  public static int copySamples(final ByteBuffer source, final ByteBuffer destination) {
+    final ShortBuffer from = asShortView(source);
+    final ShortBuffer to = destination.slice().order(destination.order()).asShortBuffer();
+    to.put(from);
+    return from.capacity() << 1;
+  }
+
   private static ByteBuffer getReusableBuffer(final int requiredCapacity) {
     ByteBuffer buf = REUSABLE_AUDIO_BUFFER.get();
     if (buf.capacity() < requiredCapacity) {
@@ -121,51 +130,39 @@ public final class ByteUtils {
   }
 
   /**
-   * Ensures the provided ByteBuffer is in big-endian format. If the system's native byte order
-   * is little-endian, the method converts the actual bytes to big-endian order.
+   * Ensures the provided ByteBuffer is in big-endian format. The samples are read as little-endian and
+   * written to a new big-endian buffer with one bulk copy.
    *
    * @param nativeBuffer the ByteBuffer to be converted to big-endian format
    * @return a ByteBuffer containing data in big-endian format
    */
   public static ByteBuffer clampNormalBufferToBigEndian(final ByteBuffer nativeBuffer) {
-    final ByteBuffer duplicate = nativeBuffer.duplicate();
-    final ByteBuffer result = ByteBuffer.allocate(duplicate.remaining());
-    result.order(ByteOrder.BIG_ENDIAN);
-    while (duplicate.remaining() >= 2) {
-      final short value = duplicate.getShort();
-      final short swapped = (short) (((value & 0xFF) << 8) | ((value >> 8) & 0xFF));
-      result.putShort(swapped);
-    }
-    if (duplicate.remaining() > 0) {
-      result.put(duplicate.get());
-    }
-    result.flip();
-    return result;
+    return reorder(nativeBuffer, ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN);
   }
 
   /**
    * Ensures the provided ByteBuffer is in little-endian format. If the system's native byte order
-   * is big-endian, the method converts the actual bytes to little-endian order.
+   * is big-endian, the method converts the actual bytes to little-endian order, otherwise only the
+   * declared order of the buffer changes and nothing is copied.
    *
    * @param nativeBuffer the ByteBuffer to be converted to little-endian format
    * @return a ByteBuffer containing data in little-endian format
    */
   public static ByteBuffer clampNativeBufferToLittleEndian(final ByteBuffer nativeBuffer) {
     if (!LITTLE_ENDIAN) {
-      final ByteBuffer duplicate = nativeBuffer.duplicate();
-      final ByteBuffer result = ByteBuffer.allocate(duplicate.remaining());
-      result.order(ByteOrder.LITTLE_ENDIAN);
-      while (duplicate.remaining() >= 2) {
-        final short value = duplicate.getShort();
-        final short swapped = (short) (((value & 0xFF) << 8) | ((value >> 8) & 0xFF));
-        result.putShort(swapped);
-      }
-      if (duplicate.remaining() > 0) {
-        result.put(duplicate.get());
-      }
-      result.flip();
-      return result;
+      return reorder(nativeBuffer, ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN);
     }
     return nativeBuffer.order(ByteOrder.LITTLE_ENDIAN);
   }
+
+  private static ByteBuffer reorder(final ByteBuffer buffer, final ByteOrder from, final ByteOrder to) {
+    final ByteBuffer source = buffer.duplicate().order(from);
+    final ByteBuffer result = ByteBuffer.allocate(source.remaining()).order(to);
+    copySamples(source, result);
+    if ((source.remaining() & 1) != 0) {
+      final int last = source.remaining() - 1;
+      result.put(last, source.get(source.position() + last));
+    }
+    return result;
+  }
 }
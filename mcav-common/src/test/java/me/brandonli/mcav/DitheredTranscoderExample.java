@@ -0,0 +1,58 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import me.brandonli.mcav.media.cache.DitheredVideoTranscoder;
+import me.brandonli.mcav.media.cache.MappedDitheredFrameReader;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.DitherAlgorithm;
+import me.brandonli.mcav.media.player.pipeline.filter.video.dither.algorithm.builder.ErrorDiffusionDitherBuilder;
+
+public final class DitheredTranscoderExample {
+
+  public static void main(final String[] args) throws IOException {
+    final MCAVApi api = MCAV.api();
+    api.install();
+
+    final String input = args.length > 0 ? args[0] : "input.mp4";
+    final Path output = Path.of("output.mcav");
+    final DitherAlgorithm algorithm = DitherAlgorithm.errorDiffusion()
+      .withAlgorithm(ErrorDiffusionDitherBuilder.Algorithm.FILTER_LITE)
+      .build();
+    final DitheredVideoTranscoder transcoder = DitheredVideoTranscoder.builder()
+      .input(input)
+      .output(output)
+      .resolution(640, 384)
+      .frameRate(20)
+      .algorithm(algorithm)
+      .build();
+
+    final long start = System.currentTimeMillis();
+    final int frames = transcoder.transcode();
+    System.out.printf("Transcoded %s frames in %s ms%n", frames, System.currentTimeMillis() - start);
+
+    try (final MappedDitheredFrameReader reader = MappedDitheredFrameReader.open(output)) {
+      final byte[] frame = new byte[reader.getWidth() * reader.getHeight()];
+      for (int i = 0; i < reader.getFrameCount(); i++) {
+        reader.read(i, frame);
+      }
+      System.out.printf("Read back %s frames, audio at %s%n", reader.getFrameCount(), transcoder.getAudioPath());
+    }
+  }
+}
@@ -18,10 +18,12 @@ dependencies {
     // provided
     compileOnlyApi(project(":mcav-common"))
     compileOnlyApi("org.apache.logging.log4j:log4j-core:3.0.0-beta3")
+    compileOnlyApi("io.netty:netty-all:4.1.97.Final")
 
     // testing
     testImplementation(project(":mcav-common"))
     testImplementation("org.slf4j:slf4j-simple:2.1.0-alpha1")
+    testImplementation("io.netty:netty-all:4.1.97.Final")
 }
 
 val windows = System.getProperty("os.name").lowercase().contains("windows")
@@ -64,18 +64,24 @@ class PCMProcessor {
     feed(data: ArrayBuffer): void {
         if (this.isDestroyed) return;
 
-        const currentTime = Date.now();
-        if (currentTime - this.processingTimestamp > 3000) {
-            this.flush();
-        }
-        this.processingTimestamp = currentTime;
-
         const view = new DataView(data);
         const float32Array = new Float32Array(data.byteLength / 2);
         for (let i = 0; i < float32Array.length; i++) {
             const int16 = view.getInt16(i * 2, true);
             float32Array[i] = int16 / 32768.0;
         }
+        this.feedSamples(float32Array);
+    }
+
+    // interleaved samples in [-1, 1], as decoded from Opus
+    feedSamples(float32Array: Float32Array): void {
+        if (this.isDestroyed) return;
+
+        const currentTime = Date.now();
+        if (currentTime - this.processingTimestamp > 3000) {
+            this.flush();
+        }
+        this.processingTimestamp = currentTime;
 
         this.updateVisualizer(float32Array);
 
@@ -234,6 +240,57 @@ const formatDate = (dateString?: string | null): string => {
     }
 };
 
+const AUDIO_PROTOCOL_VERSION = 1;
+const AUDIO_CODEC_PCM_S16LE = 0;
+const AUDIO_CODEC_OPUS = 1;
+const AUDIO_HEADER_SIZE = 20;
+const AUDIO_FLAG_DISCONTINUITY = 1;
+
+interface AudioFrame {
+    codec: number;
+    sequence: number;
+    pts: number;
+    discontinuity: boolean;
+    payload: ArrayBuffer;
+}
+
+// mirrors the frame header written by AudioBroadcaster, all header fields are big-endian
+function parseAudioFrame(data: ArrayBuffer): AudioFrame | null {
+    if (data.byteLength <= AUDIO_HEADER_SIZE) {
+        return null;
+    }
+    const view = new DataView(data);
+    const codec = view.getUint8(1);
+    if (view.getUint8(0) !== AUDIO_PROTOCOL_VERSION || (codec !== AUDIO_CODEC_PCM_S16LE && codec !== AUDIO_CODEC_OPUS)) {
+        return null;
+    }
+    return {
+        codec,
+        sequence: view.getUint32(8),
+        pts: view.getUint32(12) * 4294967296 + view.getUint32(16),
+        discontinuity: (view.getUint8(3) & AUDIO_FLAG_DISCONTINUITY) !== 0,
+        payload: data.slice(AUDIO_HEADER_SIZE)
+    };
+}
+
+// decodes the Opus packets of the stream with WebCodecs, browsers without it keep receiving PCM
+function createOpusDecoder(processor: PCMProcessor): AudioDecoder | null {
+    if (typeof AudioDecoder === 'undefined') {
+        return null;
+    }
+    const decoder = new AudioDecoder({
+        output: (data: AudioData) => {
+            const samples = new Float32Array(data.numberOfFrames * data.numberOfChannels);
+            data.copyTo(samples, {planeIndex: 0, format: 'f32'});
+            data.close();
+            processor.feedSamples(samples);
+        },
+        error: (error: DOMException) => console.error('Opus decoder error:', error)
+    });
+    decoder.configure({codec: 'opus', sampleRate: 48000, numberOfChannels: 2});
+    return decoder;
+}
+
 export default function AudioStreamPlayer() {
     const [statusText, setStatusText] = useState('Disconnected');
     const [statusConnected, setStatusConnected] = useState(false);
@@ -261,10 +318,12 @@ export default function AudioStreamPlayer() {
     const audioContextRef = useRef<AudioContext | null>(null);
     const wsRef = useRef<WebSocket | null>(null);
     const pcmProcessorRef = useRef<PCMProcessor | null>(null);
+    const opusDecoderRef = useRef<AudioDecoder | null>(null);
     const metadataIntervalRef = useRef<NodeJS.Timeout | null>(null);
     const heartbeatIntervalRef = useRef<NodeJS.Timeout | null>(null);
     const reconnectTimeoutRef = useRef<NodeJS.Timeout | null>(null);
     const reconnectAttemptsRef = useRef(0);
+    const lastSequenceRef = useRef<number | null>(null);
     const shouldReconnectRef = useRef(false);
     const titleRef = useRef<HTMLHeadingElement>(null);
     const titleWrapperRef = useRef<HTMLDivElement>(null);
@@ -463,6 +522,8 @@ export default function AudioStreamPlayer() {
                 });
 
                 pcmProcessorRef.current.gainNode.gain.value = volume / 100;
+                opusDecoderRef.current?.close();
+                opusDecoderRef.current = createOpusDecoder(pcmProcessorRef.current);
 
                 const scheme = window.location.protocol === 'https:' ? 'wss' : 'ws';
                 const endpoint = `${scheme}://${window.location.host}/audio`;
@@ -471,6 +532,10 @@ export default function AudioStreamPlayer() {
                 wsRef.current.binaryType = 'arraybuffer';
 
                 wsRef.current.onopen = () => {
+                    lastSequenceRef.current = null;
+                    if (opusDecoderRef.current) {
+                        wsRef.current?.send(new Uint8Array([AUDIO_CODEC_OPUS]));
+                    }
                     updateStatus('Connected', true);
                     setIsConnected(true);
                     shouldReconnectRef.current = true;
@@ -495,11 +560,23 @@ export default function AudioStreamPlayer() {
 
                 wsRef.current.onmessage = (e) => {
                     try {
-                        if (e.data.byteLength > 0 && pcmProcessorRef.current && !pcmProcessorRef.current.isDestroyed) {
+                        const frame = parseAudioFrame(e.data);
+                        if (frame && pcmProcessorRef.current && !pcmProcessorRef.current.isDestroyed) {
                             if (statusText !== 'Streaming audio') {
                                 updateStatus('Streaming audio', true);
                             }
-                            pcmProcessorRef.current.feed(e.data);
+                            const lastSequence = lastSequenceRef.current;
+                            const gap = lastSequence !== null && frame.sequence !== ((lastSequence + 1) >>> 0);
+                            lastSequenceRef.current = frame.sequence;
+                            if (frame.discontinuity || gap) {
+                                pcmProcessorRef.current.flush();
+                            }
+                            const decoder = opusDecoderRef.current;
+                            if (frame.codec === AUDIO_CODEC_OPUS && decoder) {
+                                decoder.decode(new EncodedAudioChunk({type: 'key', timestamp: frame.pts, data: frame.payload}));
+                            } else if (frame.codec === AUDIO_CODEC_PCM_S16LE) {
+                                pcmProcessorRef.current.feed(frame.payload);
+                            }
                         }
                     } catch (error) {
                         console.error('Error processing audio data:', error);
@@ -561,6 +638,11 @@ export default function AudioStreamPlayer() {
             pcmProcessorRef.current = null;
         }
 
+        if (opusDecoderRef.current) {
+            opusDecoderRef.current.close();
+            opusDecoderRef.current = null;
+        }
+
         if (animationIdRef.current) {
             cancelAnimationFrame(animationIdRef.current);
             animationIdRef.current = null;
@@ -0,0 +1,309 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Broadcasts audio to WebSocket clients without blocking the audio thread.
+ *
+ * <p>Every callback is framed once per codec in use and offered to a bounded queue per client. Each client is
+ * drained by its own virtual thread, so a slow client only fills its own queue, which drops its oldest frames
+ * instead of delaying everyone else.
+ *
+ * <p>Clients start on PCM. A client may send a single byte naming the codec it wants, while empty messages are
+ * heartbeats. Opus is encoded once for all clients that asked for it, and clients stay on PCM if FFmpeg has no
+ * Opus encoder.
+ *
+ * <p>Every frame starts with a big-endian header, followed by the payload:
+ * <pre>
+ *   offset  size  field
+ *   0       1     protocol version, currently {@value #PROTOCOL_VERSION}
+ *   1       1     codec, {@value #CODEC_PCM_S16LE} for signed 16-bit little-endian PCM or {@value #CODEC_OPUS} for
+ *                 a single raw Opus packet
+ *   2       1     channel count
+ *   3       1     flags, bit 0 marks a discontinuity such as new media
+ *   4       4     sample rate in hertz
+ *   8       4     sequence number, increasing by one per frame of the same codec
+ *   12      8     presentation timestamp of the first sample in microseconds
+ * </pre>
+ */
+final class AudioBroadcaster {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AudioBroadcaster.class);
+
+  static final int PROTOCOL_VERSION = 1;
+  static final int CODEC_PCM_S16LE = 0;
+  static final int CODEC_OPUS = 1;
+  static final int HEADER_SIZE = 20;
+  static final int FLAG_DISCONTINUITY = 1;
+  static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+  private static final int SAMPLE_RATE = 48000;
+  private static final int CHANNELS = 2;
+  private static final int BYTES_PER_SAMPLE = 2;
+  private static final int OPUS_BIT_RATE = 128_000;
+
+  private final Map<String, ClientQueue> clients;
+  private final int queueCapacity;
+  private final CodecStream pcm;
+  private final CodecStream opus;
+
+  private @Nullable OpusFrameEncoder encoder;
+  private boolean opusUnavailable;
+  private boolean opusActive;
+  private long samplesSent;
+
+  AudioBroadcaster(final int queueCapacity) {
+    this.clients = new ConcurrentHashMap<>();
+    this.queueCapacity = queueCapacity;
+    this.pcm = new CodecStream(CODEC_PCM_S16LE);
+    this.opus = new CodecStream(CODEC_OPUS);
+  }
+
+  void add(final String id, final AudioClient client) {
+    this.clients.put(id, new ClientQueue(id, client, this.queueCapacity));
+  }
+
+  void remove(final String id) {
+    this.clients.remove(id);
+  }
+
+  boolean hasClients() {
+    return !this.clients.isEmpty();
+  }
+
+  /**
+   * Handles a message sent by a client. A single byte asks for that codec, anything else is a heartbeat.
+   *
+   * @param id      the client id
+   * @param message the message payload
+   */
+  void receive(final String id, final ByteBuffer message) {
+    if (message.remaining() != 1) {
+      return;
+    }
+    final ClientQueue client = this.clients.get(id);
+    if (client == null) {
+      return;
+    }
+    final int codec = Byte.toUnsignedInt(message.get(message.position()));
+    if (codec == CODEC_OPUS) {
+      client.codec = this.acquireEncoder() ? CODEC_OPUS : CODEC_PCM_S16LE;
+    } else if (codec == CODEC_PCM_S16LE) {
+      client.codec = CODEC_PCM_S16LE;
+    }
+  }
+
+  private synchronized boolean acquireEncoder() {
+    if (this.encoder != null) {
+      return true;
+    }
+    if (this.opusUnavailable) {
+      return false;
+    }
+    try {
+      this.encoder = new OpusFrameEncoder(SAMPLE_RATE, CHANNELS, OPUS_BIT_RATE);
+      return true;
+    } catch (final HttpException | UnsatisfiedLinkError e) {
+      LOGGER.warn("Opus is unavailable, audio clients fall back to PCM", e);
+      this.opusUnavailable = true;
+      return false;
+    }
+  }
+
+  /**
+   * Marks the next frame as a discontinuity and restarts the presentation timestamps, such as when new media
+   * starts playing.
+   */
+  synchronized void reset() {
+    this.samplesSent = 0;
+    this.pcm.discontinuity = true;
+    this.opus.discontinuity = true;
+    this.resetEncoder();
+  }
+
+  private void resetEncoder() {
+    final OpusFrameEncoder current = this.encoder;
+    if (current == null) {
+      return;
+    }
+    try {
+      current.reset();
+    } catch (final HttpException e) {
+      LOGGER.warn("Failed to restart the Opus encoder, audio clients fall back to PCM", e);
+      this.encoder = null;
+      this.opusUnavailable = true;
+      for (final ClientQueue client : this.clients.values()) {
+        client.codec = CODEC_PCM_S16LE;
+      }
+    }
+  }
+
+  /**
+   * Frames the samples once per codec in use and queues the frames for every client. Never blocks on the network.
+   *
+   * @param samples the PCM samples, which are copied without moving the buffer position
+   */
+  synchronized void broadcast(final ByteBuffer samples) {
+    boolean anyPcm = false;
+    boolean anyOpus = false;
+    for (final ClientQueue client : this.clients.values()) {
+      if (client.codec == CODEC_OPUS) {
+        anyOpus = true;
+      } else {
+        anyPcm = true;
+      }
+    }
+
+    final int length = samples.remaining();
+    if (anyPcm) {
+      final long pts = this.samplesSent * 1_000_000L / SAMPLE_RATE;
+      final ByteBuffer frame = this.pcm.frame(samples, samples.position(), length, pts);
+      this.offer(CODEC_PCM_S16LE, frame);
+    }
+
+    // the encoder only runs while someone listens, so it restarts instead of encoding a stale partial frame
+    if (anyOpus && !this.opusActive) {
+      this.opus.discontinuity = true;
+      this.resetEncoder();
+    }
+    this.opusActive = anyOpus;
+    final OpusFrameEncoder current = this.encoder;
+    if (anyOpus && current != null) {
+      current.encode(samples, this::broadcastOpus);
+    }
+    this.samplesSent += length / (CHANNELS * BYTES_PER_SAMPLE);
+  }
+
+  private void broadcastOpus(final byte[] packet, final long samplePts) {
+    final long pts = samplePts * 1_000_000L / SAMPLE_RATE;
+    final ByteBuffer frame = this.opus.frame(ByteBuffer.wrap(packet), 0, packet.length, pts);
+    this.offer(CODEC_OPUS, frame);
+  }
+
+  private void offer(final int codec, final ByteBuffer frame) {
+    final ByteBuffer shared = frame.asReadOnlyBuffer();
+    for (final ClientQueue client : this.clients.values()) {
+      if (client.codec == codec) {
+        client.offer(shared);
+      }
+    }
+  }
+
+  /**
+   * Closes and forgets every client.
+   */
+  synchronized void close() {
+    for (final ClientQueue client : this.clients.values()) {
+      client.queue.clear();
+      client.client.close();
+    }
+    this.clients.clear();
+    final OpusFrameEncoder current = this.encoder;
+    if (current != null) {
+      current.close();
+      this.encoder = null;
+    }
+    this.opusActive = false;
+  }
+
+  private static final class CodecStream {
+
+    final int codec;
+    int sequence;
+    boolean discontinuity;
+
+    CodecStream(final int codec) {
+      this.codec = codec;
+      this.discontinuity = true;
+    }
+
+    ByteBuffer frame(final ByteBuffer payload, final int offset, final int length, final long pts) {
+      final ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + length);
+      frame.put((byte) PROTOCOL_VERSION);
+      frame.put((byte) this.codec);
+      frame.put((byte) CHANNELS);
+      frame.put((byte) (this.discontinuity ? FLAG_DISCONTINUITY : 0));
+      frame.putInt(SAMPLE_RATE);
+      frame.putInt(this.sequence++);
+      frame.putLong(pts);
+      frame.put(HEADER_SIZE, payload, offset, length);
+      frame.clear();
+      this.discontinuity = false;
+      return frame;
+    }
+  }
+
+  private final class ClientQueue {
+
+    final String id;
+    final AudioClient client;
+    final BlockingQueue<ByteBuffer> queue;
+    final AtomicBoolean draining;
+    volatile int codec;
+
+    ClientQueue(final String id, final AudioClient client, final int capacity) {
+      this.id = id;
+      this.client = client;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.draining = new AtomicBoolean();
+    }
+
+    // drop oldest, so a client that catches up resumes near live instead of replaying stale audio
+    void offer(final ByteBuffer frame) {
+      while (!this.queue.offer(frame)) {
+        this.queue.poll();
+      }
+      if (this.draining.compareAndSet(false, true)) {
+        Thread.startVirtualThread(this::drain);
+      }
+    }
+
+    private void drain() {
+      while (true) {
+        ByteBuffer frame;
+        while ((frame = this.queue.poll()) != null) {
+          try {
+            this.client.send(frame.duplicate());
+          } catch (final IOException e) {
+            LOGGER.debug("Dropping audio client {} after a failed send", this.id, e);
+            AudioBroadcaster.this.remove(this.id);
+            this.queue.clear();
+            this.client.close();
+            return;
+          }
+        }
+        this.draining.set(false);
+        // a frame offered after the last poll but before the flag was cleared would otherwise be stranded
+        if (this.queue.isEmpty() || !this.draining.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    }
+  }
+}
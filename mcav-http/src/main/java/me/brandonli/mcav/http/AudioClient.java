@@ -0,0 +1,39 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a connected audio WebSocket client, independent of the server backend that accepted it.
+ */
+interface AudioClient {
+  /**
+   * Sends a single binary frame to the client. May block until the frame is written.
+   *
+   * @param frame the frame to send
+   * @throws IOException if the frame could not be sent
+   */
+  void send(final ByteBuffer frame) throws IOException;
+
+  /**
+   * Closes the connection to the client.
+   */
+  void close();
+}
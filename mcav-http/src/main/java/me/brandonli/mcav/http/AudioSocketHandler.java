@@ -0,0 +1,115 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Registers upgraded {@code /audio} connections with the broadcaster. Incoming binary frames are codec requests
+ * or heartbeats and are handed to the broadcaster, while ping and close frames are already answered by the
+ * protocol handler.
+ */
+final class AudioSocketHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+  private final AudioBroadcaster broadcaster;
+
+  AudioSocketHandler(final AudioBroadcaster broadcaster) {
+    this.broadcaster = broadcaster;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
+    if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+      final Channel channel = ctx.channel();
+      this.broadcaster.add(channel.id().asLongText(), new ChannelAudioClient(channel));
+      return;
+    }
+    super.userEventTriggered(ctx, evt);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+    final Channel channel = ctx.channel();
+    this.broadcaster.remove(channel.id().asLongText());
+    super.channelInactive(ctx);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void channelRead0(final ChannelHandlerContext ctx, final WebSocketFrame msg) {
+    if (msg instanceof BinaryWebSocketFrame) {
+      final Channel channel = ctx.channel();
+      this.broadcaster.receive(channel.id().asLongText(), msg.content().nioBuffer());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+    ctx.close();
+  }
+
+  static final class ChannelAudioClient implements AudioClient {
+
+    private final Channel channel;
+
+    ChannelAudioClient(final Channel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void send(final ByteBuffer frame) throws IOException {
+      // waiting for the write paces the client queue by what the socket actually accepts
+      final ChannelFuture future = this.channel.writeAndFlush(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(frame)));
+      future.awaitUninterruptibly();
+      if (!future.isSuccess()) {
+        throw new IOException("Failed to send audio frame", future.cause());
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+      this.channel.close();
+    }
+  }
+}
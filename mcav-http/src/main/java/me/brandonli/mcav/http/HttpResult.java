@@ -21,8 +21,9 @@ import me.brandonli.mcav.json.ytdlp.format.URLParseDump;
 import me.brandonli.mcav.media.player.pipeline.filter.audio.AudioFilter;
 
 /**
- * Represents an HTTP-based audio filter that can stream PCM audio data into web browsers. Uses Javalin for
- * serving HTTP pages and WebSocket connections for streaming.
+ * Represents an HTTP-based audio filter that can stream PCM or Opus audio into web browsers. The default backend
+ * uses Spring Boot for serving HTTP pages and WebSocket connections for streaming, while
+ * {@link #lightweight(String, int)} serves the same site directly on Netty with a much smaller footprint.
  * <p>
  * Here is an example of how to use it:
  *
@@ -88,4 +89,18 @@ public interface HttpResult extends AudioFilter {
   static HttpResult http(final String domain, final int port) {
     return new HttpResultImpl(domain, port);
   }
+
+  /**
+   * Creates a new lightweight {@link HttpResult} instance with the specified domain and port. It serves the
+   * same website and audio stream as {@link #http(String, int)}, but is built directly on Netty instead of
+   * booting a servlet container, so it starts in milliseconds and uses only a few threads. Netty must be
+   * available at runtime, which is always the case inside a Minecraft server.
+   *
+   * @param domain the domain to bind the HTTP server to
+   * @param port   the port to bind the HTTP server to
+   * @return a new lightweight {@link HttpResult} instance
+   */
+  static HttpResult lightweight(final String domain, final int port) {
+    return new NettyHttpResult(domain, port);
+  }
 }
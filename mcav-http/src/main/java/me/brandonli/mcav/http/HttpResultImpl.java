@@ -21,9 +21,7 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 import me.brandonli.mcav.json.ytdlp.format.URLParseDump;
 import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -54,12 +52,13 @@ import org.springframework.web.socket.handler.BinaryWebSocketHandler;
 
 /**
  * The concrete implementation of the {@link HttpResult} interface, providing a default HTML template
- * if none isn't specified. Opens multiple web socket connections and sends PCM audio data, which the
- * JavaScript client can encode and play in the browser.
+ * if none isn't specified. Opens multiple web socket connections and sends PCM or Opus audio data, which the
+ * JavaScript client decodes and plays in the browser. Audio is framed and queued per client by an
+ * {@link AudioBroadcaster}, so slow clients never block the audio thread.
  */
 public class HttpResultImpl implements HttpResult {
 
-  private final CopyOnWriteArrayList<WebSocketSession> wsClients;
+  private final AudioBroadcaster broadcaster;
   private final String domain;
   private final int port;
   private final String directory;
@@ -72,7 +71,7 @@ public class HttpResultImpl implements HttpResult {
   }
 
   HttpResultImpl(final String domain, final int port, final String directory) {
-    this.wsClients = new CopyOnWriteArrayList<>();
+    this.broadcaster = new AudioBroadcaster(AudioBroadcaster.DEFAULT_QUEUE_CAPACITY);
     this.domain = domain;
     this.port = port;
     this.directory = directory;
@@ -119,18 +118,10 @@ public class HttpResultImpl implements HttpResult {
    */
   @Override
   public boolean applyFilter(final ByteBuffer samples, final OriginalAudioMetadata metadata) {
-    if (this.wsClients.isEmpty()) {
+    if (!this.broadcaster.hasClients()) {
       return false;
     }
-
-    final ByteBuffer clamped = samples.order(ByteOrder.BIG_ENDIAN);
-    final BinaryMessage message = new BinaryMessage(clamped);
-    for (final WebSocketSession session : this.wsClients) {
-      try {
-        session.sendMessage(message);
-      } catch (final Exception ignored) {}
-    }
-
+    this.broadcaster.broadcast(samples);
     return true;
   }
 
@@ -148,6 +139,7 @@ public class HttpResultImpl implements HttpResult {
   @Override
   public void setCurrentMedia(final URLParseDump dump) {
     this.current = dump;
+    this.broadcaster.reset();
   }
 
   /**
@@ -157,12 +149,7 @@ public class HttpResultImpl implements HttpResult {
   public void stop() {
     final Runnable runnable = () -> {
       if (this.context != null) {
-        this.wsClients.forEach(session -> {
-            try {
-              session.close();
-            } catch (final IOException ignored) {}
-          });
-        this.wsClients.clear();
+        this.broadcaster.close();
         try {
           if (this.context instanceof final ServletWebServerApplicationContext wsContext) {
             final var webServer = requireNonNull(wsContext.getWebServer());
@@ -257,7 +244,18 @@ public class HttpResultImpl implements HttpResult {
     public void afterConnectionEstablished(final WebSocketSession session) throws Exception {
       final HttpResultImpl instance = this.config.getHttpResultInstance();
       if (instance != null) {
-        instance.wsClients.add(session);
+        instance.broadcaster.add(session.getId(), new SessionAudioClient(session));
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void handleBinaryMessage(final WebSocketSession session, final BinaryMessage message) {
+      final HttpResultImpl instance = this.config.getHttpResultInstance();
+      if (instance != null) {
+        instance.broadcaster.receive(session.getId(), message.getPayload());
       }
     }
 
@@ -268,7 +266,7 @@ public class HttpResultImpl implements HttpResult {
     public void afterConnectionClosed(final WebSocketSession session, final CloseStatus status) throws Exception {
       final HttpResultImpl instance = this.config.getHttpResultInstance();
       if (instance != null) {
-        instance.wsClients.remove(session);
+        instance.broadcaster.remove(session.getId());
       }
     }
 
@@ -279,11 +277,38 @@ public class HttpResultImpl implements HttpResult {
     public void handleTransportError(final WebSocketSession session, final Throwable exception) throws Exception {
       final HttpResultImpl instance = this.config.getHttpResultInstance();
       if (instance != null) {
-        instance.wsClients.remove(session);
+        instance.broadcaster.remove(session.getId());
       }
     }
   }
 
+  static final class SessionAudioClient implements AudioClient {
+
+    private final WebSocketSession session;
+
+    SessionAudioClient(final WebSocketSession session) {
+      this.session = session;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void send(final ByteBuffer frame) throws IOException {
+      this.session.sendMessage(new BinaryMessage(frame));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+      try {
+        this.session.close();
+      } catch (final IOException ignored) {}
+    }
+  }
+
   @RestController
   static class HttpController {
 
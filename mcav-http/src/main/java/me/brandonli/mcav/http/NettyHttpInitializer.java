@@ -0,0 +1,53 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+
+final class NettyHttpInitializer extends ChannelInitializer<SocketChannel> {
+
+  static final String AUDIO_PATH = "/audio";
+
+  private static final int MAX_CONTENT_LENGTH = 64 * 1024;
+
+  private final NettyHttpResult result;
+  private final StaticResourceHandler resourceHandler;
+
+  NettyHttpInitializer(final NettyHttpResult result) {
+    this.result = result;
+    this.resourceHandler = new StaticResourceHandler(result);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void initChannel(final SocketChannel ch) {
+    final ChannelPipeline p = ch.pipeline();
+    p.addLast(new HttpServerCodec());
+    p.addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+    p.addLast(new WebSocketServerProtocolHandler(AUDIO_PATH, null, true));
+    p.addLast(this.resourceHandler);
+    p.addLast(new AudioSocketHandler(this.result.getBroadcaster()));
+  }
+}
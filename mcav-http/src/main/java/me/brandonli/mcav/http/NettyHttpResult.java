@@ -0,0 +1,149 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import java.nio.ByteBuffer;
+import me.brandonli.mcav.json.ytdlp.format.URLParseDump;
+import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A lightweight implementation of the {@link HttpResult} interface built directly on Netty. Serves the same
+ * static site, {@code /media} endpoint and {@code /audio} WebSocket as {@link HttpResultImpl}, but starts in
+ * milliseconds and only uses a couple of event loop threads instead of a full servlet container.
+ */
+public class NettyHttpResult implements HttpResult {
+
+  private static final int BOSS_THREADS = 1;
+  private static final int WORKER_THREADS = 2;
+
+  private final AudioBroadcaster broadcaster;
+  private final String domain;
+  private final int port;
+  private final String directory;
+
+  private volatile URLParseDump current;
+  private volatile @Nullable Channel channel;
+  private @Nullable EventLoopGroup bossGroup;
+  private @Nullable EventLoopGroup workerGroup;
+
+  NettyHttpResult(final String domain, final int port) {
+    this(domain, port, "static");
+  }
+
+  NettyHttpResult(final String domain, final int port, final String directory) {
+    this.broadcaster = new AudioBroadcaster(AudioBroadcaster.DEFAULT_QUEUE_CAPACITY);
+    this.domain = domain;
+    this.port = port;
+    this.directory = directory;
+    this.current = new URLParseDump();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void start() {
+    if (this.channel != null) {
+      return;
+    }
+    final EventLoopGroup boss = new NioEventLoopGroup(BOSS_THREADS);
+    final EventLoopGroup worker = new NioEventLoopGroup(WORKER_THREADS);
+    final NettyHttpInitializer initializer = new NettyHttpInitializer(this);
+    final ServerBootstrap bootstrap = new ServerBootstrap();
+    bootstrap.group(boss, worker).channel(NioServerSocketChannel.class).childHandler(initializer);
+    try {
+      this.channel = bootstrap.bind(this.port).sync().channel();
+    } catch (final InterruptedException e) {
+      final Thread current = Thread.currentThread();
+      current.interrupt();
+      boss.shutdownGracefully();
+      worker.shutdownGracefully();
+      throw new HttpException(e.getMessage(), e);
+    }
+    this.bossGroup = boss;
+    this.workerGroup = worker;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean applyFilter(final ByteBuffer samples, final OriginalAudioMetadata metadata) {
+    if (!this.broadcaster.hasClients()) {
+      return false;
+    }
+    this.broadcaster.broadcast(samples);
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getFullUrl() {
+    return String.format("http://%s:%s/index.html", this.domain, this.port);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setCurrentMedia(final URLParseDump dump) {
+    this.current = dump;
+    this.broadcaster.reset();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void stop() {
+    this.broadcaster.close();
+    final Channel server = this.channel;
+    if (server != null) {
+      server.close().syncUninterruptibly();
+      this.channel = null;
+    }
+    if (this.bossGroup != null) {
+      this.bossGroup.shutdownGracefully();
+      this.bossGroup = null;
+    }
+    if (this.workerGroup != null) {
+      this.workerGroup.shutdownGracefully();
+      this.workerGroup = null;
+    }
+  }
+
+  AudioBroadcaster getBroadcaster() {
+    return this.broadcaster;
+  }
+
+  URLParseDump getCurrentMedia() {
+    return this.current;
+  }
+
+  String getDirectory() {
+    return this.directory;
+  }
+}
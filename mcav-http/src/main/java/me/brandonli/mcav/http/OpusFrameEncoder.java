@@ -0,0 +1,209 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import static org.bytedeco.ffmpeg.global.avcodec.AV_CODEC_ID_OPUS;
+import static org.bytedeco.ffmpeg.global.avcodec.FF_COMPLIANCE_EXPERIMENTAL;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_alloc;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_free;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_unref;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_alloc_context3;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_find_encoder;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_find_encoder_by_name;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_free_context;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_open2;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_receive_packet;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_send_frame;
+import static org.bytedeco.ffmpeg.global.avutil.AV_SAMPLE_FMT_FLTP;
+import static org.bytedeco.ffmpeg.global.avutil.AV_SAMPLE_FMT_S16;
+import static org.bytedeco.ffmpeg.global.avutil.av_channel_layout_copy;
+import static org.bytedeco.ffmpeg.global.avutil.av_channel_layout_default;
+import static org.bytedeco.ffmpeg.global.avutil.av_frame_alloc;
+import static org.bytedeco.ffmpeg.global.avutil.av_frame_free;
+import static org.bytedeco.ffmpeg.global.avutil.av_frame_get_buffer;
+import static org.bytedeco.ffmpeg.global.avutil.av_frame_make_writable;
+import static org.bytedeco.ffmpeg.global.avutil.av_make_q;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.function.ObjLongConsumer;
+import me.brandonli.mcav.utils.natives.ByteUtils;
+import org.bytedeco.ffmpeg.avcodec.AVCodec;
+import org.bytedeco.ffmpeg.avcodec.AVCodecContext;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avutil.AVDictionary;
+import org.bytedeco.ffmpeg.avutil.AVFrame;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.ShortPointer;
+
+/**
+ * Encodes interleaved 16-bit PCM into Opus packets with FFmpeg, so the audio of a broadcast is encoded once no
+ * matter how many clients receive it. libopus is preferred, FFmpeg's native encoder is used when the bundled
+ * FFmpeg was built without it.
+ *
+ * <p>Instances are not thread-safe and are meant to be owned by a single broadcaster.
+ */
+final class OpusFrameEncoder {
+
+  private final int sampleRate;
+  private final int channels;
+  private final int bitRate;
+
+  private AVCodecContext context;
+  private AVFrame frame;
+  private AVPacket packet;
+  private boolean planar;
+  private short[] pending;
+  private float[] plane;
+  private int pendingCount;
+  private long pts;
+  private boolean opened;
+
+  /**
+   * Opens a new encoder.
+   *
+   * @param sampleRate the sample rate of the input, must be one Opus supports
+   * @param channels   the channel count of the input
+   * @param bitRate    the target bit rate in bits per second
+   * @throws HttpException if no Opus encoder could be opened
+   */
+  OpusFrameEncoder(final int sampleRate, final int channels, final int bitRate) {
+    this.sampleRate = sampleRate;
+    this.channels = channels;
+    this.bitRate = bitRate;
+    this.open();
+  }
+
+  private void open() {
+    AVCodec codec = avcodec_find_encoder_by_name("libopus");
+    this.planar = codec == null;
+    if (codec == null) {
+      codec = avcodec_find_encoder(AV_CODEC_ID_OPUS);
+    }
+    if (codec == null) {
+      throw new HttpException("FFmpeg has no Opus encoder");
+    }
+
+    final int format = this.planar ? AV_SAMPLE_FMT_FLTP : AV_SAMPLE_FMT_S16;
+    final AVCodecContext context = avcodec_alloc_context3(codec);
+    context.sample_rate(this.sampleRate);
+    context.sample_fmt(format);
+    context.bit_rate(this.bitRate);
+    context.time_base(av_make_q(1, this.sampleRate));
+    context.strict_std_compliance(FF_COMPLIANCE_EXPERIMENTAL);
+    av_channel_layout_default(context.ch_layout(), this.channels);
+    final int result = avcodec_open2(context, codec, (AVDictionary) null);
+    if (result < 0) {
+      avcodec_free_context(context);
+      throw new HttpException(String.format("Failed to open the Opus encoder (%d)", result));
+    }
+
+    final AVFrame frame = av_frame_alloc();
+    frame.nb_samples(context.frame_size());
+    frame.format(format);
+    frame.sample_rate(this.sampleRate);
+    av_channel_layout_copy(frame.ch_layout(), context.ch_layout());
+    av_frame_get_buffer(frame, 0);
+
+    this.context = context;
+    this.frame = frame;
+    this.packet = av_packet_alloc();
+    this.pending = new short[context.frame_size() * this.channels];
+    this.plane = new float[context.frame_size()];
+    this.pendingCount = 0;
+    this.pts = 0;
+    this.opened = true;
+  }
+
+  /**
+   * Encodes the given samples. Samples that do not fill a whole Opus frame are kept for the next call.
+   *
+   * @param samples  the interleaved samples in the byte order declared by the buffer, whose position is not moved
+   * @param consumer receives every encoded packet along with its presentation timestamp in samples
+   */
+  void encode(final ByteBuffer samples, final ObjLongConsumer<byte[]> consumer) {
+    final ShortBuffer view = ByteUtils.asShortView(samples);
+    while (view.hasRemaining()) {
+      final int count = Math.min(view.remaining(), this.pending.length - this.pendingCount);
+      view.get(this.pending, this.pendingCount, count);
+      this.pendingCount += count;
+      if (this.pendingCount == this.pending.length) {
+        this.encodeFrame(consumer);
+        this.pendingCount = 0;
+      }
+    }
+  }
+
+  private void encodeFrame(final ObjLongConsumer<byte[]> consumer) {
+    final AVFrame frame = this.frame;
+    av_frame_make_writable(frame);
+    if (this.planar) {
+      this.writePlanar(frame);
+    } else {
+      new ShortPointer(frame.data(0)).put(this.pending, 0, this.pending.length);
+    }
+    frame.pts(this.pts);
+    this.pts += frame.nb_samples();
+
+    if (avcodec_send_frame(this.context, frame) < 0) {
+      return;
+    }
+    final AVPacket packet = this.packet;
+    while (avcodec_receive_packet(this.context, packet) == 0) {
+      final byte[] data = new byte[packet.size()];
+      final BytePointer pointer = packet.data();
+      pointer.get(data);
+      final long timestamp = Math.max(0, packet.pts());
+      av_packet_unref(packet);
+      consumer.accept(data, timestamp);
+    }
+  }
+
+  private void writePlanar(final AVFrame frame) {
+    final int samples = frame.nb_samples();
+    final float[] plane = this.plane;
+    for (int channel = 0; channel < this.channels; channel++) {
+      for (int i = 0; i < samples; i++) {
+        plane[i] = this.pending[i * this.channels + channel] / 32768.0F;
+      }
+      new FloatPointer(frame.data(channel)).put(plane, 0, samples);
+    }
+  }
+
+  /**
+   * Drops any buffered samples and restarts the stream, such as when new media starts playing.
+   */
+  void reset() {
+    this.close();
+    this.open();
+  }
+
+  /**
+   * Frees the encoder.
+   */
+  void close() {
+    if (!this.opened) {
+      return;
+    }
+    this.opened = false;
+    avcodec_free_context(this.context);
+    av_frame_free(this.frame);
+    av_packet_free(this.packet);
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.http;
+
+import com.google.gson.Gson;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import me.brandonli.mcav.json.GsonProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Serves the static website from the classpath and the current media as JSON. Resources are cached in memory
+ * after the first request, since the site never changes while the server is running. Only resources that exist
+ * are cached, so arbitrary missing paths cannot grow the cache.
+ */
+@ChannelHandler.Sharable
+final class StaticResourceHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+  private static final String MEDIA_PATH = "/media";
+  private static final String CACHE_CONTROL = "max-age=3600";
+  private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+  private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+    Map.entry("html", "text/html; charset=UTF-8"),
+    Map.entry("js", "text/javascript; charset=UTF-8"),
+    Map.entry("css", "text/css; charset=UTF-8"),
+    Map.entry("json", "application/json"),
+    Map.entry("txt", "text/plain; charset=UTF-8"),
+    Map.entry("svg", "image/svg+xml"),
+    Map.entry("png", "image/png"),
+    Map.entry("jpg", "image/jpeg"),
+    Map.entry("ico", "image/x-icon"),
+    Map.entry("woff", "font/woff"),
+    Map.entry("woff2", "font/woff2")
+  );
+
+  private final NettyHttpResult result;
+  private final Map<String, Resource> cache;
+
+  StaticResourceHandler(final NettyHttpResult result) {
+    this.result = result;
+    this.cache = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void channelRead0(final ChannelHandlerContext ctx, final FullHttpRequest request) {
+    if (!request.decoderResult().isSuccess()) {
+      this.sendError(ctx, request, HttpResponseStatus.BAD_REQUEST);
+      return;
+    }
+
+    final HttpMethod method = request.method();
+    if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+      this.sendError(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED);
+      return;
+    }
+
+    final String path = new QueryStringDecoder(request.uri()).path();
+    if (MEDIA_PATH.equals(path)) {
+      final Gson gson = GsonProvider.getSimple();
+      final byte[] json = gson.toJson(this.result.getCurrentMedia()).getBytes(StandardCharsets.UTF_8);
+      this.send(ctx, request, HttpResponseStatus.OK, new Resource(json, "application/json"), false);
+      return;
+    }
+
+    final Resource resource = this.resolve(path);
+    if (resource == null) {
+      this.sendError(ctx, request, HttpResponseStatus.NOT_FOUND);
+      return;
+    }
+    this.send(ctx, request, HttpResponseStatus.OK, resource, true);
+  }
+
+  // statically exported pages are requested without their extension, so try the html variants as well
+  private @Nullable Resource resolve(final String path) {
+    if (path.contains("..")) {
+      return null;
+    }
+    final String base = path.endsWith("/") ? path + "index.html" : path;
+    final String[] candidates = { base, base + ".html", base + "/index.html" };
+    for (final String candidate : candidates) {
+      // a null load leaves no mapping behind, so misses are never cached
+      final Resource resource = this.cache.computeIfAbsent(candidate, this::load);
+      if (resource != null) {
+        return resource;
+      }
+    }
+    return null;
+  }
+
+  private @Nullable Resource load(final String path) {
+    final String name = this.result.getDirectory() + path;
+    final ClassLoader loader = StaticResourceHandler.class.getClassLoader();
+    try (final InputStream stream = loader.getResourceAsStream(name)) {
+      if (stream == null) {
+        return null;
+      }
+      return new Resource(stream.readAllBytes(), contentType(path));
+    } catch (final IOException e) {
+      throw new HttpException(e.getMessage(), e);
+    }
+  }
+
+  private static String contentType(final String path) {
+    final int dot = path.lastIndexOf('.');
+    if (dot == -1) {
+      return DEFAULT_CONTENT_TYPE;
+    }
+    final String extension = path.substring(dot + 1);
+    return CONTENT_TYPES.getOrDefault(extension, DEFAULT_CONTENT_TYPE);
+  }
+
+  private void sendError(final ChannelHandlerContext ctx, final FullHttpRequest request, final HttpResponseStatus status) {
+    final byte[] message = status.toString().getBytes(StandardCharsets.UTF_8);
+    this.send(ctx, request, status, new Resource(message, "text/plain; charset=UTF-8"), false);
+  }
+
+  private void send(
+    final ChannelHandlerContext ctx,
+    final FullHttpRequest request,
+    final HttpResponseStatus status,
+    final Resource resource,
+    final boolean cacheable
+  ) {
+    final boolean head = HttpMethod.HEAD.equals(request.method());
+    final FullHttpResponse response = new DefaultFullHttpResponse(
+      HttpVersion.HTTP_1_1,
+      status,
+      head ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(resource.data)
+    );
+    response.headers().set(HttpHeaderNames.CONTENT_TYPE, resource.contentType);
+    response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, resource.data.length);
+    if (cacheable) {
+      response.headers().set(HttpHeaderNames.CACHE_CONTROL, CACHE_CONTROL);
+    }
+
+    final boolean keepAlive = HttpUtil.isKeepAlive(request);
+    if (keepAlive) {
+      response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+    }
+    final ChannelFuture future = ctx.writeAndFlush(response);
+    if (!keepAlive) {
+      future.addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+    ctx.close();
+  }
+
+  private static final class Resource {
+
+    final byte[] data;
+    final String contentType;
+
+    Resource(final byte[] data, final String contentType) {
+      this.data = data;
+      this.contentType = contentType;
+    }
+  }
+}
@@ -19,6 +19,7 @@ package me.brandonli.mcav.jda;
 
 import me.brandonli.mcav.json.ytdlp.format.URLParseDump;
 import me.brandonli.mcav.media.player.pipeline.filter.audio.AudioFilter;
+import me.brandonli.mcav.media.player.pipeline.filter.audio.OpusPassthroughFilter;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.audio.AudioReceiveHandler;
 import net.dv8tion.jda.api.audio.AudioSendHandler;
@@ -27,7 +28,8 @@ import net.dv8tion.jda.api.audio.AudioSendHandler;
  * Represents a Discord audio filter which can be used to play audio in voice channels. Implements both
  * {@link AudioFilter}, and JDA {@link AudioSendHandler} and {@link AudioReceiveHandler} interfaces for
  * providing and sending audio data. You don't have to worry about transcoding data, as the implementation
- * already handles that conversion for you.
+ * already handles that conversion for you. Players created with {@link #opus(JDA, int)} take Opus packets
+ * straight from Opus sources, which are then neither decoded nor encoded again.
  * <p>
  * Here is an example of how to use it with the JDA API.
  *
@@ -47,7 +49,12 @@ import net.dv8tion.jda.api.audio.AudioSendHandler;
  *     ...
  * </code></pre>
  */
-public interface DiscordPlayer extends AudioFilter, AudioSendHandler, AudioReceiveHandler {
+public interface DiscordPlayer extends OpusPassthroughFilter, AudioSendHandler, AudioReceiveHandler {
+  /**
+   * The default amount of audio, in milliseconds, buffered ahead of playback.
+   */
+  int DEFAULT_TARGET_LATENCY = 100;
+
   /**
    * Creates a new instance of {@link DiscordPlayer}.
    *
@@ -55,7 +62,32 @@ public interface DiscordPlayer extends AudioFilter, AudioSendHandler, AudioRecei
    * @return a new instance of {@link DiscordPlayer}
    */
   static DiscordPlayer voice(final JDA jda) {
-    return new DiscordPlayerImpl(jda);
+    return voice(jda, DEFAULT_TARGET_LATENCY);
+  }
+
+  /**
+   * Creates a new instance of {@link DiscordPlayer} that buffers the given amount of audio ahead of playback.
+   * Lower values reduce delay, while higher values better absorb hiccups in the audio pipeline.
+   *
+   * @param jda           the JDA instance to use for audio playback
+   * @param targetLatency the amount of audio to buffer in milliseconds
+   * @return a new instance of {@link DiscordPlayer}
+   */
+  static DiscordPlayer voice(final JDA jda, final int targetLatency) {
+    return new DiscordPlayerImpl(jda, targetLatency, false);
+  }
+
+  /**
+   * Creates a new instance of {@link DiscordPlayer} that sends pre-encoded Opus packets, which are queued with
+   * {@link #applyOpusPacket} instead of being encoded from PCM samples by JDA. PCM samples passed to
+   * this player are dropped with a warning.
+   *
+   * @param jda           the JDA instance to use for audio playback
+   * @param targetLatency the amount of audio to buffer in milliseconds
+   * @return a new instance of {@link DiscordPlayer}
+   */
+  static DiscordPlayer opus(final JDA jda, final int targetLatency) {
+    return new DiscordPlayerImpl(jda, targetLatency, true);
   }
 
   /**
@@ -17,32 +17,43 @@
  */
 package me.brandonli.mcav.jda;
 
+import com.google.common.base.Preconditions;
 import java.nio.ByteBuffer;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
 import me.brandonli.mcav.json.ytdlp.format.URLParseDump;
 import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
-import me.brandonli.mcav.utils.natives.ByteUtils;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.managers.Presence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The concrete implementation of {@link DiscordPlayer}, which provides audio playback functionality for Discord
- * voice channels.
+ * voice channels. Audio is handed from the pipeline to the JDA send thread through a lock-free {@link JitterBuffer}.
  */
 public class DiscordPlayerImpl implements DiscordPlayer {
 
-  private static final int TWENTY_MS_SIZE = (48000 * 2 * 2 * 20) / 1000;
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiscordPlayerImpl.class);
 
-  private final ByteBuffer buffer;
-  private final Lock bufferLock;
+  private static final int FRAME_MILLIS = 20;
+  private static final int TWENTY_MS_SIZE = (48000 * 2 * 2 * FRAME_MILLIS) / 1000;
+  private static final int MAX_OPUS_PACKET_SIZE = 4000;
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final JitterBuffer buffer;
+  private final boolean opus;
+  private final AtomicBoolean warnedPcm;
   private final JDA jda;
 
-  DiscordPlayerImpl(final JDA jda) {
-    this.buffer = ByteBuffer.allocate(1024 * 1024);
-    this.bufferLock = new ReentrantLock();
+  DiscordPlayerImpl(final JDA jda, final int targetLatency, final boolean opus) {
+    Preconditions.checkArgument(targetLatency >= 0, "Target latency must not be negative");
+    final int frameSize = opus ? MAX_OPUS_PACKET_SIZE : TWENTY_MS_SIZE;
+    final int targetFrames = Math.max(1, targetLatency / FRAME_MILLIS);
+    this.buffer = new JitterBuffer(frameSize, targetFrames);
+    this.opus = opus;
+    this.warnedPcm = new AtomicBoolean();
     this.jda = jda;
   }
 
@@ -51,12 +62,7 @@ public class DiscordPlayerImpl implements DiscordPlayer {
    */
   @Override
   public boolean canProvide() {
-    this.bufferLock.lock();
-    try {
-      return this.buffer.position() >= TWENTY_MS_SIZE;
-    } finally {
-      this.bufferLock.unlock();
-    }
+    return this.buffer.canRead();
   }
 
   /**
@@ -64,21 +70,37 @@ public class DiscordPlayerImpl implements DiscordPlayer {
    */
   @Override
   public ByteBuffer provide20MsAudio() {
-    this.bufferLock.lock();
-    try {
-      if (this.buffer.position() < TWENTY_MS_SIZE) {
-        return ByteBuffer.allocate(0);
-      }
+    if (!this.buffer.canRead()) {
+      return EMPTY;
+    }
+    return this.buffer.read();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isOpus() {
+    return this.opus;
+  }
 
-      final byte[] audioChunk = new byte[TWENTY_MS_SIZE];
-      this.buffer.flip();
-      this.buffer.get(audioChunk, 0, TWENTY_MS_SIZE);
-      this.buffer.compact();
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean acceptsOpus() {
+    return this.opus;
+  }
 
-      return ByteBuffer.wrap(audioChunk);
-    } finally {
-      this.bufferLock.unlock();
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean applyOpusPacket(final ByteBuffer packet, final OriginalAudioMetadata metadata) {
+    if (!this.opus) {
+      return false;
     }
+    return this.buffer.writeFrame(packet);
   }
 
   /**
@@ -86,18 +108,16 @@ public class DiscordPlayerImpl implements DiscordPlayer {
    */
   @Override
   public boolean applyFilter(final ByteBuffer samples, final OriginalAudioMetadata metadata) {
-    final ByteBuffer clamped = ByteUtils.clampNormalBufferToBigEndian(samples);
-    this.bufferLock.lock();
-    try {
-      if (this.buffer.remaining() >= clamped.remaining()) {
-        this.buffer.put(clamped);
-      } else {
-        this.buffer.clear();
-        this.buffer.put(clamped);
+    // JDA does not encode for a handler that reports opus, so decoded samples cannot be played here
+    if (this.opus) {
+      if (this.warnedPcm.compareAndSet(false, true)) {
+        LOGGER.warn(
+          "Opus Discord player received PCM samples, which are dropped. Use DiscordPlayer#voice unless the source is Opus and every filter accepts Opus"
+        );
       }
-    } finally {
-      this.bufferLock.unlock();
+      return false;
     }
+    this.buffer.writeSwappedPcm(samples);
     return true;
   }
 
@@ -0,0 +1,199 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.jda;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import me.brandonli.mcav.utils.natives.ByteUtils;
+
+/**
+ * A single-producer single-consumer ring of 20 ms audio frames that keeps playback latency close to a target.
+ *
+ * <p>The producer is the audio pipeline and the consumer is the JDA audio send thread. Neither side locks or
+ * allocates once running. Slots are only written by the producer before they are published, and only read by
+ * the consumer before they are released, which the two ordered indices guarantee.
+ *
+ * <p>Playback starts once the target amount of frames is buffered. Afterwards, the consumer occasionally drops a
+ * frame when the buffer runs above target, and repeats the previous frame when it runs below, which absorbs the
+ * clock drift between the media source and Discord. A short underrun is concealed by repeating the previous
+ * frame, and a longer one restarts buffering.
+ */
+final class JitterBuffer {
+
+  private static final int ADJUST_INTERVAL_FRAMES = 50;
+  private static final int MAX_CONCEALED_FRAMES = 2;
+
+  private final byte[][] slots;
+  private final int[] lengths;
+  private final int mask;
+  private final int targetFrames;
+  private final int slackFrames;
+  private final AtomicLong writeIndex;
+  private final AtomicLong readIndex;
+
+  private final byte[] pending;
+  private final ShortBuffer pendingSamples;
+  private int pendingLength;
+  private long droppedFrames;
+
+  private final byte[] output;
+  private final ByteBuffer outputView;
+  private boolean playing;
+  private boolean hasOutput;
+  private int concealedFrames;
+  private int framesSinceAdjust;
+
+  JitterBuffer(final int frameSize, final int targetFrames) {
+    final int capacity = Integer.highestOneBit(Math.max(4, targetFrames * 4) - 1) << 1;
+    this.slots = new byte[capacity][frameSize];
+    this.lengths = new int[capacity];
+    this.mask = capacity - 1;
+    this.targetFrames = Math.max(1, targetFrames);
+    this.slackFrames = Math.max(1, this.targetFrames / 4);
+    this.writeIndex = new AtomicLong();
+    this.readIndex = new AtomicLong();
+    this.pending = new byte[frameSize];
+    this.pendingSamples = ByteBuffer.wrap(this.pending).order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+    this.output = new byte[frameSize];
+    this.outputView = ByteBuffer.wrap(this.output);
+  }
+
+  /**
+   * Appends PCM samples in the byte order the buffer declares, converting them to big-endian, and publishes
+   * every completed frame. Only called by the producer.
+   *
+   * @param samples the samples to append, which are read without moving the buffer position
+   */
+  void writeSwappedPcm(final ByteBuffer samples) {
+    final ShortBuffer source = ByteUtils.asShortView(samples);
+    final int frameSize = this.pending.length;
+    int offset = 0;
+    int remaining = source.capacity();
+    while (remaining > 0) {
+      // a bulk copy between views of opposite byte order swaps every sample on the way
+      final int count = Math.min(remaining, (frameSize - this.pendingLength) >> 1);
+      this.pendingSamples.put(this.pendingLength >> 1, source, offset, count);
+      this.pendingLength += count << 1;
+      offset += count;
+      remaining -= count;
+      if (this.pendingLength == frameSize) {
+        this.publish(this.pending, frameSize);
+        this.pendingLength = 0;
+      }
+    }
+  }
+
+  /**
+   * Publishes a complete frame, such as an encoded Opus packet. Only called by the producer.
+   *
+   * @param frame the frame to publish, which is read without moving the buffer position
+   * @return false if the frame did not fit into a slot or the ring was full
+   */
+  boolean writeFrame(final ByteBuffer frame) {
+    final int length = frame.remaining();
+    final long write = this.writeIndex.get();
+    if (length > this.pending.length || write - this.readIndex.get() > this.mask) {
+      this.droppedFrames++;
+      return false;
+    }
+    final int slot = (int) (write & this.mask);
+    frame.get(frame.position(), this.slots[slot], 0, length);
+    this.lengths[slot] = length;
+    this.writeIndex.lazySet(write + 1);
+    return true;
+  }
+
+  private void publish(final byte[] frame, final int length) {
+    final long write = this.writeIndex.get();
+    if (write - this.readIndex.get() > this.mask) {
+      this.droppedFrames++;
+      return;
+    }
+    final int slot = (int) (write & this.mask);
+    System.arraycopy(frame, 0, this.slots[slot], 0, length);
+    this.lengths[slot] = length;
+    this.writeIndex.lazySet(write + 1);
+  }
+
+  /**
+   * Gets the amount of frames the producer dropped because the ring was full.
+   *
+   * @return the amount of dropped frames
+   */
+  long getDroppedFrames() {
+    return this.droppedFrames;
+  }
+
+  /**
+   * Checks if a frame can be read right now. Only called by the consumer.
+   *
+   * @return true if {@link #read()} will return a frame
+   */
+  boolean canRead() {
+    final long available = this.writeIndex.get() - this.readIndex.get();
+    if (!this.playing) {
+      this.playing = available >= this.targetFrames;
+      this.concealedFrames = 0;
+      return this.playing;
+    }
+    if (available > 0 || (this.hasOutput && this.concealedFrames < MAX_CONCEALED_FRAMES)) {
+      return true;
+    }
+    this.playing = false;
+    return false;
+  }
+
+  /**
+   * Reads the next frame. The returned buffer is reused by the next call. Only called by the consumer.
+   *
+   * @return the next frame
+   */
+  ByteBuffer read() {
+    final long read = this.readIndex.get();
+    final long available = this.writeIndex.get() - read;
+    if (available == 0) {
+      this.concealedFrames++;
+      return this.outputView.rewind();
+    }
+    this.concealedFrames = 0;
+    this.framesSinceAdjust++;
+
+    long next = read;
+    if (available > (long) this.targetFrames * 2) {
+      // a burst after a stall, so jump straight back to the target latency
+      next = read + available - this.targetFrames;
+    } else if (this.framesSinceAdjust >= ADJUST_INTERVAL_FRAMES) {
+      if (available > this.targetFrames + this.slackFrames && available > 1) {
+        next = read + 1;
+        this.framesSinceAdjust = 0;
+      } else if (available < this.targetFrames - this.slackFrames && this.hasOutput) {
+        this.framesSinceAdjust = 0;
+        return this.outputView.rewind();
+      }
+    }
+
+    final int slot = (int) (next & this.mask);
+    final int length = this.lengths[slot];
+    System.arraycopy(this.slots[slot], 0, this.output, 0, length);
+    this.readIndex.lazySet(next + 1);
+    this.hasOutput = true;
+    return this.outputView.clear().limit(length);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.svc;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import me.brandonli.mcav.utils.natives.ByteUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downmixes pipeline audio to mono and cuts it into 20 ms frames for the voice chat encoder, reusing a fixed pool
+ * of frames. Frames are written by the player thread and polled by a single sender thread. Writing and clearing
+ * share the partial frame, so they are synchronized against each other, polling only touches the queues.
+ */
+final class FrameAssembler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FrameAssembler.class);
+
+  static final int FRAME_SIZE = 960;
+
+  // one second of audio, plus the frame being filled and the frame being encoded
+  private static final int QUEUED_FRAMES = 50;
+  private static final int POOLED_FRAMES = QUEUED_FRAMES + 2;
+
+  private final BlockingQueue<short[]> frameQueue;
+  private final BlockingQueue<short[]> freeFrames;
+
+  private short @Nullable [] currentFrame;
+  private int framePosition;
+  private short carry;
+  private boolean hasCarry;
+
+  FrameAssembler() {
+    this.frameQueue = new ArrayBlockingQueue<>(POOLED_FRAMES);
+    this.freeFrames = new ArrayBlockingQueue<>(POOLED_FRAMES);
+    for (int i = 0; i < POOLED_FRAMES; i++) {
+      this.freeFrames.add(new short[FRAME_SIZE]);
+    }
+  }
+
+  synchronized void write(final ByteBuffer samples) {
+    // the view reads in the declared order and leaves the position of the shared buffer untouched
+    final ShortBuffer view = ByteUtils.asShortView(samples);
+    final int count = view.capacity();
+    int index = 0;
+    if (this.hasCarry && count > 0) {
+      this.writeSample(downmix(this.carry, view.get(0)));
+      this.hasCarry = false;
+      index = 1;
+    }
+
+    while (index + 1 < count) {
+      this.writeSample(downmix(view.get(index), view.get(index + 1)));
+      index += 2;
+    }
+
+    // a stereo sample split across two buffers is completed on the next call
+    if (index < count) {
+      this.carry = view.get(index);
+      this.hasCarry = true;
+    }
+  }
+
+  short @Nullable [] poll() {
+    return this.frameQueue.poll();
+  }
+
+  void recycle(final short[] frame) {
+    this.freeFrames.offer(frame);
+  }
+
+  // the frames are handed back to the pool so the next playback can reuse them
+  synchronized void clear() {
+    short[] frame;
+    while ((frame = this.frameQueue.poll()) != null) {
+      this.freeFrames.offer(frame);
+    }
+    final short[] current = this.currentFrame;
+    if (current != null) {
+      this.freeFrames.offer(current);
+      this.currentFrame = null;
+    }
+    this.framePosition = 0;
+    this.carry = 0;
+    this.hasCarry = false;
+  }
+
+  private static short downmix(final short left, final short right) {
+    return (short) ((left + right) >> 1);
+  }
+
+  private void writeSample(final short sample) {
+    short[] frame = this.currentFrame;
+    if (frame == null) {
+      frame = this.acquireFrame();
+      this.currentFrame = frame;
+    }
+    frame[this.framePosition++] = sample;
+    if (this.framePosition == FRAME_SIZE) {
+      this.frameQueue.offer(frame);
+      this.currentFrame = null;
+      this.framePosition = 0;
+    }
+  }
+
+  // when the sender falls behind, the oldest queued frame is overwritten instead of growing the backlog
+  private short[] acquireFrame() {
+    short[] frame = this.freeFrames.poll();
+    if (frame == null) {
+      frame = this.frameQueue.poll();
+      LOGGER.debug("Audio frame dropped because the voice chat sender fell behind");
+    }
+    return frame != null ? frame : new short[FRAME_SIZE];
+  }
+}
@@ -32,4 +32,16 @@ public interface SVCFilter extends FunctionalAudioFilter {
   static SVCFilter svc(final Object... players) {
     return new SVCFilterImpl(players);
   }
+
+  /**
+   * Creates a new SVCFilter instance that plays positional audio from an in-world screen. Voice chat clients
+   * attenuate and pan the audio by their own distance to the screen.
+   *
+   * @param configuration the position and range of the screen
+   * @param players       the objects of the players that may listen
+   * @return a new SVCFilter instance
+   */
+  static SVCFilter spatial(final SpatialConfiguration configuration, final Object... players) {
+    return new SpatialSVCFilterImpl(configuration, players);
+  }
 }
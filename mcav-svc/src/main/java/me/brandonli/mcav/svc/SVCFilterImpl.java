@@ -21,68 +21,40 @@ import static java.util.Objects.requireNonNull;
 
 import de.maxhenkel.voicechat.api.Entity;
 import de.maxhenkel.voicechat.api.VoicechatServerApi;
-import de.maxhenkel.voicechat.api.audio.AudioConverter;
-import de.maxhenkel.voicechat.api.audiochannel.AudioPlayer;
 import de.maxhenkel.voicechat.api.audiochannel.EntityAudioChannel;
-import de.maxhenkel.voicechat.api.opus.OpusEncoder;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
 import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import me.brandonli.mcav.media.player.pipeline.filter.audio.OpusPassthroughFilter;
 
 /**
  * An implementation of the SVCFilter interface that processes audio samples for a set of players.
+ *
+ * <p>Every 20 ms frame is encoded to Opus exactly once by a single {@link VoiceSender}, and the same packet is sent
+ * on the audio channel of every player, so encoding cost does not grow with the audience and every player receives
+ * every frame.
+ *
+ * <p>Incoming 16-bit little-endian stereo samples are downmixed straight from the buffer into a fixed set of
+ * preallocated frames that cycle between the audio thread and the sender, so the audio thread does not allocate.
+ *
+ * <p>Opus packets passed through from an Opus source are sent as they are, skipping the encoder.
  */
-public final class SVCFilterImpl implements SVCFilter {
-
-  private static final Logger LOGGER = LoggerFactory.getLogger(SVCFilterImpl.class);
-
-  private static final AudioFormat INPUT_FORMAT = new AudioFormat(48000, 16, 2, true, false);
-  private static final AudioFormat OUTPUT_FORMAT = new AudioFormat(48000, 16, 1, true, false);
-
-  private static final int FRAME_SIZE = 960;
+public final class SVCFilterImpl implements SVCFilter, OpusPassthroughFilter {
 
   private final Object[] players;
   private final Entity[] channels;
-  private final AudioPlayer[] audioPlayers;
-  private final OpusEncoder[] encoders;
-  private final Supplier<short[]> supplier;
-  private final BlockingQueue<short[]> frameQueue;
-  private final ByteArrayOutputStream sampleBuffer;
-
+  private final EntityAudioChannel[] audioChannels;
+  private final VoiceSender sender;
   private volatile boolean isRunning;
 
   SVCFilterImpl(final Object... players) {
     final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
     final int len = players.length;
-    this.frameQueue = new LinkedBlockingQueue<>();
-    this.sampleBuffer = new ByteArrayOutputStream();
+    this.sender = new VoiceSender("mcav-svc-sender");
     this.players = players;
     this.channels = new Entity[len];
-    this.audioPlayers = new AudioPlayer[len];
-    this.encoders = new OpusEncoder[len];
+    this.audioChannels = new EntityAudioChannel[len];
     this.isRunning = true;
-    this.supplier = () -> {
-      try {
-        final short[] frame = this.frameQueue.poll(50, TimeUnit.MILLISECONDS);
-        return frame != null ? frame : new short[FRAME_SIZE];
-      } catch (final InterruptedException e) {
-        final Thread currentThread = Thread.currentThread();
-        currentThread.interrupt();
-        return new short[FRAME_SIZE];
-      }
-    };
     for (int i = 0; i < len; i++) {
       final Object player = players[i];
       this.channels[i] = voiceChatApi.fromEntity(player);
@@ -93,17 +65,25 @@ public final class SVCFilterImpl implements SVCFilter {
    * {@inheritDoc}
    */
   @Override
-  public void start() {
+  public synchronized void start() {
+    if (this.sender.isStarted()) {
+      return;
+    }
     final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
     for (int i = 0; i < this.players.length; i++) {
       final UUID uuid = UUID.randomUUID();
       final Entity entity = this.channels[i];
-      final EntityAudioChannel audioChannel = requireNonNull(voiceChatApi.createEntityAudioChannel(uuid, entity));
-      final OpusEncoder encoder = voiceChatApi.createEncoder();
-      final AudioPlayer player = voiceChatApi.createAudioPlayer(audioChannel, encoder, this.supplier);
-      this.audioPlayers[i] = player;
-      this.encoders[i] = encoder;
-      player.startPlaying();
+      this.audioChannels[i] = requireNonNull(voiceChatApi.createEntityAudioChannel(uuid, entity));
+    }
+    this.sender.start(this::sendToAll);
+  }
+
+  // the identical opus packet goes to every channel
+  private void sendToAll(final byte[] packet) {
+    for (final EntityAudioChannel channel : this.audioChannels) {
+      if (channel != null) {
+        channel.send(packet);
+      }
     }
   }
 
@@ -111,33 +91,14 @@ public final class SVCFilterImpl implements SVCFilter {
    * {@inheritDoc}
    */
   @Override
-  public void release() {
+  public synchronized void release() {
     this.isRunning = false;
-
-    final byte[] remainingBytes = this.sampleBuffer.toByteArray();
-    if (remainingBytes.length > 0) {
-      final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
-      final AudioConverter converter = voiceChatApi.getAudioConverter();
-      final short[] remainingShorts = converter.bytesToShorts(remainingBytes);
-      final short[] finalFrame = new short[FRAME_SIZE];
-      System.arraycopy(remainingShorts, 0, finalFrame, 0, Math.min(remainingShorts.length, FRAME_SIZE));
-      if (!this.frameQueue.offer(finalFrame)) {
-        LOGGER.error("Warning: Final audio frame dropped due to full queue");
+    this.sender.stop();
+    for (final EntityAudioChannel channel : this.audioChannels) {
+      if (channel != null) {
+        channel.flush();
       }
     }
-
-    for (int i = 0; i < this.players.length; i++) {
-      final AudioPlayer player = this.audioPlayers[i];
-      if (player != null) {
-        player.stopPlaying();
-      }
-      final OpusEncoder encoder = this.encoders[i];
-      if (encoder != null) {
-        encoder.close();
-      }
-    }
-
-    this.frameQueue.clear();
   }
 
   /**
@@ -149,42 +110,21 @@ public final class SVCFilterImpl implements SVCFilter {
       return false;
     }
 
-    final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
-    final AudioConverter converter = voiceChatApi.getAudioConverter();
-    final byte[] arr = new byte[samples.remaining()];
-    samples.get(arr);
-    samples.rewind();
-
-    try {
-      final ByteArrayInputStream bais = new ByteArrayInputStream(arr);
-      final AudioInputStream stereoStream = new AudioInputStream(bais, INPUT_FORMAT, arr.length / INPUT_FORMAT.getFrameSize());
-      final AudioInputStream monoStream = AudioSystem.getAudioInputStream(OUTPUT_FORMAT, stereoStream);
-      final byte[] monoBytes = monoStream.readAllBytes();
-      this.sampleBuffer.write(monoBytes, 0, monoBytes.length);
-
-      final byte[] bufferedBytes = this.sampleBuffer.toByteArray();
-      int bytesProcessed = 0;
-      final int BYTES_PER_FRAME = FRAME_SIZE * 2;
-      while (bytesProcessed + BYTES_PER_FRAME <= bufferedBytes.length) {
-        final byte[] frameBytes = new byte[BYTES_PER_FRAME];
-        System.arraycopy(bufferedBytes, bytesProcessed, frameBytes, 0, BYTES_PER_FRAME);
-        final short[] frame = converter.bytesToShorts(frameBytes);
-        if (!this.frameQueue.offer(frame)) {
-          LOGGER.error("Warning: Audio frame dropped due to full queue");
-        }
-        bytesProcessed += BYTES_PER_FRAME;
-      }
-
-      this.sampleBuffer.reset();
-      if (bytesProcessed < bufferedBytes.length) {
-        this.sampleBuffer.write(bufferedBytes, bytesProcessed, bufferedBytes.length - bytesProcessed);
-      }
+    this.sender.write(samples);
+    return true;
+  }
 
-      monoStream.close();
-      stereoStream.close();
-    } catch (final IOException e) {
-      throw new RuntimeException("Failed to convert audio format", e);
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean applyOpusPacket(final ByteBuffer packet, final OriginalAudioMetadata metadata) {
+    if (!this.isRunning) {
+      return false;
     }
+
+    // voice chat clients decode stereo packets into mono themselves, so the packet is sent unchanged
+    this.sender.writePacket(packet);
     return true;
   }
 }
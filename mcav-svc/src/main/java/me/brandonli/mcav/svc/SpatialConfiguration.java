@@ -0,0 +1,184 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.svc;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Describes where an in-world screen is, so that voice chat can play its audio from that point. The audio is
+ * emitted from the center of the screen, and voice chat clients attenuate and pan it themselves up to the range.
+ */
+public final class SpatialConfiguration {
+
+  private final Object level;
+  private final double x;
+  private final double y;
+  private final double z;
+  private final double range;
+
+  private SpatialConfiguration(final Builder builder) {
+    this.level = requireNonNull(builder.level, "level");
+    this.x = (builder.x1 + builder.x2) / 2;
+    this.y = (builder.y1 + builder.y2) / 2;
+    this.z = (builder.z1 + builder.z2) / 2;
+    this.range = builder.range;
+  }
+
+  /**
+   * Gets the platform level (world) the screen is in.
+   *
+   * @return the level object
+   */
+  public Object getLevel() {
+    return this.level;
+  }
+
+  /**
+   * Gets the x coordinate the audio is played from.
+   *
+   * @return the x coordinate of the screen center
+   */
+  public double getX() {
+    return this.x;
+  }
+
+  /**
+   * Gets the y coordinate the audio is played from.
+   *
+   * @return the y coordinate of the screen center
+   */
+  public double getY() {
+    return this.y;
+  }
+
+  /**
+   * Gets the z coordinate the audio is played from.
+   *
+   * @return the z coordinate of the screen center
+   */
+  public double getZ() {
+    return this.z;
+  }
+
+  /**
+   * Gets the distance beyond which listeners no longer hear the screen, which is passed to voice chat as the
+   * distance of the locational channel.
+   *
+   * @return the range in blocks
+   */
+  public double getRange() {
+    return this.range;
+  }
+
+  /**
+   * Creates a new builder.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder for {@link SpatialConfiguration}.
+   */
+  public static final class Builder {
+
+    private static final double DEFAULT_RANGE = 48.0;
+
+    private Object level;
+    private double x1;
+    private double y1;
+    private double z1;
+    private double x2;
+    private double y2;
+    private double z2;
+    private double range;
+
+    Builder() {
+      this.range = DEFAULT_RANGE;
+    }
+
+    /**
+     * Sets the platform level (world) the screen is in, such as a Bukkit {@code World}.
+     *
+     * @param level the level object
+     * @return this builder
+     */
+    public Builder level(final Object level) {
+      this.level = level;
+      return this;
+    }
+
+    /**
+     * Sets the screen to a single point, such as the screen's {@code Location}.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return this builder
+     */
+    public Builder position(final double x, final double y, final double z) {
+      return this.bounds(x, y, z, x, y, z);
+    }
+
+    /**
+     * Sets the screen to the box spanned by two opposite corners, the audio is played from its center.
+     *
+     * @param x1 the x coordinate of the first corner
+     * @param y1 the y coordinate of the first corner
+     * @param z1 the z coordinate of the first corner
+     * @param x2 the x coordinate of the second corner
+     * @param y2 the y coordinate of the second corner
+     * @param z2 the z coordinate of the second corner
+     * @return this builder
+     */
+    public Builder bounds(final double x1, final double y1, final double z1, final double x2, final double y2, final double z2) {
+      this.x1 = x1;
+      this.y1 = y1;
+      this.z1 = z1;
+      this.x2 = x2;
+      this.y2 = y2;
+      this.z2 = z2;
+      return this;
+    }
+
+    /**
+     * Sets the distance beyond which listeners no longer hear the screen.
+     *
+     * @param range the distance in blocks
+     * @return this builder
+     */
+    public Builder range(final double range) {
+      this.range = range;
+      return this;
+    }
+
+    /**
+     * Builds the configuration.
+     *
+     * @return the configuration
+     */
+    public SpatialConfiguration build() {
+      Preconditions.checkArgument(this.range > 0, "Range must be positive");
+      return new SpatialConfiguration(this);
+    }
+  }
+}
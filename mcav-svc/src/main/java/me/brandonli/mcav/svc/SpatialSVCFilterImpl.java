@@ -0,0 +1,107 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.svc;
+
+import static java.util.Objects.requireNonNull;
+
+import de.maxhenkel.voicechat.api.Position;
+import de.maxhenkel.voicechat.api.ServerLevel;
+import de.maxhenkel.voicechat.api.VoicechatServerApi;
+import de.maxhenkel.voicechat.api.audiochannel.LocationalAudioChannel;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import me.brandonli.mcav.media.player.metadata.OriginalAudioMetadata;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An implementation of the SVCFilter interface that plays positional audio from an in-world screen.
+ *
+ * <p>All audio goes through a single locational channel at the screen, so every 20 ms frame is encoded exactly once
+ * by a {@link VoiceSender} and voice chat clients attenuate and pan it by their own distance, up to the configured
+ * range. The channel is filtered to the given players, so nobody else hears the screen.
+ */
+public final class SpatialSVCFilterImpl implements SVCFilter {
+
+  private final SpatialConfiguration configuration;
+  private final Set<UUID> listeners;
+  private final VoiceSender sender;
+
+  private @Nullable LocationalAudioChannel audioChannel;
+  private volatile boolean isRunning;
+
+  SpatialSVCFilterImpl(final SpatialConfiguration configuration, final Object... players) {
+    final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
+    this.configuration = configuration;
+    this.listeners = new HashSet<>();
+    for (final Object player : players) {
+      this.listeners.add(voiceChatApi.fromEntity(player).getUuid());
+    }
+    this.sender = new VoiceSender("mcav-svc-spatial-sender");
+    this.isRunning = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void start() {
+    if (this.sender.isStarted()) {
+      return;
+    }
+    final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
+    final SpatialConfiguration configuration = this.configuration;
+    final ServerLevel level = voiceChatApi.fromServerLevel(configuration.getLevel());
+    final Position position = voiceChatApi.createPosition(configuration.getX(), configuration.getY(), configuration.getZ());
+    final LocationalAudioChannel channel = requireNonNull(voiceChatApi.createLocationalAudioChannel(UUID.randomUUID(), level, position));
+    channel.setDistance((float) configuration.getRange());
+    channel.setFilter(player -> this.listeners.contains(player.getUuid()));
+    this.audioChannel = channel;
+
+    // one encode per frame, the clients render distance and direction themselves
+    this.sender.start(channel::send);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void release() {
+    this.isRunning = false;
+    this.sender.stop();
+    final LocationalAudioChannel channel = this.audioChannel;
+    if (channel != null) {
+      channel.flush();
+      this.audioChannel = null;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean applyFilter(final ByteBuffer samples, final OriginalAudioMetadata metadata) {
+    if (!this.isRunning) {
+      return false;
+    }
+
+    this.sender.write(samples);
+    return true;
+  }
+}
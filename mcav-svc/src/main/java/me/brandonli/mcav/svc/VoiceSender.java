@@ -0,0 +1,143 @@
+/*
+ * This file is part of mcav, a media playback library for Java
+ * Copyright (C) Brandon Li <https://brandonli.me/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.brandonli.mcav.svc;
+
+import de.maxhenkel.voicechat.api.VoicechatServerApi;
+import de.maxhenkel.voicechat.api.opus.OpusEncoder;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encodes pipeline audio into 20 ms Opus packets on a single sender thread and hands every packet to an output,
+ * which sends it on one or more voice chat channels. Each frame is encoded exactly once, however many channels
+ * the output sends it on. Opus packets passed through from an Opus source are sent as they are, skipping the
+ * encoder.
+ */
+final class VoiceSender {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(VoiceSender.class);
+
+  private static final long FRAME_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+  private static final int QUEUED_PACKETS = 50;
+
+  private final String threadName;
+  private final FrameAssembler frames;
+  private final BlockingQueue<byte[]> packets;
+
+  private @Nullable Consumer<byte[]> output;
+  private @Nullable OpusEncoder encoder;
+  private @Nullable ScheduledExecutorService executor;
+
+  VoiceSender(final String threadName) {
+    this.threadName = threadName;
+    this.frames = new FrameAssembler();
+    this.packets = new ArrayBlockingQueue<>(QUEUED_PACKETS);
+  }
+
+  synchronized boolean isStarted() {
+    return this.executor != null;
+  }
+
+  synchronized void start(final Consumer<byte[]> output) {
+    if (this.executor != null) {
+      return;
+    }
+    final VoicechatServerApi voiceChatApi = SVCModule.getVoiceChatApi();
+    this.output = output;
+    this.encoder = voiceChatApi.createEncoder();
+    final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread thread = new Thread(task, this.threadName);
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor = service;
+    service.scheduleAtFixedRate(this::sendFrame, 0L, FRAME_DURATION_NANOS, TimeUnit.NANOSECONDS);
+  }
+
+  // an empty queue just skips the tick
+  private void sendFrame() {
+    final Consumer<byte[]> output = this.output;
+    if (output == null) {
+      return;
+    }
+    final byte[] passthrough = this.packets.poll();
+    if (passthrough != null) {
+      output.accept(passthrough);
+      return;
+    }
+    final OpusEncoder opus = this.encoder;
+    final short[] frame = this.frames.poll();
+    if (opus == null || frame == null) {
+      return;
+    }
+    final byte[] encoded = opus.encode(frame);
+    this.frames.recycle(frame);
+    output.accept(encoded);
+  }
+
+  void write(final ByteBuffer samples) {
+    this.frames.write(samples);
+  }
+
+  void writePacket(final ByteBuffer packet) {
+    final byte[] copy = new byte[packet.remaining()];
+    packet.get(packet.position(), copy);
+    while (!this.packets.offer(copy)) {
+      this.packets.poll();
+    }
+  }
+
+  synchronized void stop() {
+    final ScheduledExecutorService service = this.executor;
+    if (service != null) {
+      service.shutdownNow();
+      this.executor = null;
+      awaitTermination(service);
+    }
+
+    final OpusEncoder opus = this.encoder;
+    if (opus != null) {
+      opus.close();
+      this.encoder = null;
+    }
+
+    this.output = null;
+    this.frames.clear();
+    this.packets.clear();
+  }
+
+  // the encoder must not be closed while the sender is still encoding a frame
+  private static void awaitTermination(final ScheduledExecutorService service) {
+    try {
+      if (!service.awaitTermination(1, TimeUnit.SECONDS)) {
+        LOGGER.error("Voice chat sender did not terminate in time");
+      }
+    } catch (final InterruptedException e) {
+      final Thread currentThread = Thread.currentThread();
+      currentThread.interrupt();
+    }
+  }
+}